@@ -0,0 +1,39 @@
+package org.cache.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs the benchmarks with the usual JMH options, the results are written as JSON to jmh-result.json
+ * unless an other result format or file is given
+ */
+public final class BenchmarkRunner {
+
+    private static final String RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if(commandLineOptions.shouldHelp()){
+            commandLineOptions.showHelp();
+            return;
+        }
+        if(commandLineOptions.shouldList()){
+            new Runner(commandLineOptions).list();
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+        if(!commandLineOptions.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+        if(!commandLineOptions.getResult().hasValue()) options.result(RESULT_FILE);
+        new Runner(options.build()).run();
+    }
+}
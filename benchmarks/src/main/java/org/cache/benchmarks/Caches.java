@@ -0,0 +1,28 @@
+package org.cache.benchmarks;
+
+import org.cache.factory.BasicCleanCacheFactory;
+import org.cache.factory.CacheFactory;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches of the benchmarks
+ */
+final class Caches {
+
+    //Segments of the caches, enough for the threads of the concurrent benchmarks
+    static final int CONCURRENCY_LEVEL = 16;
+
+    private Caches() {
+    }
+
+    /**
+     * Cache builder with the settings shared by the benchmarks, the evictions are not logged
+     */
+    static <V extends Serializable> BasicCleanCacheFactory<Long,V> builder(long capacity) {
+        return new CacheFactory<Long,V>().basicCleanCache().setCapacity(capacity).setMemoryThresholdSize(capacity)
+                .setCacheTimeout(TimeUnit.HOURS.toMillis(1)).setConcurrencyLevel(CONCURRENCY_LEVEL)
+                .setEvictionCallback((key, value) -> { });
+    }
+}
@@ -0,0 +1,85 @@
+package org.cache.benchmarks;
+
+import org.cache.interfaces.ICleanCache;
+import org.cache.serializer.BinaryValueSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache keeping one key in 16 in memory, the others are on disk. A put of a key on disk brings it back
+ * in memory and spills the least recent key, a read of a key on disk faults its value in
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiskBenchmark {
+
+    //Distinct keys of the disk benchmarks, few enough for the biggest values to stay under the gigabyte
+    static final int ITEMS = 1 << 12;
+
+    @Param({"128", "4096", "32768"})
+    public int valueSize;
+
+    private byte[] value;
+
+    private ICleanCache<Long,byte[]> cache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        value = new byte[valueSize];
+        cache = Caches.<byte[]>builder(ITEMS).setMemoryThresholdSize((long) ITEMS / 16)
+                .setValueSerializer(new BinaryValueSerializer<>()).build();
+        for (long key = 0; key < ITEMS; key++) {
+            cache.put(key, value);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void spill(DiskKeys keys) {
+        cache.put(keys.next(), value);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Optional<byte[]> faultIn(DiskKeys keys) {
+        return cache.get(keys.next());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Optional<byte[]> faultInConcurrent(DiskKeys keys) {
+        return cache.get(keys.next());
+    }
+
+    public static class DiskKeys extends ThreadKeys {
+
+        @Override
+        protected int items() {
+            return ITEMS;
+        }
+    }
+}
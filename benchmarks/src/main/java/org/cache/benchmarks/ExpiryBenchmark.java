@@ -0,0 +1,65 @@
+package org.cache.benchmarks;
+
+import org.cache.interfaces.ICleanCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keys written with a time to live of a few millis, the reads find expired keys and the timer wheel
+ * removes the others while the writes go on
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpiryBenchmark {
+
+    private static final String VALUE = "value";
+
+    //Time to live of the writes, in millis
+    @Param({"1", "10"})
+    public long ttl;
+
+    private ICleanCache<Long,String> cache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = Caches.<String>builder(ThreadKeys.ITEMS).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Optional<String> expiryChurn(ThreadKeys keys) {
+        cache.put(keys.next(), VALUE, ttl);
+        return cache.get(keys.next());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Optional<String> expiryChurnConcurrent(ThreadKeys keys) {
+        cache.put(keys.next(), VALUE, ttl);
+        return cache.get(keys.next());
+    }
+}
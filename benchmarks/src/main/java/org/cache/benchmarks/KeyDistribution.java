@@ -0,0 +1,78 @@
+package org.cache.benchmarks;
+
+import java.util.SplittableRandom;
+
+/**
+ * Distribution of the keys read and written by the benchmarks. The keys are generated before the measurement
+ * so the benchmarks do not time the generators
+ */
+public enum KeyDistribution {
+
+    //Every key has the same chance
+    UNIFORM {
+        @Override
+        long[] keys(int count, long items, long seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = random.nextLong(items);
+            }
+            return keys;
+        }
+    },
+
+    //Few hot keys take most of the accesses, the ranks are scrambled so the hot keys are spread over the segments
+    ZIPFIAN {
+        @Override
+        long[] keys(int count, long items, long seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+            double zetan = zeta(items);
+            double alpha = 1 / (1 - ZIPFIAN_CONSTANT);
+            double eta = (1 - Math.pow(2.0 / items, 1 - ZIPFIAN_CONSTANT)) / (1 - zeta(2) / zetan);
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) {
+                double u = random.nextDouble();
+                double uz = u * zetan;
+                long rank;
+                if(uz < 1){
+                    rank = 0;
+                }else if(uz < 1 + Math.pow(0.5, ZIPFIAN_CONSTANT)){
+                    rank = 1;
+                }else{
+                    rank = Math.min(items - 1, (long) (items * Math.pow(eta * u - eta + 1, alpha)));
+                }
+                keys[i] = Math.floorMod(fnv(rank), items);
+            }
+            return keys;
+        }
+    };
+
+    //Skew of the Zipfian distribution, the one of the YCSB workloads
+    private static final double ZIPFIAN_CONSTANT = 0.99;
+
+    /**
+     * @param count number of keys to generate
+     * @param items number of distinct keys, the keys are in [0, items)
+     * @param seed seed of the generator, one per thread
+     * @return generated keys
+     */
+    abstract long[] keys(int count, long items, long seed);
+
+    private static double zeta(long items) {
+        double sum = 0;
+        for (long i = 1; i <= items; i++) {
+            sum += 1 / Math.pow(i, ZIPFIAN_CONSTANT);
+        }
+        return sum;
+    }
+
+    //FNV-1a hash of the 8 bytes of a rank
+    private static long fnv(long rank) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < 8; i++) {
+            hash ^= (rank >>> (i * 8)) & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,73 @@
+package org.cache.benchmarks;
+
+import org.cache.interfaces.ICleanCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes interleaved on the same keys, 90/10 for a read mostly cache and 50/50 for a write heavy one
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MixedBenchmark {
+
+    private static final String VALUE = "value";
+
+    @Param({"90", "50"})
+    public int readPercentage;
+
+    private ICleanCache<Long,String> cache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = Caches.<String>builder(ThreadKeys.ITEMS).build();
+        for (long key = 0; key < ThreadKeys.ITEMS; key++) {
+            cache.put(key, VALUE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void mixed(ThreadKeys keys, Blackhole blackhole) {
+        readOrWrite(keys, blackhole);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void mixedConcurrent(ThreadKeys keys, Blackhole blackhole) {
+        readOrWrite(keys, blackhole);
+    }
+
+    private void readOrWrite(ThreadKeys keys, Blackhole blackhole) {
+        if(ThreadLocalRandom.current().nextInt(100) < readPercentage){
+            blackhole.consume(cache.get(keys.next()));
+        }else{
+            cache.put(keys.next(), VALUE);
+        }
+    }
+}
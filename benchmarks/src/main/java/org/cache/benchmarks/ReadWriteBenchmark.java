@@ -0,0 +1,72 @@
+package org.cache.benchmarks;
+
+import org.cache.interfaces.ICleanCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hits and updates of a cache holding every key in memory, on one thread and on all the cores
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadWriteBenchmark {
+
+    private static final String VALUE = "value";
+
+    private ICleanCache<Long,String> cache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = Caches.<String>builder(ThreadKeys.ITEMS).build();
+        for (long key = 0; key < ThreadKeys.ITEMS; key++) {
+            cache.put(key, VALUE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Optional<String> getHit(ThreadKeys keys) {
+        return cache.get(keys.next());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Optional<String> getHitConcurrent(ThreadKeys keys) {
+        return cache.get(keys.next());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void put(ThreadKeys keys) {
+        cache.put(keys.next(), VALUE);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void putConcurrent(ThreadKeys keys) {
+        cache.put(keys.next(), VALUE);
+    }
+}
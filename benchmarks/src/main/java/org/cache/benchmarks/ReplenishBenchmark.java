@@ -0,0 +1,88 @@
+package org.cache.benchmarks;
+
+import org.cache.interfaces.ICleanCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Misses loaded by a synthetic replenish callback. Every read asks for a key never read before,
+ * so it pays the lookup, the load, the insert and the eviction of the least recent key
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplenishBenchmark {
+
+    private static final String VALUE = "value";
+
+    //CPU work of a load, in JMH tokens
+    @Param({"0", "1000"})
+    public long loaderCost;
+
+    private ICleanCache<Long,String> cache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = Caches.<String>builder(ThreadKeys.ITEMS).setReplenishCallback(key -> {
+            Blackhole.consumeCPU(loaderCost);
+            return Optional.of(VALUE);
+        }).build();
+        //The cache behind the proxy is created by the first put
+        cache.put(-1L, VALUE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Optional<String> replenishMiss(MissingKeys keys) {
+        return cache.get(keys.next());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Optional<String> replenishMissConcurrent(MissingKeys keys) {
+        return cache.get(keys.next());
+    }
+
+    /**
+     * Keys of a thread never read by an other thread nor before
+     */
+    @State(Scope.Thread)
+    public static class MissingKeys {
+
+        private long next;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threadParams) {
+            next = (long) threadParams.getThreadIndex() << 40;
+        }
+
+        public Long next() {
+            return next++;
+        }
+    }
+}
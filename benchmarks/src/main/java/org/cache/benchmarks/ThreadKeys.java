@@ -0,0 +1,50 @@
+package org.cache.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Keys of a benchmark thread, drawn from the distribution before the measurement and boxed once
+ * so an operation only reads the next one
+ */
+@State(Scope.Thread)
+public class ThreadKeys {
+
+    //Distinct keys of the benchmarks, all of them fit in the caches kept in memory
+    public static final int ITEMS = 1 << 16;
+
+    private static final int COUNT = 1 << 20;
+
+    private static final int MASK = COUNT - 1;
+
+    @Param({"UNIFORM", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    private Long[] keys;
+
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp(ThreadParams threadParams) {
+        long[] generated = distribution.keys(COUNT, items(), threadParams.getThreadIndex());
+        keys = new Long[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            keys[i] = generated[i];
+        }
+    }
+
+    /**
+     * Number of distinct keys
+     */
+    protected int items() {
+        return ITEMS;
+    }
+
+    public Long next() {
+        return keys[index++ & MASK];
+    }
+}
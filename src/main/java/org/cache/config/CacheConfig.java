@@ -0,0 +1,320 @@
+package org.cache.config;
+
+import org.cache.eviction.EvictionPolicyType;
+import org.cache.interfaces.AsyncReplenishCallback;
+import org.cache.interfaces.BulkReplenishCallback;
+import org.cache.interfaces.EvictionCallback;
+import org.cache.interfaces.EvictionPolicy;
+import org.cache.interfaces.Expiry;
+import org.cache.interfaces.RemovalListener;
+import org.cache.interfaces.ReplenishCallback;
+import org.cache.interfaces.ValueSerializer;
+import org.cache.interfaces.Weigher;
+import org.cache.serializer.JavaValueSerializer;
+
+import java.io.Serializable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
+
+/**
+ * Settings of a cache instance, filled by the cache factory and read by the cache implementation
+ * @param <K> Cache Key Type
+ * @param <V> Cache Value object
+ */
+public class CacheConfig<K,V extends Serializable> {
+
+    private Long cacheTimeout = CommonConfig.DEFAULT_CACHE_OBJECT_TIMEOUT;
+    private Long capacity = CommonConfig.DEFAULT_CACHE_SIZE;
+    private Long memoryThresholdSize = null;
+    private ReplenishCallback<K,V> replenishCallback = null;
+    private EvictionCallback<K,V> evictionCallback = null;
+    private Integer concurrencyLevel = CommonConfig.DEFAULT_CONCURRENCY_LEVEL;
+    private boolean readBufferEnabled = false;
+    //Creates the eviction policy of a segment from the segment capacity
+    private LongFunction<EvictionPolicy<K,V>> evictionPolicy = EvictionPolicyType.LRU::create;
+    private boolean admissionFilterEnabled = false;
+    private Long sketchSize = CommonConfig.DEFAULT_CACHE_SIZE;
+    private Integer admissionWindowPercentage = CommonConfig.DEFAULT_ADMISSION_WINDOW_PERCENTAGE;
+    //Expire after write with the cache timeout if not set
+    private Expiry<K,V> expiry = null;
+    private AsyncReplenishCallback<K,V> asyncReplenishCallback = null;
+    private BulkReplenishCallback<K,V> bulkReplenishCallback = null;
+    //Runs the replenish calls of the asynchronous reads
+    private Executor loaderExecutor = ForkJoinPool.commonPool();
+    private Long refreshAfterWrite = null;
+    //Converts the values pushed to disk to bytes
+    private ValueSerializer<V> valueSerializer = new JavaValueSerializer<>();
+    private Integer earlyRefreshPercentage = 0;
+    //Direct memory of the off heap tier in bytes, 0 disables it
+    private Long offHeapCapacityBytes = 0L;
+    //Reads served off heap or from disk before a key is promoted back in memory
+    private Integer diskPromotionThreshold = CommonConfig.DEFAULT_DISK_PROMOTION_THRESHOLD;
+    //Weight of the values for the capacity and the memory threshold, null to count the keys
+    private Weigher<K,V> weigher = null;
+    //Name of the disk tier directory of a durable cache, null for a disk tier deleted with the cache
+    private String cacheName = null;
+    //Time to live of the keys the replenish callback found no value for, null if they are not cached
+    private Long negativeCacheTimeout = null;
+    //Part of live bytes under which a disk segment is compacted, 0 disables the compaction
+    private Double compactionLiveRatio = CommonConfig.DEFAULT_COMPACTION_LIVE_RATIO;
+    //I/O budget of the disk compaction
+    private Long compactionBytesPerSecond = CommonConfig.DEFAULT_COMPACTION_BYTES_PER_SECOND;
+    //Interval between the writes of the disk index of a durable cache, the keys spilled since are lost by a crash
+    private Long diskIndexInterval = CommonConfig.DEFAULT_DISK_INDEX_INTERVAL;
+    //Listener of the removals, notified asynchronously on its executor
+    private RemovalListener<K,V> removalListener = null;
+    private Executor removalListenerExecutor = ForkJoinPool.commonPool();
+
+    public Long getCacheTimeout() {
+        return cacheTimeout;
+    }
+
+    public CacheConfig<K,V> setCacheTimeout(Long cacheTimeout) {
+        this.cacheTimeout = cacheTimeout;
+        return this;
+    }
+
+    public Long getCapacity() {
+        return capacity;
+    }
+
+    public CacheConfig<K,V> setCapacity(Long capacity) {
+        this.capacity = capacity;
+        return this;
+    }
+
+    public Long getMemoryThresholdSize() {
+        return memoryThresholdSize;
+    }
+
+    public CacheConfig<K,V> setMemoryThresholdSize(Long memoryThresholdSize) {
+        this.memoryThresholdSize = memoryThresholdSize;
+        return this;
+    }
+
+    public ReplenishCallback<K,V> getReplenishCallback() {
+        return replenishCallback;
+    }
+
+    public CacheConfig<K,V> setReplenishCallback(ReplenishCallback<K,V> replenishCallback) {
+        this.replenishCallback = replenishCallback;
+        return this;
+    }
+
+    public EvictionCallback<K,V> getEvictionCallback() {
+        return evictionCallback;
+    }
+
+    public CacheConfig<K,V> setEvictionCallback(EvictionCallback<K,V> evictionCallback) {
+        this.evictionCallback = evictionCallback;
+        return this;
+    }
+
+    public Integer getConcurrencyLevel() {
+        return concurrencyLevel;
+    }
+
+    public CacheConfig<K,V> setConcurrencyLevel(Integer concurrencyLevel) {
+        this.concurrencyLevel = concurrencyLevel;
+        return this;
+    }
+
+    public boolean isReadBufferEnabled() {
+        return readBufferEnabled;
+    }
+
+    public CacheConfig<K,V> setReadBufferEnabled(boolean readBufferEnabled) {
+        this.readBufferEnabled = readBufferEnabled;
+        return this;
+    }
+
+    public LongFunction<EvictionPolicy<K,V>> getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    public CacheConfig<K,V> setEvictionPolicy(LongFunction<EvictionPolicy<K,V>> evictionPolicy) {
+        this.evictionPolicy = evictionPolicy;
+        return this;
+    }
+
+    public boolean isAdmissionFilterEnabled() {
+        return admissionFilterEnabled;
+    }
+
+    public CacheConfig<K,V> setAdmissionFilterEnabled(boolean admissionFilterEnabled) {
+        this.admissionFilterEnabled = admissionFilterEnabled;
+        return this;
+    }
+
+    public Long getSketchSize() {
+        return sketchSize;
+    }
+
+    public CacheConfig<K,V> setSketchSize(Long sketchSize) {
+        this.sketchSize = sketchSize;
+        return this;
+    }
+
+    public Integer getAdmissionWindowPercentage() {
+        return admissionWindowPercentage;
+    }
+
+    public CacheConfig<K,V> setAdmissionWindowPercentage(Integer admissionWindowPercentage) {
+        this.admissionWindowPercentage = admissionWindowPercentage;
+        return this;
+    }
+
+    public Expiry<K,V> getExpiry() {
+        return expiry;
+    }
+
+    public CacheConfig<K,V> setExpiry(Expiry<K,V> expiry) {
+        this.expiry = expiry;
+        return this;
+    }
+
+    public AsyncReplenishCallback<K,V> getAsyncReplenishCallback() {
+        return asyncReplenishCallback;
+    }
+
+    public CacheConfig<K,V> setAsyncReplenishCallback(AsyncReplenishCallback<K,V> asyncReplenishCallback) {
+        this.asyncReplenishCallback = asyncReplenishCallback;
+        return this;
+    }
+
+    public BulkReplenishCallback<K,V> getBulkReplenishCallback() {
+        return bulkReplenishCallback;
+    }
+
+    public CacheConfig<K,V> setBulkReplenishCallback(BulkReplenishCallback<K,V> bulkReplenishCallback) {
+        this.bulkReplenishCallback = bulkReplenishCallback;
+        return this;
+    }
+
+    public Executor getLoaderExecutor() {
+        return loaderExecutor;
+    }
+
+    public CacheConfig<K,V> setLoaderExecutor(Executor loaderExecutor) {
+        this.loaderExecutor = loaderExecutor;
+        return this;
+    }
+
+    public RemovalListener<K,V> getRemovalListener() {
+        return removalListener;
+    }
+
+    public CacheConfig<K,V> setRemovalListener(RemovalListener<K,V> removalListener) {
+        this.removalListener = removalListener;
+        return this;
+    }
+
+    public Executor getRemovalListenerExecutor() {
+        return removalListenerExecutor;
+    }
+
+    public CacheConfig<K,V> setRemovalListenerExecutor(Executor removalListenerExecutor) {
+        this.removalListenerExecutor = removalListenerExecutor;
+        return this;
+    }
+
+    public Long getOffHeapCapacityBytes() {
+        return offHeapCapacityBytes;
+    }
+
+    public CacheConfig<K,V> setOffHeapCapacityBytes(Long offHeapCapacityBytes) {
+        this.offHeapCapacityBytes = offHeapCapacityBytes;
+        return this;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public CacheConfig<K,V> setCacheName(String cacheName) {
+        this.cacheName = cacheName;
+        return this;
+    }
+
+    public Long getNegativeCacheTimeout() {
+        return negativeCacheTimeout;
+    }
+
+    public CacheConfig<K,V> setNegativeCacheTimeout(Long negativeCacheTimeout) {
+        this.negativeCacheTimeout = negativeCacheTimeout;
+        return this;
+    }
+
+    public Double getCompactionLiveRatio() {
+        return compactionLiveRatio;
+    }
+
+    public CacheConfig<K,V> setCompactionLiveRatio(Double compactionLiveRatio) {
+        this.compactionLiveRatio = compactionLiveRatio;
+        return this;
+    }
+
+    public Long getCompactionBytesPerSecond() {
+        return compactionBytesPerSecond;
+    }
+
+    public CacheConfig<K,V> setCompactionBytesPerSecond(Long compactionBytesPerSecond) {
+        this.compactionBytesPerSecond = compactionBytesPerSecond;
+        return this;
+    }
+
+    public Long getDiskIndexInterval() {
+        return diskIndexInterval;
+    }
+
+    public CacheConfig<K,V> setDiskIndexInterval(Long diskIndexInterval) {
+        this.diskIndexInterval = diskIndexInterval;
+        return this;
+    }
+
+    public Weigher<K,V> getWeigher() {
+        return weigher;
+    }
+
+    public CacheConfig<K,V> setWeigher(Weigher<K,V> weigher) {
+        this.weigher = weigher;
+        return this;
+    }
+
+    public Integer getDiskPromotionThreshold() {
+        return diskPromotionThreshold;
+    }
+
+    public CacheConfig<K,V> setDiskPromotionThreshold(Integer diskPromotionThreshold) {
+        this.diskPromotionThreshold = diskPromotionThreshold;
+        return this;
+    }
+
+    public ValueSerializer<V> getValueSerializer() {
+        return valueSerializer;
+    }
+
+    public CacheConfig<K,V> setValueSerializer(ValueSerializer<V> valueSerializer) {
+        this.valueSerializer = valueSerializer;
+        return this;
+    }
+
+    public Long getRefreshAfterWrite() {
+        return refreshAfterWrite;
+    }
+
+    public CacheConfig<K,V> setRefreshAfterWrite(Long refreshAfterWrite) {
+        this.refreshAfterWrite = refreshAfterWrite;
+        return this;
+    }
+
+    public Integer getEarlyRefreshPercentage() {
+        return earlyRefreshPercentage;
+    }
+
+    public CacheConfig<K,V> setEarlyRefreshPercentage(Integer earlyRefreshPercentage) {
+        this.earlyRefreshPercentage = earlyRefreshPercentage;
+        return this;
+    }
+}
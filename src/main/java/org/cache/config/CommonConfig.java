@@ -14,4 +14,23 @@ public class CommonConfig {
     public static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_UP;
     public static final int SCALE = 7;
     public static final String DISK_CACHE_PATH = "temp-cache";
+    public static final Integer DISK_SEGMENT_SIZE = 16 * 1024 * 1024; //bytes, size of a pre-allocated disk segment file
+    public static final Integer OFF_HEAP_SLAB_SIZE = 1024 * 1024; //bytes, size of a direct buffer slab, the biggest value kept off heap
+    public static final Integer SPILL_BATCH_SIZE = 64; //Maximum number of values appended to disk with one write
+    public static final Integer REMOVAL_BATCH_SIZE = 256; //Maximum number of removal notifications delivered by one task
+    public static final Integer EXPIRY_SCAN_BATCH_SIZE = 1024; //Entries of a long key cache segment checked for expiry every tick
+    public static final Integer MAX_LONG_SEGMENT_CAPACITY = 1 << 29; //Entries of a long key cache segment, its hash table has twice as many slots
+    public static final Double DEFAULT_COMPACTION_LIVE_RATIO = 0.5; //Part of live bytes under which a disk segment is compacted
+    public static final Long DEFAULT_COMPACTION_BYTES_PER_SECOND = 16L * 1024 * 1024; //I/O budget of the disk compaction
+    public static final Long STALE_DISK_DIRECTORY_AGE = 60000L; //millis, the disk directories of the dead caches modified since are not swept
+    public static final Long DEFAULT_DISK_INDEX_INTERVAL = 10000L; //millis, interval between the index checkpoints of a durable cache
+    public static final Long COMPACTION_INTERVAL = 1000L; //millis, interval between the checks of the disk segments
+    public static final Integer DEFAULT_DISK_PROMOTION_THRESHOLD = 2; //Reads served from disk before a key moves back to memory
+    public static final Integer DEFAULT_CONCURRENCY_LEVEL = 1; //Default number of cache segments
+    public static final Long MAINTENANCE_INTERVAL = 100L; //millis, replay interval of the buffered hits of idle segments
+    public static final Long TIMER_WHEEL_TICK = 10L; //millis, expired keys are removed at most one tick late
+    public static final Long MAX_WEIGHTED_ENTRY_COUNT = 1L << 20; //Entries expected at most by a weighted cache without a sketch size
+    public static final Integer DEFAULT_ADMISSION_WINDOW_PERCENTAGE = 1; //Part of the capacity used by the admission window
+    public static final String JMX_DOMAIN = "org.cache"; //Domain of the platform MBeans of the caches
+    public static final String METRICS_PATH = "/metrics"; //Path served by the Prometheus exporter
 }
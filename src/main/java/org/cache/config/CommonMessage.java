@@ -4,4 +4,24 @@ public final class CommonMessage {
     public static final String MEMORY_THRESHOLD_VALUE_IS_GREATER_THAN_TOTAL_CACHE_CAPACITY = "Memory threshold value is greater than total cache capacity.";
     public static final String MEMORY_THRESHOLD_VALUE_CAN_NOT_BE_NEGATIVE = "Memory threshold value can not be negative.";
     public static final String CAPACITY_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO = "Capacity can not be less than equal to zero.";
+    public static final String CONCURRENCY_LEVEL_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO = "Concurrency level can not be less than equal to zero.";
+    public static final String EVICTION_POLICY_CAN_NOT_BE_NULL = "Eviction policy can not be null.";
+    public static final String SKETCH_SIZE_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO = "Sketch size can not be less than equal to zero.";
+    public static final String SKETCH_SIZE_IS_REQUIRED_WITH_A_WEIGHER = "Sketch size is required when the admission filter is used with a weigher.";
+    public static final String ADMISSION_WINDOW_PERCENTAGE_MUST_BE_BETWEEN_0_AND_99 = "Admission window percentage must be between 0 and 99.";
+    public static final String REFRESH_AFTER_WRITE_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO = "Refresh after write can not be less than equal to zero.";
+    public static final String EARLY_REFRESH_PERCENTAGE_MUST_BE_BETWEEN_0_AND_100 = "Early refresh percentage must be between 0 and 100.";
+    public static final String VALUE_SERIALIZER_CAN_NOT_BE_NULL = "Value serializer can not be null.";
+    public static final String DISK_PROMOTION_THRESHOLD_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO = "Disk promotion threshold can not be less than equal to zero.";
+    public static final String OFF_HEAP_CAPACITY_CAN_NOT_BE_NEGATIVE = "Off heap capacity can not be negative.";
+    public static final String LOADER_EXECUTOR_CAN_NOT_BE_NULL = "Loader executor can not be null.";
+    public static final String REMOVAL_LISTENER_EXECUTOR_CAN_NOT_BE_NULL = "Removal listener executor can not be null.";
+    public static final String CACHE_NAME_MUST_BE_A_DIRECTORY_NAME = "Cache name must only have letters, digits, dots, dashes and underscores and not start with a dot.";
+    public static final String CACHE_NAME_IS_IN_USE = "Cache name is used by an other open cache, in this JVM or an other process.";
+    public static final String COMPACTION_LIVE_RATIO_MUST_BE_BETWEEN_0_AND_1 = "Compaction live ratio must be between 0 and 1.";
+    public static final String COMPACTION_BYTES_PER_SECOND_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO = "Compaction bytes per second can not be less than equal to zero.";
+    public static final String DISK_INDEX_INTERVAL_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO = "Disk index interval can not be less than equal to zero.";
+    public static final String NEGATIVE_CACHE_TIMEOUT_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO = "Negative cache timeout can not be less than equal to zero.";
+    public static final String WEIGHT_CAN_NOT_BE_NEGATIVE = "Weight can not be negative.";
+    public static final String SEGMENT_CAPACITY_IS_TOO_BIG = "Capacity of a cache segment can not be greater than 2^29, raise the concurrency level.";
 }
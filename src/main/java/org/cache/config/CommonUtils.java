@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Comparator;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 
@@ -24,9 +25,10 @@ public class CommonUtils {
 
         // read java doc, Files.walk need close the resources.
         // try-with-resources to ensure that the stream's open directories are closed
+        // the walk lists a directory before its content, so the paths are deleted in the reverse order
         if((new File(dir)).exists()) {
             try (Stream<Path> walk = Files.walk(path)) {
-                walk.forEach(CommonUtils::deleteDirectoryByPath);
+                walk.sorted(Comparator.reverseOrder()).forEach(CommonUtils::deleteDirectoryByPath);
             }
         }
 
@@ -0,0 +1,26 @@
+package org.cache.core;
+
+import org.cache.config.CacheConfig;
+import org.cache.interfaces.AsyncCleanCache;
+
+import java.io.Serializable;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * BasicClean Cache Proxy object with the asynchronous reads
+ * @param <K>
+ * @param <V>
+ */
+public class AsyncCleanCacheProxy<K,V extends Serializable> extends BasicCleanCacheProxy<K,V> implements AsyncCleanCache<K,V> {
+
+    public AsyncCleanCacheProxy(CacheConfig<K,V> cacheConfig) {
+        super(cacheConfig);
+    }
+
+    @Override
+    public CompletableFuture<Optional<V>> getAsync(K key) {
+        //The cache is created by the first read too, so a miss can be loaded
+        return cleanCache().getAsync(key);
+    }
+}
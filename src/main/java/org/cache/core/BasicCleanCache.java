@@ -1,22 +1,50 @@
 package org.cache.core;
 
+import org.cache.config.CacheConfig;
 import org.cache.config.CommonConfig;
+import org.cache.config.CommonMessage;
 import org.cache.config.CommonUtils;
+import org.cache.disk.DiskCompactor;
+import org.cache.disk.DiskStore;
+import org.cache.disk.SpillWriter;
+import org.cache.offheap.OffHeapStore;
+import org.cache.eviction.TinyLfuAdmissionFilter;
+import org.cache.expiry.ExpireAfterWrite;
+import org.cache.interfaces.AsyncCleanCache;
+import org.cache.interfaces.AsyncReplenishCallback;
+import org.cache.interfaces.BulkReplenishCallback;
 import org.cache.interfaces.EvictionCallback;
-import org.cache.interfaces.ICleanCache;
+import org.cache.interfaces.EvictionPolicy;
+import org.cache.interfaces.Expiry;
+import org.cache.interfaces.RemovalListener;
 import org.cache.interfaces.ReplenishCallback;
+import org.cache.interfaces.Weigher;
 import org.cache.model.CacheNode;
-import org.cache.model.DelayedCacheObject;
+import org.cache.model.RemovalCause;
+import org.cache.model.RemovedValue;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.lang.ref.SoftReference;
 import java.math.BigDecimal;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import static org.cache.config.CommonConfig.DISK_CACHE_PATH;
@@ -27,7 +55,7 @@ import static org.cache.config.CommonConfig.LOGGING_LEVEL;
  * @param <K> Cache Key Type
  * @param <V> Cache Value object
  */
-public class BasicCleanCache<K,V extends Serializable> extends CacheStats implements ICleanCache<K,V> {
+public class BasicCleanCache<K,V extends Serializable> extends CacheStats implements AsyncCleanCache<K,V> {
 
 
     private final static Logger LOGGER;
@@ -38,48 +66,284 @@ public class BasicCleanCache<K,V extends Serializable> extends CacheStats implem
     // Call back method and will be call while the cache replenish a value
     private ReplenishCallback<K,V> replenishCallback = null;
 
-    private EvictionCallback<K,V> evictionCallback = null;
+    //Delivers the removal notifications and the eviction callback calls on the removal listener executor
+    private final RemovalDispatcher<K,V> removalDispatcher;
 
+    private AsyncReplenishCallback<K,V> asyncReplenishCallback = null;
 
-    //Cache object expire time
-    private final Long cacheTimeout;
+    private BulkReplenishCallback<K,V> bulkReplenishCallback = null;
+
+    //Runs the replenish calls of the asynchronous reads and the refreshes
+    private Executor loaderExecutor = null;
+
+    //Age in millis after which a read reloads the key in the background, null if disabled
+    private Long refreshAfterWrite = null;
+
+    //Part of the refresh time before it where a read may already refresh the key
+    private int earlyRefreshPercentage = 0;
+
+    //Reads served off heap or from disk before a key is promoted back in memory
+    private int diskPromotionThreshold = CommonConfig.DEFAULT_DISK_PROMOTION_THRESHOLD;
+
+    //Weight of the values, null to count every key as 1
+    private Weigher<K,V> weigher = null;
+
+    //Time to live in millis of the keys the replenish callback found no value for, null if they are not cached
+    private Long negativeCacheTimeout = null;
+
+
+    //Time to live of the cached objects
+    private final Expiry<K,V> expiry;
 
     //Map for storing the key and value
     private final ConcurrentHashMap<K, CacheNode<K,V>> cache = new ConcurrentHashMap<>();
 
-    //Delay Queue for maintaining the non expire object
-    private final DelayQueue<DelayedCacheObject<K,V>> cleaningUpQueue = new DelayQueue<>();
+    //Replenish calls in progress, the concurrent misses of a key wait for the same call
+    private final ConcurrentHashMap<K, CompletableFuture<Optional<V>>> inFlightLoads = new ConcurrentHashMap<>();
+
+    //Independent shards of the cache, every shard has its own eviction policy, lock and spill cursor
+    private final CacheSegment<K,V>[] segments;
+
+    private final int segmentMask;
 
-    // most recent element of the cache
-    private CacheNode<K,V> head;
+    //Values pushed out of memory
+    private final DiskStore<K,V> diskStore;
 
-    //least recent element of the cache
-    private CacheNode<K,V> end;
+    //Writes the values pushed out of memory off the request threads
+    private final SpillWriter<K,V> spillWriter;
 
-    private CacheNode<K,V> nextDiskCacheNode;
+    //Reclaims the space of the disk values not referenced anymore
+    private final DiskCompactor<K,V> diskCompactor;
+
+    //Values pushed out of the heap before the disk
+    private final OffHeapStore<V> offHeapStore;
+
+    //Negative nodes in the map, each of weight 1 and always in memory without value
+    private final AtomicLong negativeNodes = new AtomicLong();
+
+    //Disk tier kept for the next cache of the same name
+    private final boolean durable;
+
+    private Thread cleanerThread;
+
+    private Thread maintenanceThread;
+
+    //Closes a durable cache when the JVM exits
+    private Thread shutdownHook;
+
+    //Platform MBean of the cache, unregistered by the close
+    private final CacheMetrics metrics;
+
+    private boolean closed = false;
 
 
     //Don't change use Factory method for cache instance
     private BasicCleanCache() {
         super(0L, 0L);
-        this.cacheTimeout = 0L;
+        this.expiry = null;
+        this.diskStore = null;
+        this.spillWriter = null;
+        this.removalDispatcher = null;
+        this.diskCompactor = null;
+        this.offHeapStore = null;
+        this.segments = null;
+        this.segmentMask = 0;
+        this.durable = false;
+        this.metrics = null;
     }
 
     /**
      *
-     * @param cacheTimeout cache time out time in millis
-     * @param cacheSize Cache capacity
-     * @param replenishCallback Callback method
-     * @param evictionCallback Callback method
-     */
-    protected BasicCleanCache(Long cacheTimeout, Long cacheSize,Long memoryThresholdSize,
-                              ReplenishCallback<K,V> replenishCallback, EvictionCallback<K,V> evictionCallback) {
-        super(cacheSize, memoryThresholdSize);
-        startCleanerThread();
-        this.cacheTimeout = cacheTimeout;
-        this.replenishCallback = replenishCallback;
-        this.evictionCallback = evictionCallback;
+     * @param cacheConfig settings of the cache
+     */
+    @SuppressWarnings("unchecked")
+    protected BasicCleanCache(CacheConfig<K,V> cacheConfig) {
+        super(cacheConfig.getCapacity(), cacheConfig.getMemoryThresholdSize());
+        this.expiry = cacheConfig.getExpiry() != null ? cacheConfig.getExpiry()
+                : new ExpireAfterWrite<>(cacheConfig.getCacheTimeout());
+        this.replenishCallback = cacheConfig.getReplenishCallback();
+        this.asyncReplenishCallback = cacheConfig.getAsyncReplenishCallback();
+        this.bulkReplenishCallback = cacheConfig.getBulkReplenishCallback();
+        this.loaderExecutor = cacheConfig.getLoaderExecutor();
+        this.refreshAfterWrite = cacheConfig.getRefreshAfterWrite();
+        this.earlyRefreshPercentage = cacheConfig.getEarlyRefreshPercentage();
+        this.diskPromotionThreshold = cacheConfig.getDiskPromotionThreshold();
+        this.weigher = cacheConfig.getWeigher();
+        this.negativeCacheTimeout = cacheConfig.getNegativeCacheTimeout();
+        this.durable = cacheConfig.getCacheName() != null;
+        this.diskStore = new DiskStore<>(new File(DISK_CACHE_PATH, durable ? cacheConfig.getCacheName() : uuid),
+                CommonConfig.DISK_SEGMENT_SIZE, durable, this, cacheConfig.getValueSerializer());
+        this.removalDispatcher = new RemovalDispatcher<>(removalListener(cacheConfig.getEvictionCallback(),
+                cacheConfig.getRemovalListener()), cacheConfig.getRemovalListenerExecutor(), diskStore);
+        this.spillWriter = new SpillWriter<>(diskStore, CommonConfig.SPILL_BATCH_SIZE,
+                (key, value) -> removalDispatcher.dispatch(key, value, RemovalCause.SPILLED));
+        this.diskCompactor = new DiskCompactor<>(diskStore, cache::get, cacheConfig.getCompactionLiveRatio(),
+                cacheConfig.getCompactionBytesPerSecond(), durable ? cache.values() : null, cacheConfig.getDiskIndexInterval());
+        this.offHeapStore = new OffHeapStore<>(cacheConfig.getOffHeapCapacityBytes(), CommonConfig.OFF_HEAP_SLAB_SIZE,
+                cacheConfig.getValueSerializer());
+        int segmentCount = 1;
+        while (segmentCount < cacheConfig.getConcurrencyLevel()) segmentCount <<= 1;
+        long segmentCapacity = (capacity + segmentCount - 1) / segmentCount;
+        //The eviction policies count nodes, with a weigher the capacity is a weight and the sketch size is the expected number of keys
+        long segmentEntries = weigher == null ? segmentCapacity
+                : (cacheConfig.getSketchSize() + segmentCount - 1) / segmentCount;
+        this.segments = new CacheSegment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            EvictionPolicy<K,V> evictionPolicy = cacheConfig.getEvictionPolicy().apply(segmentEntries);
+            if(cacheConfig.isAdmissionFilterEnabled()){
+                evictionPolicy = new TinyLfuAdmissionFilter<>(evictionPolicy, segmentEntries,
+                        cacheConfig.getAdmissionWindowPercentage(), cacheConfig.getSketchSize() / segmentCount, this);
+            }
+            this.segments[i] = new CacheSegment<>(diskStore, spillWriter, offHeapStore, cacheConfig.isReadBufferEnabled(), evictionPolicy,
+                    new TimerWheel<>(CommonConfig.TIMER_WHEEL_TICK, getCurrentTimeMillis()), segmentCapacity);
+        }
+        this.segmentMask = segmentCount - 1;
         this.clear();
+        recover();
+        startCleanerThread();
+        spillWriter.start();
+        diskCompactor.start();
+        if(cacheConfig.isReadBufferEnabled()) startMaintenanceThread();
+        if(durable){
+            shutdownHook = new Thread(this::close);
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+        this.metrics = new CacheMetrics(durable ? cacheConfig.getCacheName() : uuid, this, gauges());
+        metrics.register();
+    }
+
+    /**
+     * Sizes of the cache read by its metrics
+     */
+    private CacheGauges gauges() {
+        return new CacheGauges() {
+            @Override
+            public long size() {
+                return BasicCleanCache.this.size();
+            }
+
+            @Override
+            public long memorySize() {
+                return BasicCleanCache.this.size() - diskCachedNodes.get() - offHeapStore.size();
+            }
+
+            @Override
+            public long offHeapSize() {
+                return offHeapStore.size();
+            }
+
+            @Override
+            public long diskSize() {
+                return diskCachedNodes.get();
+            }
+
+            @Override
+            public long negativeSize() {
+                return negativeNodes.get();
+            }
+
+            @Override
+            public long totalWeight() {
+                return BasicCleanCache.this.totalWeight();
+            }
+
+            @Override
+            public long memoryWeight() {
+                return heapWeight();
+            }
+
+            @Override
+            public long offHeapWeight() {
+                return offHeapStore.getWeight();
+            }
+
+            @Override
+            public long diskWeight() {
+                return diskWeight.get();
+            }
+
+            @Override
+            public long spillQueueDepth() {
+                return spillWriter.getQueueDepth();
+            }
+
+            @Override
+            public long diskLiveBytes() {
+                return diskStore.getLiveBytes();
+            }
+
+            @Override
+            public long diskDeadBytes() {
+                return diskStore.getDeadBytes();
+            }
+        };
+    }
+
+    /**
+     * Listener of the removals calling the eviction callback for the evicted and expired keys with a value
+     * @return null if there is neither an eviction callback nor a removal listener
+     */
+    private static <K,V extends Serializable> RemovalListener<K,V> removalListener(EvictionCallback<K,V> evictionCallback,
+                                                            RemovalListener<K,V> removalListener) {
+        if(evictionCallback == null) return removalListener;
+        return (key, value, cause) -> {
+            if(cause.wasEvicted() && value != null) evictionCallback.call(key, value);
+            if(removalListener != null) removalListener.onRemoval(key, value, cause);
+        };
+    }
+
+    /**
+     * Serve the keys left on disk by the last close of the durable cache of the same name
+     */
+    private void recover() {
+        for (CacheNode<K,V> cacheNode : diskStore.recover(getCurrentTimeMillis())) {
+            cache.put(cacheNode.getKey(), cacheNode);
+            CacheSegment<K,V> segment = segments[segmentIndex(cacheNode.getKey())];
+            segment.addWeight(cacheNode.getWeight());
+            segment.recordAdd(cacheNode);
+        }
+        for (int i = 0; i < segments.length; i++) {
+            evictOverflow(i);
+        }
+    }
+
+    /**
+     * Close the cache once the background threads are stopped and the queued spills are written.
+     * The keys of a durable cache still in memory or off heap are written to disk before the index
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if(closed) return;
+            closed = true;
+        }
+        metrics.unregister();
+        try {
+            cleanerThread.interrupt();
+            cleanerThread.join();
+            if(maintenanceThread != null){
+                maintenanceThread.interrupt();
+                maintenanceThread.join();
+            }
+            diskCompactor.close();
+            if(durable){
+                for (CacheNode<K,V> cacheNode : cache.values()) {
+                    V value = cacheNode.startSpill(diskStore);
+                    if(value != null) spillWriter.spill(cacheNode, value);
+                }
+            }
+            spillWriter.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        diskStore.close(cache.values());
+        if(shutdownHook != null && Thread.currentThread() != shutdownHook){
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                //The JVM is already exiting
+            }
+        }
     }
 
     /**
@@ -87,10 +351,9 @@ public class BasicCleanCache<K,V extends Serializable> extends CacheStats implem
      */
     @Override
     public void clear() {
-        cache.clear();
-        cleaningUpQueue.clear();
-        end = null;
-        head = null;
+        for (K key : cache.keySet()) {
+            remove(key);
+        }
     }
 
     /**
@@ -100,7 +363,8 @@ public class BasicCleanCache<K,V extends Serializable> extends CacheStats implem
      */
     @Override
     public boolean containsKey(K key) {
-        return this.cache.containsKey(key);
+        CacheNode<K,V> cacheNode = cache.get(key);
+        return cacheNode != null && !cacheNode.isNegative() && cacheNode.getExpirationTime() > getCurrentTimeMillis();
     }
 
     /**
@@ -109,7 +373,7 @@ public class BasicCleanCache<K,V extends Serializable> extends CacheStats implem
      */
     @Override
     public long size() {
-        return cache.size();
+        return cache.size() - negativeNodes.get();
     }
 
     /**
@@ -119,36 +383,380 @@ public class BasicCleanCache<K,V extends Serializable> extends CacheStats implem
      */
     @Override
     public Optional<V> get(K key) {
+        this.increaseAccessCount();
+        long startNanos = getCurrentTimeNanos();
+        CacheNode<K,V> cacheNode = cache.get(key);
+        long start = getCurrentTimeMillis();
+        if(isLive(cacheNode, start)){
+            Optional<V> value = read(cacheNode, start);
+            this.getHitLatency.record(getCurrentTimeNanos() - startNanos);
+            return value;
+        }
+        this.missCount.increment();
         Optional<V> value = Optional.empty();
+        if(this.replenishCallback != null){
+            value = replenish(key);
+        }else if(this.asyncReplenishCallback != null){
+            value = join(replenishAsync(key));
+        }else if(this.bulkReplenishCallback != null){
+            value = Optional.ofNullable(replenishAll(Collections.singleton(key)).get(key));
+        }
+        this.getMissLatency.record(getCurrentTimeNanos() - startNanos);
+        return value;
+    }
+
+    /**
+     * This method will return the cached object for the key provided without blocking on a miss
+     * @param key key of the cached object
+     * @return future of the cached object, completed at once on a hit
+     */
+    @Override
+    public CompletableFuture<Optional<V>> getAsync(K key) {
         this.increaseAccessCount();
-        if(cache.containsKey(key)){
+        long startNanos = getCurrentTimeNanos();
+        CacheNode<K,V> cacheNode = cache.get(key);
+        long start = getCurrentTimeMillis();
+        if(isLive(cacheNode, start)){
+            Optional<V> value = read(cacheNode, start);
+            this.getHitLatency.record(getCurrentTimeNanos() - startNanos);
+            return CompletableFuture.completedFuture(value);
+        }
+        this.missCount.increment();
+        if(this.replenishCallback != null || this.asyncReplenishCallback != null){
+            return replenishAsync(key);
+        }
+        return CompletableFuture.completedFuture(Optional.empty());
+    }
+
+    /**
+     * This method will return the cached objects of a batch of keys. The hits of a segment are recorded
+     * with one lock acquisition and the missing keys are loaded with one call of the bulk replenish callback
+     * @param keys keys of the cached objects
+     * @return found and loaded objects by key
+     */
+    @Override
+    public Map<K,V> getAll(Collection<K> keys) {
+        Map<K,V> values = new LinkedHashMap<>();
+        Set<K> missingKeys = new LinkedHashSet<>();
+        List<CacheNode<K,V>>[] hits = newBatches();
+        long start = getCurrentTimeMillis();
+        long startNanos = getCurrentTimeNanos();
+        for (K key : keys) {
+            if(key == null || values.containsKey(key) || missingKeys.contains(key)) continue;
+            this.increaseAccessCount();
             CacheNode<K,V> cacheNode = cache.get(key);
-            long start = getCurrentTimeMillis();
-            if(cacheNode == this.nextDiskCacheNode){
-                this.nextDiskCacheNode = this.nextDiskCacheNode.getPrev();
-            }
-            pushCacheToDisk();
-            delete(cacheNode);
-            setHead(cacheNode);
-            value = Optional.ofNullable(cacheNode.getValue(this)).map(SoftReference::get);
-            long end = getCurrentTimeMillis();
-            increaseLruTimeSpentBy(end-start);
-        }else{
+            if(!isLive(cacheNode, start)){
+                this.missCount.increment();
+                missingKeys.add(key);
+                continue;
+            }
+            int segmentIndex = segmentIndex(key);
+            if(cacheNode.isNegative()){
+                this.negativeHits.increment();
+                batch(hits, segmentIndex).add(cacheNode);
+                continue;
+            }
+            SoftReference<V> reference = cacheNode.getMemoryValue();
+            //A value off heap or on disk is served from there until it is promoted
+            boolean promoted = reference == null && readCold(cacheNode, segmentIndex);
+            if(reference == null) reference = cacheNode.getValue(diskStore);
+            if(!promoted) batch(hits, segmentIndex).add(cacheNode);
+            V value = reference.get();
+            if(value == null) continue;
+            values.put(key, value);
+            afterRead(cacheNode, value, start);
+            if(shouldRefresh(cacheNode, start)) refresh(cacheNode);
+        }
+        for (int i = 0; i < hits.length; i++) {
+            if(hits[i] != null) segments[i].recordReads(hits[i]);
+        }
+        increaseLruTimeSpentBy(getCurrentTimeNanos() - startNanos);
+        if(!missingKeys.isEmpty()) values.putAll(replenishAll(missingKeys));
+        return values;
+    }
+
+    /**
+     * Load the missing keys of a bulk read. The keys already loaded by an other thread are waited for,
+     * the others are loaded by one call of the bulk replenish callback, or one by one without it
+     * @param keys missing keys
+     * @return loaded objects by key
+     */
+    private Map<K,V> replenishAll(Set<K> keys) {
+        Map<K,V> values = new HashMap<>();
+        if(this.bulkReplenishCallback == null){
             if(this.replenishCallback != null){
-                this.replenishCount();
-                value = callReplenishPolicy(key);
-                value.ifPresent(v -> this.put(key, v));
+                for (K key : keys) {
+                    replenish(key).ifPresent(value -> values.put(key, value));
+                }
+            }else if(this.asyncReplenishCallback != null){
+                Map<K, CompletableFuture<Optional<V>>> loads = new LinkedHashMap<>();
+                for (K key : keys) {
+                    loads.put(key, replenishAsync(key));
+                }
+                loads.forEach((key, load) -> join(load).ifPresent(value -> values.put(key, value)));
             }
+            return values;
         }
+        Map<K, CompletableFuture<Optional<V>>> loads = new LinkedHashMap<>();
+        Map<K, CompletableFuture<Optional<V>>> inFlight = new LinkedHashMap<>();
+        for (K key : keys) {
+            CompletableFuture<Optional<V>> load = new CompletableFuture<>();
+            CompletableFuture<Optional<V>> inFlightLoad = inFlightLoads.putIfAbsent(key, load);
+            if(inFlightLoad != null){
+                this.replenishCoalesced.increment();
+                inFlight.put(key, inFlightLoad);
+            }else{
+                loads.put(key, load);
+            }
+        }
+        if(!loads.isEmpty()){
+            try {
+                this.replenishCount.add(loads.size());
+                long start = getCurrentTimeNanos();
+                Map<K,V> loaded = this.bulkReplenishCallback.call(Collections.unmodifiableSet(loads.keySet()));
+                increaseReplenishmentTimeSpentBy(getCurrentTimeNanos() - start);
+                Map<K,V> stored = new LinkedHashMap<>();
+                for (K key : loads.keySet()) {
+                    V value = loaded != null ? loaded.get(key) : null;
+                    if(value != null){
+                        stored.put(key, value);
+                    }else{
+                        putNegative(key);
+                    }
+                }
+                putAll(stored);
+                loads.forEach((key, load) -> load.complete(Optional.ofNullable(stored.get(key))));
+                values.putAll(stored);
+            } catch (RuntimeException | Error e) {
+                loads.values().forEach(load -> load.completeExceptionally(e));
+                throw e;
+            } finally {
+                loads.forEach(inFlightLoads::remove);
+            }
+        }
+        inFlight.forEach((key, load) -> join(load).ifPresent(value -> values.put(key, value)));
+        return values;
+    }
+
+    /**
+     * Check the node found by a read, an expired node is removed at once
+     * even if the cleaner thread did not process it yet
+     * @return false if the node is missing or expired
+     */
+    private boolean isLive(CacheNode<K,V> cacheNode, long now) {
+        if(cacheNode == null) return false;
+        if(cacheNode.getExpirationTime() > now) return true;
+        expire(cacheNode, now);
+        return false;
+    }
+
+    /**
+     * Count a read of a value off heap or on disk, the value is served from there until it is read often enough
+     * to be promoted
+     * @return true if the node was promoted back in memory, its access is already recorded
+     */
+    private boolean readCold(CacheNode<K,V> cacheNode, int segmentIndex) {
+        if(!cacheNode.recordColdRead(diskStore, diskPromotionThreshold)) return false;
+        segments[segmentIndex].recordUpdate(cacheNode);
+        pushCacheToDisk(segmentIndex);
+        return true;
+    }
+
+    /**
+     * Value of a hit, recorded in the eviction order of the segment
+     */
+    private Optional<V> read(CacheNode<K,V> cacheNode, long start) {
+        long startNanos = getCurrentTimeNanos();
+        int segmentIndex = segmentIndex(cacheNode.getKey());
+        if(cacheNode.isNegative()){
+            this.negativeHits.increment();
+            segments[segmentIndex].recordRead(cacheNode);
+            return Optional.empty();
+        }
+        SoftReference<V> reference = cacheNode.getMemoryValue();
+        //A value off heap or on disk is served from there until it is promoted
+        boolean promoted = reference == null && readCold(cacheNode, segmentIndex);
+        if(reference == null) reference = cacheNode.getValue(diskStore);
+        if(!promoted) segments[segmentIndex].recordRead(cacheNode);
+        Optional<V> value = Optional.ofNullable(reference.get());
+        if(value.isPresent()) afterRead(cacheNode, value.get(), start);
+        if(shouldRefresh(cacheNode, start)) refresh(cacheNode);
+        increaseLruTimeSpentBy(getCurrentTimeNanos() - startNanos);
         return value;
     }
 
+    /**
+     * Load a missing key with the replenish callback, only one call per key is in progress at a time.
+     * The other threads missing the same key wait for its result, or its exception
+     * @param key key of the cached object
+     * @return loaded object
+     */
+    private Optional<V> replenish(K key) {
+        CompletableFuture<Optional<V>> load = new CompletableFuture<>();
+        CompletableFuture<Optional<V>> inFlightLoad = inFlightLoads.putIfAbsent(key, load);
+        if(inFlightLoad != null){
+            this.replenishCoalesced.increment();
+            return join(inFlightLoad);
+        }
+        try {
+            this.replenishCount();
+            Optional<V> value = callReplenishPolicy(key);
+            if(value.isPresent()){
+                this.put(key, value.get());
+            }else{
+                putNegative(key);
+            }
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, load);
+        }
+    }
+
+    /**
+     * Load a missing key on the loader executor, with the asynchronous replenish callback if there is one.
+     * The concurrent misses of the key share the returned future, it leaves the in flight loads
+     * once the value is stored so a failed load is never cached
+     * @param key key of the cached object
+     * @return future of the loaded object
+     */
+    private CompletableFuture<Optional<V>> replenishAsync(K key) {
+        CompletableFuture<Optional<V>> load = new CompletableFuture<>();
+        CompletableFuture<Optional<V>> inFlightLoad = inFlightLoads.putIfAbsent(key, load);
+        if(inFlightLoad != null){
+            this.replenishCoalesced.increment();
+            return inFlightLoad;
+        }
+        this.replenishCount();
+        long start = getCurrentTimeNanos();
+        load(key).whenComplete((value, error) -> {
+            increaseReplenishmentTimeSpentBy(getCurrentTimeNanos() - start);
+            if(error == null){
+                if(value.isPresent()){
+                    this.put(key, value.get());
+                }else{
+                    putNegative(key);
+                }
+            }
+            inFlightLoads.remove(key, load);
+            complete(load, value, error);
+        });
+        return load;
+    }
+
+    /**
+     * Reload a key in the background, the readers keep getting the current value until the new one is stored.
+     * A miss of the key during the refresh waits for it like for any other load
+     * @param cacheNode node read by the caller
+     */
+    private void refresh(CacheNode<K,V> cacheNode) {
+        K key = cacheNode.getKey();
+        CompletableFuture<Optional<V>> load = new CompletableFuture<>();
+        if(inFlightLoads.putIfAbsent(key, load) != null) return;
+        long writeTime = cacheNode.getWriteTime();
+        long start = getCurrentTimeNanos();
+        load(key).whenComplete((value, error) -> {
+            this.refreshCount.increment();
+            this.refreshTimeSpent.add(getCurrentTimeNanos() - start);
+            //A write done during the refresh is newer than the reloaded value
+            if(error == null && cache.get(key) == cacheNode && cacheNode.getWriteTime() == writeTime){
+                value.ifPresent(v -> this.put(key, v));
+            }
+            if(error != null) this.refreshFailures.increment();
+            inFlightLoads.remove(key, load);
+            complete(load, value, error);
+        });
+    }
+
+    /**
+     * Decide if a read has to refresh the node. With the early refresh the chance grows linearly
+     * inside the window before the refresh time, so the keys written together are not reloaded together
+     */
+    private boolean shouldRefresh(CacheNode<K,V> cacheNode, long now) {
+        if(this.refreshAfterWrite == null || (this.replenishCallback == null && this.asyncReplenishCallback == null)) return false;
+        long age = now - cacheNode.getWriteTime();
+        if(age >= this.refreshAfterWrite) return true;
+        long earlyRefreshWindow = this.refreshAfterWrite * this.earlyRefreshPercentage / 100;
+        long windowAge = age - (this.refreshAfterWrite - earlyRefreshWindow);
+        return windowAge > 0 && ThreadLocalRandom.current().nextLong(earlyRefreshWindow) < windowAge;
+    }
+
+    /**
+     * Call the replenish callback on the loader executor
+     */
+    private CompletableFuture<Optional<V>> load(K key) {
+        CompletableFuture<Optional<V>> source;
+        try {
+            source = this.asyncReplenishCallback != null ? this.asyncReplenishCallback.call(key, this.loaderExecutor)
+                    : CompletableFuture.supplyAsync(() -> this.replenishCallback.call(key), this.loaderExecutor);
+        } catch (RuntimeException e) {
+            source = new CompletableFuture<>();
+            source.completeExceptionally(e);
+        }
+        return source.thenApply(value -> value != null ? value : Optional.<V>empty());
+    }
+
+    /**
+     * Complete a shared load with the result of the replenish callback
+     */
+    private static <V> void complete(CompletableFuture<Optional<V>> load, Optional<V> value, Throwable error) {
+        if(error != null){
+            load.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+        }else{
+            load.complete(value);
+        }
+    }
+
+    /**
+     * Wait for a load, its exception is thrown as it is
+     */
+    private Optional<V> join(CompletableFuture<Optional<V>> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if(e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Apply the expiry strategy to a read. A later expiry time is picked up by the timer wheel
+     * when the old bucket is processed, so a read takes the segment lock only to shorten the time to live
+     */
+    private void afterRead(CacheNode<K,V> cacheNode, V value, long now) {
+        long remainingTime = cacheNode.getExpirationTime() - now;
+        long ttl = expiry.expireAfterRead(cacheNode.getKey(), value, now, remainingTime);
+        if(ttl == remainingTime) return;
+        cacheNode.setExpirationTime(expiryTime(now, ttl));
+        if(ttl < remainingTime) segments[segmentIndex(cacheNode.getKey())].recordUpdate(cacheNode);
+    }
+
+    /**
+     * Remove an expired node found by a read
+     */
+    private void expire(CacheNode<K,V> cacheNode, long now) {
+        if(!CacheSegment.removeIfExpired(cache, cacheNode, now)) return;
+        release(cacheNode);
+        segments[segmentIndex(cacheNode.getKey())].recordRemove(cacheNode);
+        retire(cacheNode, RemovalCause.EXPIRED);
+        popCacheToMemory(segmentIndex(cacheNode.getKey()));
+    }
+
+    private static long expiryTime(long now, long ttl) {
+        return ttl >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + ttl;
+    }
+
     private Optional<V> callReplenishPolicy(K key) {
         Optional<V> value;
-        long start = getCurrentTimeMillis();
+        long start = getCurrentTimeNanos();
         //Get the value using the replenish callback and add add key,value to cache
         value = this.replenishCallback.call(key);
-        long end = getCurrentTimeMillis();
+        long end = getCurrentTimeNanos();
         increaseReplenishmentTimeSpentBy(end-start);
         return value;
     }
@@ -157,6 +765,11 @@ public class BasicCleanCache<K,V extends Serializable> extends CacheStats implem
         return System.currentTimeMillis();
     }
 
+    //Monotonic clock of the durations, the wall clock is only used for the expiry times
+    private long getCurrentTimeNanos() {
+        return System.nanoTime();
+    }
+
     /**
      * Add a new object in the cache
      * @param key key for the object
@@ -164,15 +777,107 @@ public class BasicCleanCache<K,V extends Serializable> extends CacheStats implem
      */
     @Override
     public void put(K key, V value) {
+        put(key, value, null);
+    }
+
+    /**
+     * Add a new object in the cache with its own time to live
+     * @param key key for the object
+     * @param value object
+     * @param ttl time to live in millis
+     */
+    @Override
+    public void put(K key, V value, long ttl) {
+        put(key, value, Long.valueOf(ttl));
+    }
+
+    private void put(K key, V value, Long ttl) {
         if(key == null) return;
 
+        long start = getCurrentTimeNanos();
+        int segmentIndex = segmentIndex(key);
         if(value != null){
-            SoftReference<V> reference = new SoftReference<>(value);
-            long expiryTime = getCurrentTimeMillis() + this.cacheTimeout;
-            set(key, reference);
-            cleaningUpQueue.put(new DelayedCacheObject<>(key, expiryTime));
+            set(segmentIndex, key, value, ttl);
         }
-        pushCacheToDisk();
+        pushCacheToDisk(segmentIndex);
+        this.putLatency.record(getCurrentTimeNanos() - start);
+    }
+
+    /**
+     * Add a batch of objects, the changes of a segment are recorded with one lock acquisition
+     * and the eviction and the disk spill run once per segment
+     * @param values objects by key
+     */
+    @Override
+    public void putAll(Map<K,V> values) {
+        List<CacheNode<K,V>>[] added = newBatches();
+        List<CacheNode<K,V>>[] updated = newBatches();
+        long now = getCurrentTimeMillis();
+        for (Map.Entry<K,V> entry : values.entrySet()) {
+            K key = entry.getKey();
+            V value = entry.getValue();
+            if(key == null || value == null) continue;
+            int segmentIndex = segmentIndex(key);
+            while (true) {
+                CacheNode<K,V> old = updateNode(key, value, null, now);
+                if(old != null){
+                    batch(updated, segmentIndex).add(old);
+                    break;
+                }
+                CacheNode<K,V> newNode = addNode(key, value, null, now);
+                if(newNode != null){
+                    batch(added, segmentIndex).add(newNode);
+                    break;
+                }
+            }
+        }
+        for (int i = 0; i < segments.length; i++) {
+            if(added[i] == null && updated[i] == null) continue;
+            segments[i].recordWrites(orEmpty(added[i]), orEmpty(updated[i]), Collections.emptyList());
+            if(added[i] != null) evictOverflow(i);
+            pushCacheToDisk(i);
+        }
+    }
+
+    /**
+     * Remove a batch of keys, the changes of a segment are recorded with one lock acquisition
+     * @param keys keys of the cached objects need to be removed
+     */
+    @Override
+    public void removeAll(Collection<K> keys) {
+        List<CacheNode<K,V>>[] removed = newBatches();
+        for (K key : keys) {
+            if(key == null) continue;
+            CacheNode<K,V> removedNode = cache.remove(key);
+            if(removedNode == null) continue;
+            release(removedNode);
+            batch(removed, segmentIndex(key)).add(removedNode);
+        }
+        int removedSegment = -1;
+        for (int i = 0; i < segments.length; i++) {
+            if(removed[i] == null) continue;
+            segments[i].recordWrites(Collections.emptyList(), Collections.emptyList(), removed[i]);
+            for (CacheNode<K,V> removedNode : removed[i]) {
+                retire(removedNode, RemovalCause.EXPLICIT);
+            }
+            removedSegment = i;
+        }
+        if(removedSegment >= 0) popCacheToMemory(removedSegment);
+    }
+
+    //One list of nodes per segment, created on the first node
+    @SuppressWarnings("unchecked")
+    private List<CacheNode<K,V>>[] newBatches() {
+        return new List[segments.length];
+    }
+
+    private static <T> List<T> batch(List<T>[] batches, int index) {
+        if(batches[index] == null) batches[index] = new ArrayList<>();
+        return batches[index];
+    }
+
+    private static <T> List<T> orEmpty(List<T> batch) {
+        return batch != null ? batch : Collections.emptyList();
     }
 
     /**
@@ -186,15 +891,15 @@ public class BasicCleanCache<K,V extends Serializable> extends CacheStats implem
         if(key == null){
             return empty;
         }
-        CacheNode<K,V> removedNode =  cache.remove(key);
+        CacheNode<K,V> removedNode = cache.remove(key);
         if(removedNode != null){
-            if(removedNode == this.nextDiskCacheNode){
-                this.nextDiskCacheNode = this.nextDiskCacheNode.getPrev();
-            }
-            delete(removedNode);
-            removedNode.clearValue(this);
-            popCacheToMemory();
-            return Optional.ofNullable(removedNode.getValue(this)).map(SoftReference::get);
+            release(removedNode);
+            segments[segmentIndex(key)].recordRemove(removedNode);
+            Optional<V> removedValue = Optional.ofNullable(valueOf(removedNode));
+            removedNode.clearValue(diskStore);
+            removalDispatcher.dispatch(key, removedValue.orElse(null), RemovalCause.EXPLICIT);
+            popCacheToMemory(segmentIndex(key));
+            return removedValue;
         }else{
             return empty;
         }
@@ -203,13 +908,46 @@ public class BasicCleanCache<K,V extends Serializable> extends CacheStats implem
     @Override
     public CacheStatistics getCacheStatistics() {
         return new CacheStatistics().setTotalCacheSize(this.getCapacity())
-                .setMemorySize(this.size() - this.diskCachedNodes)
-                .setCurrentDiskSize(this.diskCachedNodes)
-                .setTotalAccessCount(this.accessCount)
+                .setMemorySize(this.size() - this.diskCachedNodes.get() - this.offHeapStore.size())
+                .setCurrentDiskSize(this.diskCachedNodes.get())
+                .setTotalAccessCount(this.accessCount.sum())
                 .setHitRatio(this.calculateHitRatio())
                 .setMissRatio(this.calculateMissRatio())
                 .setAvgValueReplenishmentTimeSpent(this.calculateAvgReplenishmentTimeSpent())
-                .setAvgLruOptimizationTimeSpent(this.calculateAvgLruOptimizationTimeSpent());
+                .setAvgLruOptimizationTimeSpent(this.calculateAvgLruOptimizationTimeSpent())
+                .setAdmissionRejections(this.admissionRejections.sum())
+                .setReplenishCoalesced(this.replenishCoalesced.sum())
+                .setRefreshCount(this.refreshCount.sum())
+                .setRefreshFailures(this.refreshFailures.sum())
+                .setAvgRefreshTimeSpent(this.calculateAvgRefreshTimeSpent())
+                .setSpillQueueDepth(this.spillWriter.getQueueDepth())
+                .setSpilledNodes(this.spilledNodes.sum())
+                .setSpillBatches(this.spillBatches.sum())
+                .setSpillThroughput(this.calculateSpillThroughput())
+                .setDiskHits(this.diskHits.sum())
+                .setDiskPromotions(this.diskPromotions.sum())
+                .setOffHeapSize(this.offHeapStore.size())
+                .setOffHeapHits(this.offHeapHits.sum())
+                .setOffHeapUsedBytes(this.offHeapStore.getUsedBytes())
+                .setOffHeapCapacityBytes(this.offHeapStore.getCapacityBytes())
+                .setOffHeapFragmentation(BigDecimal.valueOf(this.offHeapStore.getFragmentation())
+                        .setScale(CommonConfig.SCALE, CommonConfig.ROUNDING_MODE))
+                .setDiskLiveBytes(this.diskStore.getLiveBytes())
+                .setDiskDeadBytes(this.diskStore.getDeadBytes())
+                .setCompactedBytes(this.compactedBytes.sum())
+                .setCompactionThroughput(this.calculateCompactionThroughput())
+                .setNegativeSize(this.negativeNodes.get())
+                .setNegativeHits(this.negativeHits.sum())
+                .setGetHitLatency(this.getHitLatency.snapshot())
+                .setGetMissLatency(this.getMissLatency.snapshot())
+                .setPutLatency(this.putLatency.snapshot())
+                .setReplenishLatency(this.replenishLatency.snapshot())
+                .setSpillLatency(this.spillLatency.snapshot())
+                .setDiskReadLatency(this.diskReadLatency.snapshot())
+                .setTotalWeight(this.totalWeight())
+                .setMemoryWeight(this.heapWeight())
+                .setOffHeapWeight(this.offHeapStore.getWeight())
+                .setDiskWeight(this.diskWeight.get());
     }
 
     /**
@@ -221,15 +959,25 @@ public class BasicCleanCache<K,V extends Serializable> extends CacheStats implem
     }
 
     /**
-     * Clear thread for removing the expired keys
+     * Clear thread for removing the expired keys, the timer wheels of the segments are advanced every tick
      */
     private void startCleanerThread() {
-        Thread cleanerThread = new Thread(() -> {
+        cleanerThread = new Thread(() -> {
+            List<CacheNode<K,V>> expired = new ArrayList<>();
             while (!Thread.currentThread().isInterrupted()) {
                 try {
-                    DelayedCacheObject<K,V> delayedCacheObject = cleaningUpQueue.take();
-                    callEvictionPolicy(delayedCacheObject.getKey(), cache.get(delayedCacheObject.getKey()).getValue(this).get());
-                    remove(delayedCacheObject.getKey());
+                    Thread.sleep(CommonConfig.TIMER_WHEEL_TICK);
+                    for (int i = 0; i < segments.length; i++) {
+                        segments[i].expire(cache, getCurrentTimeMillis(), expired);
+                        if(expired.isEmpty()) continue;
+                        for (CacheNode<K,V> expiredNode : expired) {
+                            release(expiredNode);
+                            retire(expiredNode, RemovalCause.EXPIRED);
+                        }
+                        //The room freed by the segment is refilled from its own nodes off heap or on disk first
+                        popCacheToMemory(i);
+                        expired.clear();
+                    }
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                 }
@@ -242,155 +990,284 @@ public class BasicCleanCache<K,V extends Serializable> extends CacheStats implem
 
 
     /**
-     * Set the Head of the linked list
-     * @param cacheNode
+     * Segment of the key, picked by the key hash
+     * @param key key of the cached object
+     * @return index of the segment owning the key
      */
-    private void setHead(CacheNode<K,V> cacheNode){
-        cacheNode.setNext(head);
-        cacheNode.setPrev(null);
+    private int segmentIndex(K key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & segmentMask;
+    }
 
-        if(head!=null)
-            head.setPrev(cacheNode);
+    /**
+     *  Add a new reference in the segment and evict the least recent nodes if the cache is full
+     * @param segmentIndex segment of the key
+     * @param key key
+     * @param value value need to be add in the linked list
+     * @param ttl time to live in millis, null to use the expiry strategy
+     */
+    private void set(int segmentIndex, K key, V value, Long ttl) {
+        CacheSegment<K,V> segment = segments[segmentIndex];
+        long now = getCurrentTimeMillis();
+        while (true) {
+            CacheNode<K,V> old = updateNode(key, value, ttl, now);
+            if(old != null){
+                segment.recordUpdate(old);
+                return;
+            }
+            CacheNode<K,V> newNode = addNode(key, value, ttl, now);
+            if(newNode != null){
+                segment.recordAdd(newNode);
+                evictOverflow(segmentIndex);
+                return;
+            }
+        }
+    }
 
-        head = cacheNode;
+    /**
+     * Replace the value of a key in the map
+     * @return updated node, null if the key is not in the map
+     */
+    private CacheNode<K,V> updateNode(K key, V value, Long ttl, long now) {
+        SoftReference<V> reference = new SoftReference<>(value);
+        int weight = weigh(key, value);
+        CacheSegment<K,V> segment = segments[segmentIndex(key)];
+        //Old value taken out under the bin lock, it is read once the lock is released
+        List<RemovedValue<V>> replaced = removalDispatcher.isEnabled() ? new ArrayList<>(1) : Collections.emptyList();
+        CacheNode<K,V> updated = cache.computeIfPresent(key, (k, node) -> {
+            // update the old value
+            if(node.isNegative()) negativeNodes.decrementAndGet();
+            segment.addWeight(weight - node.getWeight());
+            if(removalDispatcher.isEnabled()){
+                replaced.add(node.replaceValue(reference, weight, diskStore));
+            }else{
+                node.setValue(reference, weight, diskStore);
+            }
+            node.setWriteTime(now);
+            node.setExpirationTime(expiryTime(now, ttl != null ? ttl
+                    : expiry.expireAfterUpdate(key, value, now, node.getExpirationTime() - now)));
+            return node;
+        });
+        for (RemovedValue<V> replacedValue : replaced) {
+            removalDispatcher.dispatch(key, replacedValue, RemovalCause.REPLACED);
+        }
+        return updated;
+    }
 
-        if(end ==null)
-            end = head;
+    /**
+     * Add a new key in the map
+     * @return added node, null if the key was added by an other thread meanwhile
+     */
+    private CacheNode<K,V> addNode(K key, V value, Long ttl, long now) {
+        CacheNode<K,V> newNode = new CacheNode<>(key, new SoftReference<>(value));
+        newNode.setWeight(weigh(key, value));
+        newNode.setWriteTime(now);
+        newNode.setExpirationTime(expiryTime(now, ttl != null ? ttl : expiry.expireAfterCreate(key, value, now)));
+        if(cache.putIfAbsent(key, newNode) != null) return null;
+        segments[segmentIndex(key)].addWeight(newNode.getWeight());
+        return newNode;
     }
 
     /**
-     * This method will delete node
-    */
-    private void delete(CacheNode<K,V> cacheNode){
-        if(cacheNode.getPrev()!=null){
-            cacheNode.getPrev().setNext(cacheNode.getNext());
-        }else{
-            head = cacheNode.getNext();
-        }
+     * Remember that the replenish callback found no value for the key, the reads of the key return empty
+     * without calling it again until the negative cache timeout. A key written meanwhile keeps its value
+     * @param key key of the missing value
+     */
+    private void putNegative(K key) {
+        if(this.negativeCacheTimeout == null) return;
+        long now = getCurrentTimeMillis();
+        CacheNode<K,V> negativeNode = CacheNode.negative(key);
+        negativeNode.setWriteTime(now);
+        negativeNode.setExpirationTime(expiryTime(now, this.negativeCacheTimeout));
+        if(cache.putIfAbsent(key, negativeNode) != null) return;
+        negativeNodes.incrementAndGet();
+        int segmentIndex = segmentIndex(key);
+        segments[segmentIndex].addWeight(negativeNode.getWeight());
+        segments[segmentIndex].recordAdd(negativeNode);
+        evictOverflow(segmentIndex);
+    }
 
-        if(cacheNode.getNext()!=null){
-            cacheNode.getNext().setPrev(cacheNode.getPrev());
-        }else{
-            end = cacheNode.getPrev();
-        }
+    /**
+     * Weight of a value, 1 without a weigher
+     */
+    private int weigh(K key, V value) {
+        if(this.weigher == null) return 1;
+        int weight = this.weigher.weigh(key, value);
+        if(weight < 0) throw new RuntimeException(CommonMessage.WEIGHT_CAN_NOT_BE_NEGATIVE);
+        return weight;
     }
 
     /**
-     *  Add a new reference in the linked list
-     * @param key key
-     * @param reference reference need to be add in the linked list
+     * Take the weight of a node removed from the map out of the cache weight
      */
-    private void set(K key, SoftReference<V> reference) {
-        if(cache.containsKey(key)){
-            // update the old value
-            CacheNode<K,V> old = cache.get(key);
-            old.setValue(reference);
-            delete(old);
-            setHead(old);
-        }else{
-            CacheNode<K,V> newNode = new CacheNode<>(key, reference);
-            if(cache.size()>=capacity){
-                //Remove last node if the cache is full
-                K removedKey = end.getKey();
-                V removedValue = end.getValue(this).get();
-                callEvictionPolicy(removedKey, removedValue);
-                if(end != null) {
-                    cache.remove(end.getKey());
-                    // remove last node
-                    delete(end);
-                }
-            }
-            setHead(newNode);
+    private void release(CacheNode<K,V> cacheNode) {
+        if(cacheNode.isNegative()) negativeNodes.decrementAndGet();
+        segments[segmentIndex(cacheNode.getKey())].addWeight(-cacheNode.getWeight());
+    }
 
-            cache.put(key, newNode);
+    /**
+     * Evict the least recent nodes of the segment until its weight is back to its share of the capacity.
+     * A segment keeps its last node, it may be the node just added, unless the whole cache is over its capacity
+     * @param segmentIndex segment changed by the caller
+     */
+    private void evictOverflow(int segmentIndex) {
+        CacheSegment<K,V> segment = segments[segmentIndex];
+        CacheNode<K,V> evicted;
+        while ((evicted = segment.evict(cache, totalWeight() > capacity)) != null) {
+            //The segment took the weight of the victim out already
+            if(evicted.isNegative()) negativeNodes.decrementAndGet();
+            retire(evicted, RemovalCause.SIZE);
         }
     }
 
     /**
-     * Eviction Policy for the removed object
-     * @param removedKey
-     * @param removedValue
+     * Release the value of a node removed without returning its value and notify the removal listener.
+     * The value of a node spilled to disk is not read by the removing thread, the removal listener task reads it
+     * @param cacheNode node removed from the map
+     * @param cause why the node was removed
      */
-    private void callEvictionPolicy(K removedKey, V removedValue) {
-        if (evictionCallback != null) {
-            evictionCallback.call(removedKey, removedValue);
-        } else {
-            LOGGER.info(String.format("Expired Key = %s | Expired Value = %s", removedKey.toString(), Objects.requireNonNull(removedValue).toString()));
+    private void retire(CacheNode<K,V> cacheNode, RemovalCause cause) {
+        if(!removalDispatcher.isEnabled()){
+            cacheNode.clearValue(diskStore);
+            return;
         }
+        RemovedValue<V> removedValue = cacheNode.takeValue(diskStore);
+        if(removedValue != null) removalDispatcher.dispatch(cacheNode.getKey(), removedValue, cause);
     }
 
-    private void increaseReplenishmentTimeSpentBy(long elapsedTime) {
-        this.replenishmentTimeSpent+=elapsedTime;
+    /**
+     * Current value of a node, null for a negative node or a value collected by the garbage collector
+     */
+    private V valueOf(CacheNode<K,V> cacheNode) {
+        SoftReference<V> reference = cacheNode.getValue(diskStore);
+        return reference != null ? reference.get() : null;
     }
 
-    private void increaseLruTimeSpentBy(long elapsedTime) {
-        this.lruTimeSpent+=elapsedTime;
+    /**
+     * Maintenance thread replaying the buffered hits and writes of idle segments
+     */
+    private void startMaintenanceThread() {
+        maintenanceThread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(CommonConfig.MAINTENANCE_INTERVAL);
+                    for (int i = 0; i < segments.length; i++) {
+                        segments[i].drain();
+                        evictOverflow(i);
+                        pushCacheToDisk(i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        maintenanceThread.setDaemon(true);
+        maintenanceThread.start();
+    }
+
+    private void increaseReplenishmentTimeSpentBy(long elapsedNanos) {
+        this.replenishmentTimeSpent.add(elapsedNanos);
+        this.replenishLatency.record(elapsedNanos);
+    }
+
+    private void increaseLruTimeSpentBy(long elapsedNanos) {
+        this.lruTimeSpent.add(elapsedNanos);
     }
 
     private void replenishCount() {
-        this.replenishCount++;
+        this.replenishCount.increment();
     }
 
     private void increaseAccessCount() {
-        this.accessCount++;
+        this.accessCount.increment();
     }
 
-    private BigDecimal calculateAvgLruTimeSpent() {
-        if(this.accessCount != 0) {
-            return BigDecimal.valueOf(lruTimeSpent).divide(BigDecimal.valueOf(this.accessCount), CommonConfig.SCALE, CommonConfig.ROUNDING_MODE);
-        }else{
-            return BigDecimal.ZERO;
-        }
+    private BigDecimal calculateAvgRefreshTimeSpent() {
+        return averageMillis(this.refreshTimeSpent.sum(), this.refreshCount.sum());
     }
 
     private BigDecimal calculateAvgReplenishmentTimeSpent() {
-        if(this.replenishCount != 0) {
-            return BigDecimal.valueOf(replenishmentTimeSpent).divide(BigDecimal.valueOf(this.replenishCount), CommonConfig.SCALE, CommonConfig.ROUNDING_MODE);
-        }else{
-            return BigDecimal.ZERO;
-        }
+        return averageMillis(this.replenishmentTimeSpent.sum(), this.replenishCount.sum());
     }
 
     private BigDecimal calculateAvgLruOptimizationTimeSpent() {
-        if(this.replenishCount != 0) {
-            return BigDecimal.valueOf(lruTimeSpent).divide(BigDecimal.valueOf(this.accessCount), CommonConfig.SCALE, CommonConfig.ROUNDING_MODE);
-        }else{
-            return BigDecimal.ZERO;
-        }
+        return averageMillis(this.lruTimeSpent.sum(), this.accessCount.sum());
     }
 
-    private BigDecimal calculateMissRatio() {
-        if(this.accessCount != 0 ) {
-            return BigDecimal.valueOf(this.accessCount).divide(BigDecimal.valueOf(this.accessCount), CommonConfig.SCALE, CommonConfig.ROUNDING_MODE);
+    /**
+     * Bytes moved per second of disk compaction
+     */
+    private BigDecimal calculateCompactionThroughput() {
+        long compactionTimeSpent = this.compactionTimeSpent.sum();
+        if(compactionTimeSpent != 0) {
+            return BigDecimal.valueOf(this.compactedBytes.sum()).multiply(BigDecimal.valueOf(1000000000L))
+                    .divide(BigDecimal.valueOf(compactionTimeSpent), CommonConfig.SCALE, CommonConfig.ROUNDING_MODE);
         }else{
             return BigDecimal.ZERO;
         }
     }
 
-    private BigDecimal calculateHitRatio() {
-        if(this.accessCount != 0) {
-            return BigDecimal.valueOf(this.accessCount - this.replenishCount).divide(BigDecimal.valueOf(this.accessCount), CommonConfig.SCALE, CommonConfig.ROUNDING_MODE);
-        }else{
-            return BigDecimal.ZERO;
+    /**
+     * Queue the least recent in memory nodes for the disk until the memory threshold weight is respected,
+     * starting from the segment which was just changed
+     * @param segmentIndex segment changed by the caller
+     */
+    private void pushCacheToDisk(int segmentIndex) {
+        int index = segmentIndex;
+        int misses = 0;
+        while (heapWeight() > this.memoryThresholdSize && misses < segments.length) {
+            if(segments[index].pushCacheToDisk()){
+                misses = 0;
+            }else{
+                misses++;
+                index = (index + 1) & segmentMask;
+            }
         }
     }
 
-    private void pushCacheToDisk() {
-        if(cache.size() > this.memoryThresholdSize) {
-            if(this.memoryThresholdSize == 0){
-                nextDiskCacheNode = head;
-            }else{
-                if (nextDiskCacheNode == null) {
-                    nextDiskCacheNode = end;
-                }
-            }
-            nextDiskCacheNode.flushToDisk(this);
-            nextDiskCacheNode = nextDiskCacheNode.getPrev();
+    /**
+     * Weight of the keys with their value on the heap, the negative nodes do not count as they have no value
+     */
+    long heapWeight() {
+        return totalWeight() - this.diskWeight.get() - this.offHeapStore.getWeight() - this.negativeNodes.get();
+    }
+
+    /**
+     * Weight of the keys in the map, the sum of the weights of the segments
+     */
+    long totalWeight() {
+        long weight = 0;
+        for (CacheSegment<K,V> segment : segments) {
+            weight += segment.weight();
         }
+        return weight;
     }
 
-    private void popCacheToMemory() {
+    /**
+     * Live statistics of the cache, registered as a platform MBean until the cache is closed
+     */
+    public CacheMetrics getMetrics() {
+        return metrics;
+    }
 
+    /**
+     * Promote the most recent off heap or on disk nodes back in memory while the memory threshold weight has room for them,
+     * starting from the segment which was just changed
+     * @param segmentIndex segment changed by the caller
+     */
+    private void popCacheToMemory(int segmentIndex) {
+        int index = segmentIndex;
+        int misses = 0;
+        long heapWeight;
+        while ((heapWeight = heapWeight()) < this.memoryThresholdSize && this.diskWeight.get() + this.offHeapStore.getWeight() > 0
+                && misses < segments.length) {
+            if(segments[index].popCacheToMemory(this.memoryThresholdSize - heapWeight)){
+                misses = 0;
+            }else{
+                misses++;
+                index = (index + 1) & segmentMask;
+            }
+        }
     }
 
 }
\ No newline at end of file
@@ -1,9 +1,10 @@
 package org.cache.core;
 
-import org.cache.interfaces.EvictionCallback;
-import org.cache.interfaces.ReplenishCallback;
+import org.cache.config.CacheConfig;
+import org.cache.interfaces.ICleanCache;
 
 import java.io.Serializable;
+import java.util.Map;
 
 /**
  * BasicClean Cache Proxy object
@@ -12,16 +13,39 @@ import java.io.Serializable;
  */
 public class BasicCleanCacheProxy<K,V extends Serializable> extends CacheProxy<K,V> {
 
-    public BasicCleanCacheProxy(Long cacheTimeout, Long capacity,Long memoryThresholdSize, ReplenishCallback<K, V> replenishCallback,
-                                EvictionCallback<K,V> evictionCallback) {
-        super(cacheTimeout,capacity,memoryThresholdSize,replenishCallback,evictionCallback);
+    public BasicCleanCacheProxy(CacheConfig<K,V> cacheConfig) {
+        super(cacheConfig);
+        //A named cache is created at once so the keys left on disk are served before the first put
+        if(cacheConfig.getCacheName() != null) cleanCache();
     }
 
     @Override
     public void put(K key, V value) {
-        if(cleanCache == null){
-            cleanCache = new BasicCleanCache(this.cacheTimeout,this.capacity,this.memoryThresholdSize,this.replenishCallback,this.evictionCallback);
+        cleanCache().put(key,value);
+    }
+
+    @Override
+    public void put(K key, V value, long ttl) {
+        cleanCache().put(key,value,ttl);
+    }
+
+    @Override
+    public void putAll(Map<K,V> values) {
+        cleanCache().putAll(values);
+    }
+
+    //The cache is created by the first put
+    protected BasicCleanCache<K,V> cleanCache() {
+        ICleanCache<K,V> current = cleanCache;
+        if(current == null){
+            synchronized (this) {
+                current = cleanCache;
+                if(current == null) {
+                    current = new BasicCleanCache<>(this.cacheConfig);
+                    cleanCache = current;
+                }
+            }
         }
-        cleanCache.put(key,value);
+        return (BasicCleanCache<K,V>) current;
     }
 }
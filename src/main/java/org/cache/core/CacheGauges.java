@@ -0,0 +1,31 @@
+package org.cache.core;
+
+/**
+ * Current sizes of a cache read by its metrics, the counters are read from its statistics
+ */
+interface CacheGauges {
+
+    long size();
+
+    long memorySize();
+
+    long offHeapSize();
+
+    long diskSize();
+
+    long negativeSize();
+
+    long totalWeight();
+
+    long memoryWeight();
+
+    long offHeapWeight();
+
+    long diskWeight();
+
+    long spillQueueDepth();
+
+    long diskLiveBytes();
+
+    long diskDeadBytes();
+}
@@ -0,0 +1,281 @@
+package org.cache.core;
+
+import org.cache.config.CommonConfig;
+import org.cache.interfaces.CleanCacheMXBean;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import static org.cache.config.CommonConfig.LOGGING_LEVEL;
+
+/**
+ * Live statistics of a cache, read from its counters without taking any lock and without the BigDecimal
+ * computations of the cache statistics. The metrics of the open caches are registered as platform MBeans
+ * and listed for the exporters
+ */
+public final class CacheMetrics implements CleanCacheMXBean {
+
+    private final static Logger LOGGER;
+    static {
+        LOGGER = Logger.getLogger(CacheMetrics.class.getName());
+        LOGGER.setLevel(LOGGING_LEVEL);
+    }
+
+    //Metrics of the open caches by MBean name
+    private static final ConcurrentHashMap<ObjectName, CacheMetrics> REGISTERED = new ConcurrentHashMap<>();
+
+    private final String name;
+
+    //Counters of the cache
+    private final CacheStats cache;
+
+    //Sizes of the cache
+    private final CacheGauges gauges;
+
+    private ObjectName objectName;
+
+    CacheMetrics(String name, CacheStats cache, CacheGauges gauges) {
+        this.name = name;
+        this.cache = cache;
+        this.gauges = gauges;
+    }
+
+    /**
+     * Metrics of the caches open in this JVM
+     */
+    public static Collection<CacheMetrics> registered() {
+        return Collections.unmodifiableCollection(REGISTERED.values());
+    }
+
+    /**
+     * Register the MBean, a cache whose name is already registered by an other open cache is only logged
+     */
+    void register() {
+        try {
+            ObjectName objectName = new ObjectName(CommonConfig.JMX_DOMAIN + ":type=CleanCache,name=" + name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            this.objectName = objectName;
+            REGISTERED.put(objectName, this);
+        } catch (InstanceAlreadyExistsException e) {
+            LOGGER.warning(String.format("An other open cache is already registered as %s, its metrics are not exported", name));
+        } catch (JMException e) {
+            LOGGER.severe(String.format("Unable to register the metrics of the cache %s%n%s", name, e));
+        }
+    }
+
+    void unregister() {
+        if(objectName == null) return;
+        REGISTERED.remove(objectName);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(objectName);
+        } catch (InstanceNotFoundException e) {
+            //Unregistered by the application
+        } catch (JMException e) {
+            LOGGER.severe(String.format("Unable to unregister the metrics of the cache %s%n%s", name, e));
+        }
+        objectName = null;
+    }
+
+    /**
+     * Name of the MBean, null if it is not registered
+     */
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCapacity() {
+        return cache.capacity;
+    }
+
+    @Override
+    public long getSize() {
+        return gauges.size();
+    }
+
+    @Override
+    public long getMemorySize() {
+        return gauges.memorySize();
+    }
+
+    @Override
+    public long getOffHeapSize() {
+        return gauges.offHeapSize();
+    }
+
+    @Override
+    public long getDiskSize() {
+        return gauges.diskSize();
+    }
+
+    @Override
+    public long getNegativeSize() {
+        return gauges.negativeSize();
+    }
+
+    @Override
+    public long getTotalWeight() {
+        return gauges.totalWeight();
+    }
+
+    @Override
+    public long getMemoryWeight() {
+        return gauges.memoryWeight();
+    }
+
+    @Override
+    public long getOffHeapWeight() {
+        return gauges.offHeapWeight();
+    }
+
+    @Override
+    public long getDiskWeight() {
+        return gauges.diskWeight();
+    }
+
+    @Override
+    public long getAccessCount() {
+        return cache.accessCount.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return cache.missCount.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long accessCount = cache.accessCount.sum();
+        return accessCount == 0 ? 0 : (double) (accessCount - cache.missCount.sum()) / accessCount;
+    }
+
+    @Override
+    public double getMissRatio() {
+        long accessCount = cache.accessCount.sum();
+        return accessCount == 0 ? 0 : (double) cache.missCount.sum() / accessCount;
+    }
+
+    @Override
+    public long getReplenishCount() {
+        return cache.replenishCount.sum();
+    }
+
+    @Override
+    public long getReplenishCoalesced() {
+        return cache.replenishCoalesced.sum();
+    }
+
+    @Override
+    public long getRefreshCount() {
+        return cache.refreshCount.sum();
+    }
+
+    @Override
+    public long getRefreshFailures() {
+        return cache.refreshFailures.sum();
+    }
+
+    @Override
+    public long getAdmissionRejections() {
+        return cache.admissionRejections.sum();
+    }
+
+    @Override
+    public long getNegativeHits() {
+        return cache.negativeHits.sum();
+    }
+
+    @Override
+    public long getOffHeapHits() {
+        return cache.offHeapHits.sum();
+    }
+
+    @Override
+    public long getDiskHits() {
+        return cache.diskHits.sum();
+    }
+
+    @Override
+    public long getDiskPromotions() {
+        return cache.diskPromotions.sum();
+    }
+
+    @Override
+    public long getSpillQueueDepth() {
+        return gauges.spillQueueDepth();
+    }
+
+    @Override
+    public long getSpilledNodes() {
+        return cache.spilledNodes.sum();
+    }
+
+    @Override
+    public long getSpilledBytes() {
+        return cache.spilledBytes.sum();
+    }
+
+    @Override
+    public long getSpillBatches() {
+        return cache.spillBatches.sum();
+    }
+
+    @Override
+    public long getDiskLiveBytes() {
+        return gauges.diskLiveBytes();
+    }
+
+    @Override
+    public long getDiskDeadBytes() {
+        return gauges.diskDeadBytes();
+    }
+
+    @Override
+    public long getCompactedBytes() {
+        return cache.compactedBytes.sum();
+    }
+
+    @Override
+    public LatencyPercentiles getGetHitLatency() {
+        return cache.getHitLatency.snapshot();
+    }
+
+    @Override
+    public LatencyPercentiles getGetMissLatency() {
+        return cache.getMissLatency.snapshot();
+    }
+
+    @Override
+    public LatencyPercentiles getPutLatency() {
+        return cache.putLatency.snapshot();
+    }
+
+    @Override
+    public LatencyPercentiles getReplenishLatency() {
+        return cache.replenishLatency.snapshot();
+    }
+
+    @Override
+    public LatencyPercentiles getSpillLatency() {
+        return cache.spillLatency.snapshot();
+    }
+
+    @Override
+    public LatencyPercentiles getDiskReadLatency() {
+        return cache.diskReadLatency.snapshot();
+    }
+}
@@ -1,11 +1,12 @@
 package org.cache.core;
 
-import org.cache.config.CommonConfig;
-import org.cache.interfaces.EvictionCallback;
+import org.cache.config.CacheConfig;
 import org.cache.interfaces.ICleanCache;
-import org.cache.interfaces.ReplenishCallback;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -15,23 +16,14 @@ import java.util.Optional;
  */
 public abstract class CacheProxy<K,V extends Serializable> implements ICleanCache<K,V> {
 
-    protected ReplenishCallback<K,V> replenishCallback = null;
-    protected EvictionCallback<K,V> evictionCallback = null;
-
-    protected ICleanCache<K,V> cleanCache = null;
-    protected final Long capacity;
-    protected final Long cacheTimeout;
-    protected Long memoryThresholdSize;
-
-    protected CacheProxy(Long cacheTimeout, Long cacheSize,Long memoryThresholdSize, ReplenishCallback<K,V> replenishCallback, EvictionCallback<K,V> evictionCallback) {
-        this.capacity = cacheSize;
-        this.cacheTimeout = cacheTimeout;
-        this.replenishCallback = replenishCallback;
-        this.evictionCallback = evictionCallback;
-        if(memoryThresholdSize != null) {
-            this.memoryThresholdSize = memoryThresholdSize;
-        }else{
-            this.memoryThresholdSize = cacheSize/2;
+    //Created by the first put, volatile so every thread sees the same instance
+    protected volatile ICleanCache<K,V> cleanCache = null;
+    protected final CacheConfig<K,V> cacheConfig;
+
+    protected CacheProxy(CacheConfig<K,V> cacheConfig) {
+        this.cacheConfig = cacheConfig;
+        if(cacheConfig.getMemoryThresholdSize() == null) {
+            cacheConfig.setMemoryThresholdSize(cacheConfig.getCapacity()/2);
         }
     }
 
@@ -63,13 +55,34 @@ public abstract class CacheProxy<K,V extends Serializable> implements ICleanCach
     @Override
     public abstract void put(K key, V value);
 
+    @Override
+    public abstract void put(K key, V value, long ttl);
+
     @Override
     public final Optional<V> remove(K key) {
         return (cleanCache != null) ? cleanCache.remove(key) : Optional.empty();
     }
 
+    @Override
+    public final Map<K,V> getAll(Collection<K> keys) {
+        return (cleanCache != null) ? cleanCache.getAll(keys) : Collections.emptyMap();
+    }
+
+    @Override
+    public abstract void putAll(Map<K,V> values);
+
+    @Override
+    public final void removeAll(Collection<K> keys) {
+        if(cleanCache != null) cleanCache.removeAll(keys);
+    }
+
     @Override
     public CacheStatistics getCacheStatistics() {
         return (cleanCache != null) ? cleanCache.getCacheStatistics() : null;
     }
+
+    @Override
+    public final void close() {
+        if(cleanCache != null) cleanCache.close();
+    }
 }
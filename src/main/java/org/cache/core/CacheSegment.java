@@ -0,0 +1,497 @@
+package org.cache.core;
+
+import org.cache.disk.DiskStore;
+import org.cache.disk.SpillWriter;
+import org.cache.interfaces.EvictionPolicy;
+import org.cache.model.CacheNode;
+import org.cache.model.PersistentState;
+import org.cache.offheap.OffHeapStore;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * One shard of the BasicCleanCache. Every segment owns its own eviction policy, lock and
+ * spill cursor, the key to value mapping is shared with the other segments.
+ * Every segment also accounts the weight of its own keys and evicts down to its share of the cache capacity,
+ * so the writers of different segments never contend on the eviction.
+ * The in memory nodes are kept in a separate access ordered list so the nodes pushed out of memory
+ * are the least recent in memory ones whatever the eviction policy is, the off heap and the on disk nodes
+ * are kept in access ordered lists of their own so the nodes pushed down a tier are the least recent of it
+ * and the nodes promoted back in memory are the most recent ones.
+ * All the list changes are done while holding the segment lock.
+ * In the buffered mode the hits are recorded in lossy read buffers and the writes in a bounded
+ * write buffer, both are replayed to the eviction policy in batches.
+ * @param <K> Cache Key Type
+ * @param <V> Cache Value object
+ */
+final class CacheSegment<K,V extends Serializable> {
+
+    //Number of pending list changes before a writer has to drain the buffer itself
+    static final int WRITE_BUFFER_SIZE = 128;
+
+    private static final PersistentState[] TIERS = PersistentState.values();
+    private static final int HEAP = PersistentState.IN_MEMORY.ordinal();
+    private static final int OFF_HEAP = PersistentState.OFF_HEAP.ordinal();
+    private static final int DISK = PersistentState.DISK.ordinal();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    //Receives the nodes pushed out of memory
+    private final DiskStore<K,V> diskStore;
+
+    //Writes the nodes pushed out of memory in the background
+    private final SpillWriter<K,V> spillWriter;
+
+    //Receives the nodes pushed out of the heap before the disk
+    private final OffHeapStore<V> offHeapStore;
+
+    //Recorded hits, null if the segment is not buffered
+    private final StripedReadBuffer<CacheNode<K,V>> readBuffer;
+
+    //Pending list changes of the writes, null if the segment is not buffered
+    private final ArrayBlockingQueue<Runnable> writeBuffer;
+
+    private final Consumer<CacheNode<K,V>> accessConsumer = this::onAccess;
+
+    //Decides which node leaves the segment when the cache is full
+    private final EvictionPolicy<K,V> evictionPolicy;
+
+    //Expiry order of the nodes of the segment
+    private final TimerWheel<K,V> timerWheel;
+
+    //Number of nodes linked in the segment
+    private long size;
+
+    //Weight of the keys of the segment in the map, added by the writers without the lock
+    private final AtomicLong weight = new AtomicLong();
+
+    //Share of the cache capacity the segment evicts down to
+    private final long capacity;
+
+    //Most recent element of the memory, off heap and disk lists of the segment, by tier.
+    //The most recent off heap or on disk node is the first one promoted when memory frees up
+    private final CacheNode<K,V>[] heads;
+
+    //Least recent element of the lists, the one of the memory list is the spill cursor
+    private final CacheNode<K,V>[] tails;
+
+    private final BooleanSupplier spillOffHeapTail = this::spillOffHeapTail;
+
+    @SuppressWarnings("unchecked")
+    CacheSegment(DiskStore<K,V> diskStore, SpillWriter<K,V> spillWriter, OffHeapStore<V> offHeapStore, boolean buffered,
+                 EvictionPolicy<K,V> evictionPolicy, TimerWheel<K,V> timerWheel, long capacity) {
+        this.diskStore = diskStore;
+        this.capacity = capacity;
+        this.spillWriter = spillWriter;
+        this.offHeapStore = offHeapStore;
+        this.evictionPolicy = evictionPolicy;
+        this.timerWheel = timerWheel;
+        this.readBuffer = buffered ? new StripedReadBuffer<>() : null;
+        this.writeBuffer = buffered ? new ArrayBlockingQueue<>(WRITE_BUFFER_SIZE) : null;
+        this.heads = new CacheNode[TIERS.length];
+        this.tails = new CacheNode[TIERS.length];
+    }
+
+    /**
+     * Record a hit of an in memory node, may be dropped in the buffered mode
+     * @param cacheNode accessed node
+     */
+    void recordRead(CacheNode<K,V> cacheNode) {
+        if(readBuffer == null){
+            lock.lock();
+            try {
+                onAccess(cacheNode);
+            } finally {
+                lock.unlock();
+            }
+        }else if(readBuffer.offer(cacheNode)){
+            tryToDrainBuffers();
+        }
+    }
+
+    /**
+     * Record the hits of a batch of in memory nodes with one lock acquisition, may be dropped in the buffered mode
+     * @param cacheNodes accessed nodes
+     */
+    void recordReads(List<CacheNode<K,V>> cacheNodes) {
+        if(readBuffer == null){
+            lock.lock();
+            try {
+                for (CacheNode<K,V> cacheNode : cacheNodes) {
+                    onAccess(cacheNode);
+                }
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+        boolean drain = false;
+        for (CacheNode<K,V> cacheNode : cacheNodes) {
+            drain |= readBuffer.offer(cacheNode);
+        }
+        if(drain) tryToDrainBuffers();
+    }
+
+    /**
+     * Record a batch of writes with one lock acquisition, the buffered changes are replayed first
+     * @param added nodes added to the map
+     * @param updated nodes updated in the map
+     * @param removed nodes removed from the map
+     */
+    void recordWrites(List<CacheNode<K,V>> added, List<CacheNode<K,V>> updated, List<CacheNode<K,V>> removed) {
+        lock.lock();
+        try {
+            drainBuffers();
+            for (CacheNode<K,V> cacheNode : added) {
+                onAdd(cacheNode);
+            }
+            for (CacheNode<K,V> cacheNode : updated) {
+                onUpdate(cacheNode);
+            }
+            for (CacheNode<K,V> cacheNode : removed) {
+                onRemove(cacheNode);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record a new node
+     * @param cacheNode node added to the map
+     */
+    void recordAdd(CacheNode<K,V> cacheNode) {
+        afterWrite(() -> onAdd(cacheNode));
+    }
+
+    /**
+     * Record an access which must not be lost, like an update or a read from disk
+     * @param cacheNode accessed node
+     */
+    void recordUpdate(CacheNode<K,V> cacheNode) {
+        afterWrite(() -> onUpdate(cacheNode));
+    }
+
+    /**
+     * Record a removed node
+     * @param cacheNode node removed from the map
+     */
+    void recordRemove(CacheNode<K,V> cacheNode) {
+        afterWrite(() -> onRemove(cacheNode));
+    }
+
+    /**
+     * Change the weight of the segment by the weight of a key added to, updated in or removed from the map
+     * @param delta weight change
+     */
+    void addWeight(long delta) {
+        weight.addAndGet(delta);
+    }
+
+    long weight() {
+        return weight.get();
+    }
+
+    /**
+     * Evict the node chosen by the eviction policy if the segment weight is over its share of the capacity.
+     * The weight is checked and the weight of the victim is taken out under the segment lock,
+     * so two writers of the segment never evict for the same overflow
+     * @param cache map of the cache, the node is removed from the map as well
+     * @param evictLastNode false if the segment must keep its last node
+     * @return evicted node, null if the segment is within its share or there is nothing to evict
+     */
+    CacheNode<K,V> evict(Map<K, CacheNode<K,V>> cache, boolean evictLastNode) {
+        lock.lock();
+        try {
+            if(weight.get() <= capacity) return null;
+            drainBuffers();
+            CacheNode<K,V> victim;
+            //The size is checked first, asking for a victim is only done to evict it
+            while ((evictLastNode || size > 1) && (victim = evictionPolicy.victim()) != null) {
+                boolean removed = cache.remove(victim.getKey(), victim);
+                if(removed){
+                    evictionPolicy.onEvict(victim);
+                }else{
+                    //Node already removed by an other thread, its removal is still in the buffer
+                    evictionPolicy.onRemove(victim);
+                }
+                unlink(victim);
+                if(removed){
+                    weight.addAndGet(-victim.getWeight());
+                    return victim;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the expired nodes of the segment
+     * @param cache map of the cache, the nodes are removed from the map as well
+     * @param now current time in millis
+     * @param expired receives the removed nodes
+     */
+    void expire(Map<K, CacheNode<K,V>> cache, long now, List<CacheNode<K,V>> expired) {
+        lock.lock();
+        try {
+            drainBuffers();
+            timerWheel.advance(now, cacheNode -> {
+                if(!removeIfExpired(cache, cacheNode, now)) return false;
+                evictionPolicy.onRemove(cacheNode);
+                unlink(cacheNode);
+                expired.add(cacheNode);
+                return true;
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Push the least recent in memory node of the segment one tier down, off heap if the off heap store
+     * is enabled, the least recent off heap nodes of the segment go to disk to make room for it
+     * @return false if the segment has no node left in memory
+     */
+    boolean pushCacheToDisk() {
+        lock.lock();
+        try {
+            drainBuffers();
+            while (tails[HEAP] != null) {
+                CacheNode<K,V> cacheNode = tails[HEAP];
+                removeFromResidencyList(cacheNode);
+                if(offHeapStore.isEnabled() && cacheNode.moveOffHeap(offHeapStore, spillOffHeapTail)){
+                    addToResidencyList(cacheNode, OFF_HEAP);
+                    return true;
+                }
+                if(spill(cacheNode)) return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Bring the most recent off heap, or else on disk, node of the segment back in memory,
+     * as the least recent in memory node
+     * @param room weight the memory can still take
+     * @return false if the segment has no node left off heap or on disk, or the node is too heavy
+     */
+    boolean popCacheToMemory(long room) {
+        lock.lock();
+        try {
+            drainBuffers();
+            CacheNode<K,V> cacheNode;
+            while ((cacheNode = heads[OFF_HEAP] != null ? heads[OFF_HEAP] : heads[DISK]) != null) {
+                if(cacheNode.getWeight() > room) return false;
+                removeFromResidencyList(cacheNode);
+                if(cacheNode.promote(diskStore)){
+                    addToMemoryListTail(cacheNode);
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queue a node removed from its residency list for the disk
+     * @return false if the node is already on disk or removed from the cache
+     */
+    private boolean spill(CacheNode<K,V> cacheNode) {
+        V value = cacheNode.startSpill(diskStore);
+        if(value == null) return false;
+        addToResidencyList(cacheNode, DISK);
+        spillWriter.spill(cacheNode, value);
+        return true;
+    }
+
+    /**
+     * Push the least recent off heap node of the segment to disk, called by the off heap store when it is full
+     * @return false if the segment has no node left off heap
+     */
+    private boolean spillOffHeapTail() {
+        CacheNode<K,V> cacheNode = tails[OFF_HEAP];
+        if(cacheNode == null) return false;
+        removeFromResidencyList(cacheNode);
+        spill(cacheNode);
+        return true;
+    }
+
+    /**
+     * Replay the buffered changes to the eviction policy
+     */
+    void drain() {
+        if(readBuffer == null) return;
+        lock.lock();
+        try {
+            drainBuffers();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void afterWrite(Runnable task) {
+        if(writeBuffer == null){
+            lock.lock();
+            try {
+                task.run();
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+        while (!writeBuffer.offer(task)) {
+            //Buffer full, the writer has to wait for the lock and replay the pending changes
+            lock.lock();
+            try {
+                drainBuffers();
+            } finally {
+                lock.unlock();
+            }
+        }
+        tryToDrainBuffers();
+    }
+
+    private void tryToDrainBuffers() {
+        if(lock.tryLock()){
+            try {
+                drainBuffers();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void drainBuffers() {
+        if(readBuffer == null) return;
+        //Writes first, a buffered read of a node which is not linked yet is ignored
+        Runnable task;
+        while ((task = writeBuffer.poll()) != null) {
+            task.run();
+        }
+        readBuffer.drainTo(accessConsumer);
+    }
+
+    private void onAdd(CacheNode<K,V> cacheNode) {
+        //Removed before being linked
+        if(cacheNode.isRetired() || cacheNode.isLinked()) return;
+        cacheNode.setLinked(true);
+        size++;
+        evictionPolicy.onAdd(cacheNode);
+        updateResidencyList(cacheNode);
+        timerWheel.schedule(cacheNode);
+    }
+
+    private void onAccess(CacheNode<K,V> cacheNode) {
+        if(cacheNode.isRetired() || !cacheNode.isLinked()) return;
+        evictionPolicy.onAccess(cacheNode);
+        updateResidencyList(cacheNode);
+    }
+
+    private void onUpdate(CacheNode<K,V> cacheNode) {
+        if(cacheNode.isRetired() || !cacheNode.isLinked()) return;
+        onAccess(cacheNode);
+        timerWheel.schedule(cacheNode);
+    }
+
+    private void onRemove(CacheNode<K,V> cacheNode) {
+        if(!cacheNode.isLinked()) return;
+        evictionPolicy.onRemove(cacheNode);
+        unlink(cacheNode);
+    }
+
+    private void unlink(CacheNode<K,V> cacheNode) {
+        cacheNode.setLinked(false);
+        size--;
+        timerWheel.deschedule(cacheNode);
+        if(cacheNode.getResidency() != null) removeFromResidencyList(cacheNode);
+    }
+
+    /**
+     * Keep the memory, off heap and disk lists in the access order, a node moves to the list of its current tier
+     */
+    private void updateResidencyList(CacheNode<K,V> cacheNode) {
+        int tier = tier(cacheNode.getPersistentState());
+        if(cacheNode.getResidency() != null){
+            if(cacheNode == heads[tier]) return;
+            removeFromResidencyList(cacheNode);
+        }
+        addToResidencyList(cacheNode, tier);
+    }
+
+    //List of the tier, a spilling node is in the disk list
+    private static int tier(PersistentState persistentState) {
+        return persistentState == PersistentState.SPILLING ? DISK : persistentState.ordinal();
+    }
+
+    /**
+     * Remove the node from the map only if it is still mapped and its expiry time was not moved by a new write
+     */
+    static <K,V extends Serializable> boolean removeIfExpired(Map<K, CacheNode<K,V>> cache, CacheNode<K,V> cacheNode, long now) {
+        boolean[] removed = new boolean[1];
+        cache.computeIfPresent(cacheNode.getKey(), (key, current) -> {
+            if(current != cacheNode || current.getExpirationTime() > now) return current;
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Add the node as the most recent one of the list of the tier
+     */
+    private void addToResidencyList(CacheNode<K,V> cacheNode, int tier) {
+        CacheNode<K,V> head = heads[tier];
+        cacheNode.setResidency(TIERS[tier]);
+        cacheNode.setMemoryNext(head);
+        cacheNode.setMemoryPrev(null);
+        if(head != null) head.setMemoryPrev(cacheNode);
+        heads[tier] = cacheNode;
+        if(tails[tier] == null) tails[tier] = cacheNode;
+    }
+
+    /**
+     * Add the node as the least recent one of the memory list
+     */
+    private void addToMemoryListTail(CacheNode<K,V> cacheNode) {
+        CacheNode<K,V> tail = tails[HEAP];
+        cacheNode.setResidency(PersistentState.IN_MEMORY);
+        cacheNode.setMemoryPrev(tail);
+        cacheNode.setMemoryNext(null);
+        if(tail != null){
+            tail.setMemoryNext(cacheNode);
+        }else{
+            heads[HEAP] = cacheNode;
+        }
+        tails[HEAP] = cacheNode;
+    }
+
+    private void removeFromResidencyList(CacheNode<K,V> cacheNode) {
+        int tier = cacheNode.getResidency().ordinal();
+        if(cacheNode.getMemoryPrev() != null){
+            cacheNode.getMemoryPrev().setMemoryNext(cacheNode.getMemoryNext());
+        }else{
+            heads[tier] = cacheNode.getMemoryNext();
+        }
+        if(cacheNode.getMemoryNext() != null){
+            cacheNode.getMemoryNext().setMemoryPrev(cacheNode.getMemoryPrev());
+        }else{
+            tails[tier] = cacheNode.getMemoryPrev();
+        }
+        cacheNode.setMemoryPrev(null);
+        cacheNode.setMemoryNext(null);
+        cacheNode.setResidency(null);
+    }
+}
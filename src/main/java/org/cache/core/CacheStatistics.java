@@ -21,6 +21,70 @@ public final class CacheStatistics {
 
     private BigDecimal avgValueReplenishmentTimeSpent;
 
+    private long admissionRejections;
+
+    private long replenishCoalesced;
+
+    private long refreshCount;
+
+    private long refreshFailures;
+
+    private BigDecimal avgRefreshTimeSpent;
+
+    private long spillQueueDepth;
+
+    private long spilledNodes;
+
+    private long spillBatches;
+
+    private BigDecimal spillThroughput;
+
+    private long diskHits;
+
+    private long diskPromotions;
+
+    private long offHeapSize;
+
+    private long offHeapHits;
+
+    private long offHeapUsedBytes;
+
+    private long offHeapCapacityBytes;
+
+    private BigDecimal offHeapFragmentation;
+
+    private long diskLiveBytes;
+
+    private long diskDeadBytes;
+
+    private long compactedBytes;
+
+    private BigDecimal compactionThroughput;
+
+    private long negativeSize;
+
+    private long negativeHits;
+
+    private long totalWeight;
+
+    private long memoryWeight;
+
+    private long offHeapWeight;
+
+    private long diskWeight;
+
+    private LatencyPercentiles getHitLatency;
+
+    private LatencyPercentiles getMissLatency;
+
+    private LatencyPercentiles putLatency;
+
+    private LatencyPercentiles replenishLatency;
+
+    private LatencyPercentiles spillLatency;
+
+    private LatencyPercentiles diskReadLatency;
+
     public long getTotalCacheSize() {
         return totalCacheSize;
     }
@@ -53,6 +117,176 @@ public final class CacheStatistics {
         return avgValueReplenishmentTimeSpent;
     }
 
+    public long getAdmissionRejections() {
+        return admissionRejections;
+    }
+
+    public long getReplenishCoalesced() {
+        return replenishCoalesced;
+    }
+
+    public long getRefreshCount() {
+        return refreshCount;
+    }
+
+    public long getRefreshFailures() {
+        return refreshFailures;
+    }
+
+    public BigDecimal getAvgRefreshTimeSpent() {
+        return avgRefreshTimeSpent;
+    }
+
+    public long getSpillQueueDepth() {
+        return spillQueueDepth;
+    }
+
+    public long getSpilledNodes() {
+        return spilledNodes;
+    }
+
+    public long getSpillBatches() {
+        return spillBatches;
+    }
+
+    /**
+     * Bytes written to disk per second of batch write
+     */
+    public BigDecimal getSpillThroughput() {
+        return spillThroughput;
+    }
+
+    public long getDiskHits() {
+        return diskHits;
+    }
+
+    public long getDiskPromotions() {
+        return diskPromotions;
+    }
+
+    public long getOffHeapSize() {
+        return offHeapSize;
+    }
+
+    public long getOffHeapHits() {
+        return offHeapHits;
+    }
+
+    public long getOffHeapUsedBytes() {
+        return offHeapUsedBytes;
+    }
+
+    public long getOffHeapCapacityBytes() {
+        return offHeapCapacityBytes;
+    }
+
+    /**
+     * Part of the carved off heap slabs which does not hold value bytes
+     */
+    public BigDecimal getOffHeapFragmentation() {
+        return offHeapFragmentation;
+    }
+
+    /**
+     * Bytes of the values on disk
+     */
+    public long getDiskLiveBytes() {
+        return diskLiveBytes;
+    }
+
+    /**
+     * Bytes of the disk segment files not holding a value anymore, reclaimed by the compaction
+     */
+    public long getDiskDeadBytes() {
+        return diskDeadBytes;
+    }
+
+    public long getCompactedBytes() {
+        return compactedBytes;
+    }
+
+    /**
+     * Bytes moved per second by the disk compaction
+     */
+    public BigDecimal getCompactionThroughput() {
+        return compactionThroughput;
+    }
+
+    /**
+     * Number of cached keys the replenish callback found no value for
+     */
+    public long getNegativeSize() {
+        return negativeSize;
+    }
+
+    /**
+     * Reads answered as missing by the negative cache without calling the replenish callback
+     */
+    public long getNegativeHits() {
+        return negativeHits;
+    }
+
+    /**
+     * Weight of the cached keys, their number without a weigher
+     */
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    public long getMemoryWeight() {
+        return memoryWeight;
+    }
+
+    public long getOffHeapWeight() {
+        return offHeapWeight;
+    }
+
+    public long getDiskWeight() {
+        return diskWeight;
+    }
+
+    /**
+     * Latencies in nanos of the reads answered from the cache
+     */
+    public LatencyPercentiles getGetHitLatency() {
+        return getHitLatency;
+    }
+
+    /**
+     * Latencies in nanos of the reads which missed, the replenish call included
+     */
+    public LatencyPercentiles getGetMissLatency() {
+        return getMissLatency;
+    }
+
+    /**
+     * Latencies in nanos of the puts, the spill to disk they trigger included
+     */
+    public LatencyPercentiles getPutLatency() {
+        return putLatency;
+    }
+
+    /**
+     * Latencies in nanos of the replenish callback calls
+     */
+    public LatencyPercentiles getReplenishLatency() {
+        return replenishLatency;
+    }
+
+    /**
+     * Latencies in nanos of the batch writes to disk
+     */
+    public LatencyPercentiles getSpillLatency() {
+        return spillLatency;
+    }
+
+    /**
+     * Latencies in nanos of the reads of a value from disk
+     */
+    public LatencyPercentiles getDiskReadLatency() {
+        return diskReadLatency;
+    }
+
     protected CacheStatistics setTotalCacheSize(long totalCacheSize) {
         this.totalCacheSize = totalCacheSize;
         return this;
@@ -93,6 +327,166 @@ public final class CacheStatistics {
         return this;
     }
 
+    protected CacheStatistics setAdmissionRejections(long admissionRejections) {
+        this.admissionRejections = admissionRejections;
+        return this;
+    }
+
+    protected CacheStatistics setReplenishCoalesced(long replenishCoalesced) {
+        this.replenishCoalesced = replenishCoalesced;
+        return this;
+    }
+
+    protected CacheStatistics setRefreshCount(long refreshCount) {
+        this.refreshCount = refreshCount;
+        return this;
+    }
+
+    protected CacheStatistics setRefreshFailures(long refreshFailures) {
+        this.refreshFailures = refreshFailures;
+        return this;
+    }
+
+    protected CacheStatistics setAvgRefreshTimeSpent(BigDecimal avgRefreshTimeSpent) {
+        this.avgRefreshTimeSpent = avgRefreshTimeSpent;
+        return this;
+    }
+
+    protected CacheStatistics setSpillQueueDepth(long spillQueueDepth) {
+        this.spillQueueDepth = spillQueueDepth;
+        return this;
+    }
+
+    protected CacheStatistics setSpilledNodes(long spilledNodes) {
+        this.spilledNodes = spilledNodes;
+        return this;
+    }
+
+    protected CacheStatistics setSpillBatches(long spillBatches) {
+        this.spillBatches = spillBatches;
+        return this;
+    }
+
+    protected CacheStatistics setSpillThroughput(BigDecimal spillThroughput) {
+        this.spillThroughput = spillThroughput;
+        return this;
+    }
+
+    protected CacheStatistics setDiskHits(long diskHits) {
+        this.diskHits = diskHits;
+        return this;
+    }
+
+    protected CacheStatistics setDiskPromotions(long diskPromotions) {
+        this.diskPromotions = diskPromotions;
+        return this;
+    }
+
+    protected CacheStatistics setOffHeapSize(long offHeapSize) {
+        this.offHeapSize = offHeapSize;
+        return this;
+    }
+
+    protected CacheStatistics setOffHeapHits(long offHeapHits) {
+        this.offHeapHits = offHeapHits;
+        return this;
+    }
+
+    protected CacheStatistics setOffHeapUsedBytes(long offHeapUsedBytes) {
+        this.offHeapUsedBytes = offHeapUsedBytes;
+        return this;
+    }
+
+    protected CacheStatistics setOffHeapCapacityBytes(long offHeapCapacityBytes) {
+        this.offHeapCapacityBytes = offHeapCapacityBytes;
+        return this;
+    }
+
+    protected CacheStatistics setOffHeapFragmentation(BigDecimal offHeapFragmentation) {
+        this.offHeapFragmentation = offHeapFragmentation;
+        return this;
+    }
+
+    protected CacheStatistics setDiskLiveBytes(long diskLiveBytes) {
+        this.diskLiveBytes = diskLiveBytes;
+        return this;
+    }
+
+    protected CacheStatistics setDiskDeadBytes(long diskDeadBytes) {
+        this.diskDeadBytes = diskDeadBytes;
+        return this;
+    }
+
+    protected CacheStatistics setCompactedBytes(long compactedBytes) {
+        this.compactedBytes = compactedBytes;
+        return this;
+    }
+
+    protected CacheStatistics setCompactionThroughput(BigDecimal compactionThroughput) {
+        this.compactionThroughput = compactionThroughput;
+        return this;
+    }
+
+    protected CacheStatistics setNegativeSize(long negativeSize) {
+        this.negativeSize = negativeSize;
+        return this;
+    }
+
+    protected CacheStatistics setNegativeHits(long negativeHits) {
+        this.negativeHits = negativeHits;
+        return this;
+    }
+
+    protected CacheStatistics setTotalWeight(long totalWeight) {
+        this.totalWeight = totalWeight;
+        return this;
+    }
+
+    protected CacheStatistics setMemoryWeight(long memoryWeight) {
+        this.memoryWeight = memoryWeight;
+        return this;
+    }
+
+    protected CacheStatistics setOffHeapWeight(long offHeapWeight) {
+        this.offHeapWeight = offHeapWeight;
+        return this;
+    }
+
+    protected CacheStatistics setDiskWeight(long diskWeight) {
+        this.diskWeight = diskWeight;
+        return this;
+    }
+
+    protected CacheStatistics setGetHitLatency(LatencyPercentiles getHitLatency) {
+        this.getHitLatency = getHitLatency;
+        return this;
+    }
+
+    protected CacheStatistics setGetMissLatency(LatencyPercentiles getMissLatency) {
+        this.getMissLatency = getMissLatency;
+        return this;
+    }
+
+    protected CacheStatistics setPutLatency(LatencyPercentiles putLatency) {
+        this.putLatency = putLatency;
+        return this;
+    }
+
+    protected CacheStatistics setReplenishLatency(LatencyPercentiles replenishLatency) {
+        this.replenishLatency = replenishLatency;
+        return this;
+    }
+
+    protected CacheStatistics setSpillLatency(LatencyPercentiles spillLatency) {
+        this.spillLatency = spillLatency;
+        return this;
+    }
+
+    protected CacheStatistics setDiskReadLatency(LatencyPercentiles diskReadLatency) {
+        this.diskReadLatency = diskReadLatency;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "CacheStatistics{" +
@@ -104,6 +498,38 @@ public final class CacheStatistics {
                 ", missRatio=" + missRatio +
                 ", avgLruOptimizationTimeSpent=" + avgLruOptimizationTimeSpent +
                 ", avgValueReplenishmentTimeSpent=" + avgValueReplenishmentTimeSpent +
+                ", admissionRejections=" + admissionRejections +
+                ", replenishCoalesced=" + replenishCoalesced +
+                ", refreshCount=" + refreshCount +
+                ", refreshFailures=" + refreshFailures +
+                ", avgRefreshTimeSpent=" + avgRefreshTimeSpent +
+                ", spillQueueDepth=" + spillQueueDepth +
+                ", spilledNodes=" + spilledNodes +
+                ", spillBatches=" + spillBatches +
+                ", spillThroughput=" + spillThroughput +
+                ", diskHits=" + diskHits +
+                ", diskPromotions=" + diskPromotions +
+                ", offHeapSize=" + offHeapSize +
+                ", offHeapHits=" + offHeapHits +
+                ", offHeapUsedBytes=" + offHeapUsedBytes +
+                ", offHeapCapacityBytes=" + offHeapCapacityBytes +
+                ", offHeapFragmentation=" + offHeapFragmentation +
+                ", diskLiveBytes=" + diskLiveBytes +
+                ", diskDeadBytes=" + diskDeadBytes +
+                ", compactedBytes=" + compactedBytes +
+                ", compactionThroughput=" + compactionThroughput +
+                ", negativeSize=" + negativeSize +
+                ", negativeHits=" + negativeHits +
+                ", totalWeight=" + totalWeight +
+                ", memoryWeight=" + memoryWeight +
+                ", offHeapWeight=" + offHeapWeight +
+                ", diskWeight=" + diskWeight +
+                ", getHitLatency=" + getHitLatency +
+                ", getMissLatency=" + getMissLatency +
+                ", putLatency=" + putLatency +
+                ", replenishLatency=" + replenishLatency +
+                ", spillLatency=" + spillLatency +
+                ", diskReadLatency=" + diskReadLatency +
                 '}';
     }
 }
@@ -1,14 +1,56 @@
 package org.cache.core;
 
+import org.cache.config.CommonConfig;
+
+import java.math.BigDecimal;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 public class CacheStats {
 
-    public long diskCachedNodes = 0;
-    protected long accessCount = 0;
-    protected long replenishCount = 0;
-    protected long lruTimeSpent = 0;
-    protected long replenishmentTimeSpent = 0;
+    public final AtomicLong diskCachedNodes = new AtomicLong();
+    //Weight of the nodes on disk or being written there
+    public final AtomicLong diskWeight = new AtomicLong();
+    //New nodes evicted by the admission filter because they were colder than the eviction victim
+    public final LongAdder admissionRejections = new LongAdder();
+    //Misses which waited for the replenish call of an other thread instead of calling it again
+    public final LongAdder replenishCoalesced = new LongAdder();
+    //Background reloads of the keys read after the refresh time
+    public final LongAdder refreshCount = new LongAdder();
+    public final LongAdder refreshFailures = new LongAdder();
+    //Nanos spent in the background reloads
+    public final LongAdder refreshTimeSpent = new LongAdder();
+    //Nodes written by the background spill writer and not changed during their write
+    public final LongAdder spilledNodes = new LongAdder();
+    public final LongAdder spilledBytes = new LongAdder();
+    public final LongAdder spillBatches = new LongAdder();
+    //Nanos spent in the batch writes
+    public final LongAdder spillTimeSpent = new LongAdder();
+    //Reads served from disk and nodes promoted back in memory
+    public final LongAdder diskHits = new LongAdder();
+    public final LongAdder offHeapHits = new LongAdder();
+    public final LongAdder diskPromotions = new LongAdder();
+    //Reads of the keys the replenish callback found no value for, answered without calling it
+    public final LongAdder negativeHits = new LongAdder();
+    //Bytes moved by the disk compaction and nanos spent in it, pauses included
+    public final LongAdder compactedBytes = new LongAdder();
+    public final LongAdder compactionTimeSpent = new LongAdder();
+    //Counters of the hot path, a LongAdder spreads the increments of the threads over cells instead of one contended word
+    protected final LongAdder accessCount = new LongAdder();
+    protected final LongAdder missCount = new LongAdder();
+    protected final LongAdder replenishCount = new LongAdder();
+    //Nanos spent in the eviction policy and in the replenish callback
+    protected final LongAdder lruTimeSpent = new LongAdder();
+    protected final LongAdder replenishmentTimeSpent = new LongAdder();
+    //Latencies in nanos of the reads answered from the cache, of the reads which had to replenish, of the puts,
+    //of the replenish calls, of the spill batch writes and of the reads of a value from disk
+    public final LatencyHistogram getHitLatency = new LatencyHistogram();
+    public final LatencyHistogram getMissLatency = new LatencyHistogram();
+    public final LatencyHistogram putLatency = new LatencyHistogram();
+    public final LatencyHistogram replenishLatency = new LatencyHistogram();
+    public final LatencyHistogram spillLatency = new LatencyHistogram();
+    public final LatencyHistogram diskReadLatency = new LatencyHistogram();
     protected String uuid = UUID.randomUUID().toString();
     // Max capacity of the cache
     protected final long capacity;
@@ -23,4 +65,46 @@ public class CacheStats {
     public String getUuid() {
         return uuid;
     }
+
+    protected BigDecimal calculateMissRatio() {
+        long accessCount = this.accessCount.sum();
+        if(accessCount != 0) {
+            return BigDecimal.valueOf(this.missCount.sum()).divide(BigDecimal.valueOf(accessCount), CommonConfig.SCALE, CommonConfig.ROUNDING_MODE);
+        }else{
+            return BigDecimal.ZERO;
+        }
+    }
+
+    protected BigDecimal calculateHitRatio() {
+        long accessCount = this.accessCount.sum();
+        if(accessCount != 0) {
+            return BigDecimal.valueOf(accessCount - this.missCount.sum()).divide(BigDecimal.valueOf(accessCount), CommonConfig.SCALE, CommonConfig.ROUNDING_MODE);
+        }else{
+            return BigDecimal.ZERO;
+        }
+    }
+
+    /**
+     * Average in millis of a time spent in nanos
+     */
+    protected static BigDecimal averageMillis(long nanos, long count) {
+        if(count != 0) {
+            return BigDecimal.valueOf(nanos).divide(BigDecimal.valueOf(count).multiply(BigDecimal.valueOf(1000000L)), CommonConfig.SCALE, CommonConfig.ROUNDING_MODE);
+        }else{
+            return BigDecimal.ZERO;
+        }
+    }
+
+    /**
+     * Bytes written to disk per second of batch write
+     */
+    protected BigDecimal calculateSpillThroughput() {
+        long spillTimeSpent = this.spillTimeSpent.sum();
+        if(spillTimeSpent != 0) {
+            return BigDecimal.valueOf(this.spilledBytes.sum()).multiply(BigDecimal.valueOf(1000000000L))
+                    .divide(BigDecimal.valueOf(spillTimeSpent), CommonConfig.SCALE, CommonConfig.ROUNDING_MODE);
+        }else{
+            return BigDecimal.ZERO;
+        }
+    }
 }
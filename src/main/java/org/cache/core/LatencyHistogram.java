@@ -0,0 +1,88 @@
+package org.cache.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanos with log linear buckets, every power of two is split in 8 buckets
+ * so a percentile is at most 12.5% above the recorded value. The counters are striped by thread,
+ * a record is an increment of its bucket and of the total without allocation and the stripes are only summed by a snapshot
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    //Values under SUB_BUCKETS get one bucket each, then SUB_BUCKETS buckets for every power of two up to 2^62
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private static final int MAX_STRIPES = 16;
+
+    private final int stripeMask;
+
+    private final AtomicLongArray counts;
+
+    //Total of the recorded latencies, for the averages of the monitoring tools
+    private final LongAdder sum = new LongAdder();
+
+    public LatencyHistogram() {
+        int stripes = 1;
+        while (stripes < Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES)) stripes <<= 1;
+        this.stripeMask = stripes - 1;
+        this.counts = new AtomicLongArray(stripes * BUCKETS);
+    }
+
+    /**
+     * Record a latency
+     * @param nanos elapsed nanos, a negative value counts as 0
+     */
+    public void record(long nanos) {
+        int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        counts.incrementAndGet(stripe * BUCKETS + bucket(nanos));
+        sum.add(Math.max(nanos, 0));
+    }
+
+    /**
+     * Percentiles of the latencies recorded so far
+     */
+    public LatencyPercentiles snapshot() {
+        long[] buckets = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            long bucketCount = counts.get(i);
+            buckets[i % BUCKETS] += bucketCount;
+            count += bucketCount;
+        }
+        return new LatencyPercentiles(count, sum.sum(), percentile(buckets, count, 0.5), percentile(buckets, count, 0.99),
+                percentile(buckets, count, 0.999));
+    }
+
+    /**
+     * Highest value of the bucket holding the percentile
+     */
+    private static long percentile(long[] buckets, long count, double percentile) {
+        if(count == 0) return 0;
+        long rank = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if(seen >= rank) return upperBound(i);
+        }
+        return upperBound(buckets.length - 1);
+    }
+
+    static int bucket(long nanos) {
+        if(nanos < SUB_BUCKETS) return nanos < 0 ? 0 : (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int bucket) {
+        if(bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
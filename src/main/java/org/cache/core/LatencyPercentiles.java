@@ -0,0 +1,62 @@
+package org.cache.core;
+
+/**
+ * Percentiles of the latencies of an operation, in nanos
+ */
+public final class LatencyPercentiles {
+
+    private final long count;
+
+    private final long sum;
+
+    private final long p50;
+
+    private final long p99;
+
+    private final long p999;
+
+    public LatencyPercentiles(long count, long sum, long p50, long p99, long p999) {
+        this.count = count;
+        this.sum = sum;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.p999 = p999;
+    }
+
+    /**
+     * Number of recorded operations
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Total of the recorded latencies
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyPercentiles{" +
+                "count=" + count +
+                ", sum=" + sum +
+                ", p50=" + p50 +
+                ", p99=" + p99 +
+                ", p999=" + p999 +
+                '}';
+    }
+}
@@ -0,0 +1,551 @@
+package org.cache.core;
+
+import org.cache.config.CommonConfig;
+import org.cache.disk.DiskEntry;
+import org.cache.disk.DiskStore;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+import static org.cache.config.CommonConfig.LOGGING_LEVEL;
+
+/**
+ * Segment of a cache keyed by primitive longs. The keys are found with an open addressing table using linear probing,
+ * the entries live in parallel arrays and are linked by their index in two recency lists, one of the values in memory
+ * and one of the values on disk. A hit only moves int links, so it allocates nothing.
+ * The values pushed out of memory are written to disk in batches without the segment lock, a value spilling
+ * stays readable until its write is acknowledged and a value changed meanwhile keeps its new state
+ * @param <V> Cache Value object
+ */
+final class LongCacheSegment<V extends Serializable> {
+
+    private final static Logger LOGGER;
+    static {
+        LOGGER = Logger.getLogger(LongCacheSegment.class.getName());
+        LOGGER.setLevel(LOGGING_LEVEL);
+    }
+
+    private static final int INITIAL_ENTRIES = 16;
+
+    private static final int NIL = -1;
+
+    //State of an entry
+    private static final byte FREE = 0;
+    private static final byte MEMORY = 1;
+    private static final byte SPILLING = 2;
+    private static final byte DISK = 3;
+
+    //Recency lists, the entries spilling are in the disk list
+    private static final int MEMORY_LIST = 0;
+    private static final int DISK_LIST = 1;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final DiskStore<Long,V> diskStore;
+
+    private final CacheStats cacheStats;
+
+    private final int capacity;
+
+    private final int memoryCapacity;
+
+    private final int diskPromotionThreshold;
+
+    //Open addressing table, entry index and key of every slot
+    private int[] slots;
+    private long[] slotKeys;
+
+    //Entries by index, the next links of the free entries chain the free list
+    private long[] keys;
+    private Object[] values;
+    private DiskEntry[] diskEntries;
+    private long[] expirationTimes;
+    private byte[] states;
+    private int[] coldReads;
+    private int[] prev;
+    private int[] next;
+
+    //Most and least recent entry of every list
+    private final int[] heads = new int[2];
+    private final int[] tails = new int[2];
+
+    private int freeHead;
+
+    //Entries ever allocated, the ones above are not initialized
+    private int allocated;
+
+    //Counts changed under the lock only, read without it by the size and the metrics
+    private volatile int size;
+
+    //Entries spilling or on disk
+    private volatile int diskSize;
+
+    //Next entry checked by the expiry scan
+    private int expiryCursor;
+
+    /**
+     * @param diskStore store receiving the values pushed out of memory
+     * @param cacheStats statistics of the cache
+     * @param capacity maximum number of entries
+     * @param memoryCapacity maximum number of values in memory
+     * @param diskPromotionThreshold reads served from disk before a value moves back to memory
+     */
+    LongCacheSegment(DiskStore<Long,V> diskStore, CacheStats cacheStats, int capacity, int memoryCapacity, int diskPromotionThreshold) {
+        this.diskStore = diskStore;
+        this.cacheStats = cacheStats;
+        this.capacity = capacity;
+        this.memoryCapacity = memoryCapacity;
+        this.diskPromotionThreshold = diskPromotionThreshold;
+        reset();
+    }
+
+    /**
+     * Spread the bits of a key, the low half picks the table slot and the high half the segment
+     */
+    static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+
+    /**
+     * Value of a key, a value on disk is read and moves back to memory once it is read often enough.
+     * The value on disk is read without the lock, the entry is checked again before the read is counted
+     * @param key key of the value
+     * @param now current time in millis
+     * @return null if the key is missing or expired
+     */
+    V get(long key, long now) {
+        while (true) {
+            DiskEntry diskEntry;
+            lock.lock();
+            try {
+                int index = indexOf(key);
+                if(index == NIL) return null;
+                if(expirationTimes[index] <= now){
+                    removeEntry(index);
+                    return null;
+                }
+                moveToHead(index);
+                if(states[index] != DISK) return valueOf(index);
+                diskEntry = diskEntries[index];
+            } finally {
+                lock.unlock();
+            }
+            //A value released meanwhile stays readable, the memory mapping of its disk segment outlives the file
+            V value;
+            try {
+                value = diskStore.read(diskEntry);
+            } catch (RuntimeException e) {
+                LOGGER.severe(String.format("Unable to read the key %s from disk%n%s", key, e));
+                value = null;
+            }
+            lock.lock();
+            try {
+                int index = indexOf(key);
+                //Updated, removed or promoted meanwhile, the value read may be stale
+                if(index == NIL || states[index] != DISK || diskEntries[index] != diskEntry) continue;
+                if(value == null){
+                    removeEntry(index);
+                    return null;
+                }
+                cacheStats.diskHits.increment();
+                if(++coldReads[index] < diskPromotionThreshold) return value;
+                unlink(DISK_LIST, index);
+                release(index);
+                values[index] = value;
+                states[index] = MEMORY;
+                link(MEMORY_LIST, index);
+                cacheStats.diskPromotions.increment();
+            } finally {
+                lock.unlock();
+            }
+            spill();
+            return value;
+        }
+    }
+
+    /**
+     * @return true if the key is cached and not expired
+     */
+    boolean containsKey(long key, long now) {
+        lock.lock();
+        try {
+            int index = indexOf(key);
+            return index != NIL && expirationTimes[index] > now;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add or replace the value of a key, the least recent entry is evicted if the segment is full
+     * and the least recent values in memory are spilled to disk over the memory capacity
+     * @param key key of the value
+     * @param value value
+     * @param expirationTime time in millis after which the value is expired
+     */
+    void put(long key, V value, long expirationTime) {
+        lock.lock();
+        try {
+            int index = indexOf(key);
+            if(index == NIL){
+                if(size == capacity) removeEntry(tails[DISK_LIST] != NIL ? tails[DISK_LIST] : tails[MEMORY_LIST]);
+                index = allocate(key);
+            }else{
+                unlink(listOf(index), index);
+                release(index);
+            }
+            values[index] = value;
+            expirationTimes[index] = expirationTime;
+            coldReads[index] = 0;
+            states[index] = MEMORY;
+            link(MEMORY_LIST, index);
+            if(size - diskSize <= memoryCapacity) return;
+        } finally {
+            lock.unlock();
+        }
+        spill();
+    }
+
+    /**
+     * Remove a key, a value on disk is read once the entry is removed and its written value is released after the read
+     * @return removed value, null if the key is missing or its value on disk could not be read
+     */
+    V remove(long key) {
+        DiskEntry diskEntry;
+        lock.lock();
+        try {
+            int index = indexOf(key);
+            if(index == NIL) return null;
+            if(states[index] != DISK){
+                V value = valueOf(index);
+                removeEntry(index);
+                return value;
+            }
+            diskEntry = unmapEntry(index);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            return diskStore.read(diskEntry);
+        } catch (RuntimeException e) {
+            LOGGER.severe(String.format("Unable to read the key %s from disk%n%s", key, e));
+            return null;
+        } finally {
+            diskStore.discard(diskEntry);
+        }
+    }
+
+    /**
+     * Remove the expired entries among the next entries of the scan, the scan starts over at the first entry
+     * once it reaches the last one
+     * @param now current time in millis
+     * @param count number of entries checked
+     */
+    void expire(long now, int count) {
+        lock.lock();
+        try {
+            for (int i = 0; i < count && allocated > 0; i++) {
+                if(expiryCursor >= allocated) expiryCursor = 0;
+                int index = expiryCursor++;
+                if(states[index] != FREE && expirationTimes[index] <= now) removeEntry(index);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove every entry, the written values are released
+     */
+    void clear() {
+        lock.lock();
+        try {
+            for (int index = 0; index < allocated; index++) {
+                if(states[index] == DISK) diskStore.discard(diskEntries[index]);
+            }
+            reset();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of entries, read without the lock
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Number of entries spilling or on disk, read without the lock
+     */
+    int diskSize() {
+        return diskSize;
+    }
+
+    /**
+     * Push the least recent values in memory to disk until the memory capacity is respected,
+     * the values are written in batches without the lock
+     */
+    private void spill() {
+        while (true) {
+            int[] victims;
+            List<V> batch;
+            lock.lock();
+            try {
+                int count = Math.min(size - diskSize - memoryCapacity, CommonConfig.SPILL_BATCH_SIZE);
+                if(count <= 0) return;
+                victims = new int[count];
+                batch = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    int index = tails[MEMORY_LIST];
+                    unlink(MEMORY_LIST, index);
+                    states[index] = SPILLING;
+                    link(DISK_LIST, index);
+                    diskSize++;
+                    victims[i] = index;
+                    batch.add(valueOf(index));
+                }
+            } finally {
+                lock.unlock();
+            }
+            if(!write(victims, batch)) return;
+        }
+    }
+
+    /**
+     * Write a batch and acknowledge its entries, the entries changed meanwhile release their written value
+     * @return false if the batch could not be written, its entries are back in memory
+     */
+    private boolean write(int[] victims, List<V> batch) {
+        long start = System.nanoTime();
+        List<DiskEntry> entries;
+        try {
+            entries = diskStore.writeBatch(batch);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.severe(String.format("Unable to spill %s values to disk%n%s", batch.size(), e));
+            lock.lock();
+            try {
+                for (int i = 0; i < victims.length; i++) {
+                    int index = victims[i];
+                    if(!isSpilling(index, batch.get(i))) continue;
+                    unlink(DISK_LIST, index);
+                    diskSize--;
+                    states[index] = MEMORY;
+                    linkTail(MEMORY_LIST, index);
+                }
+            } finally {
+                lock.unlock();
+            }
+            return false;
+        }
+        long elapsed = System.nanoTime() - start;
+        cacheStats.spillTimeSpent.add(elapsed);
+        cacheStats.spillLatency.record(elapsed);
+        cacheStats.spillBatches.increment();
+        lock.lock();
+        try {
+            for (int i = 0; i < victims.length; i++) {
+                int index = victims[i];
+                DiskEntry entry = entries.get(i);
+                cacheStats.spilledBytes.add(entry.getLength());
+                if(isSpilling(index, batch.get(i))){
+                    diskEntries[index] = entry;
+                    values[index] = null;
+                    states[index] = DISK;
+                    cacheStats.spilledNodes.increment();
+                }else{
+                    diskStore.discard(entry);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    //The entry still waits for the write of this value, it was neither updated nor removed nor cleared meanwhile
+    private boolean isSpilling(int index, V value) {
+        return index < states.length && states[index] == SPILLING && values[index] == value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueOf(int index) {
+        return (V) values[index];
+    }
+
+    private int listOf(int index) {
+        return states[index] == MEMORY ? MEMORY_LIST : DISK_LIST;
+    }
+
+    private int indexOf(long key) {
+        int mask = slots.length - 1;
+        for (int slot = (int) hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int index = slots[slot];
+            if(index == NIL || slotKeys[slot] == key) return index;
+        }
+    }
+
+    /**
+     * Take a free entry for a new key and map the key to it, the entry arrays grow until the capacity
+     */
+    private int allocate(long key) {
+        int index = freeHead;
+        if(index != NIL){
+            freeHead = next[index];
+        }else{
+            if(allocated == keys.length) grow();
+            index = allocated++;
+        }
+        keys[index] = key;
+        insertSlot(key, index);
+        size++;
+        return index;
+    }
+
+    /**
+     * Unmap an entry and put it in the free list, its written value is released
+     */
+    private void removeEntry(int index) {
+        DiskEntry diskEntry = unmapEntry(index);
+        if(diskEntry != null) diskStore.discard(diskEntry);
+    }
+
+    /**
+     * Unmap an entry and put it in the free list
+     * @return written value of the entry, to release once read, null if the entry was not on disk
+     */
+    private DiskEntry unmapEntry(int index) {
+        unlink(listOf(index), index);
+        DiskEntry diskEntry = detach(index);
+        deleteSlot(keys[index]);
+        values[index] = null;
+        states[index] = FREE;
+        next[index] = freeHead;
+        freeHead = index;
+        size--;
+        return diskEntry;
+    }
+
+    //Drop the disk state of an entry leaving the disk list, its written value is released
+    private void release(int index) {
+        DiskEntry diskEntry = detach(index);
+        if(diskEntry != null) diskStore.discard(diskEntry);
+    }
+
+    /**
+     * Drop the disk state of an entry leaving the disk list
+     * @return written value of the entry, to release, null if the entry was not on disk
+     */
+    private DiskEntry detach(int index) {
+        if(states[index] == MEMORY) return null;
+        DiskEntry diskEntry = states[index] == DISK ? diskEntries[index] : null;
+        diskEntries[index] = null;
+        diskSize--;
+        return diskEntry;
+    }
+
+    private void insertSlot(long key, int index) {
+        int mask = slots.length - 1;
+        int slot = (int) hash(key) & mask;
+        while (slots[slot] != NIL) slot = (slot + 1) & mask;
+        slots[slot] = index;
+        slotKeys[slot] = key;
+    }
+
+    /**
+     * Empty the slot of a key, the following slots of the probe sequence are shifted back so no tombstone is needed
+     */
+    private void deleteSlot(long key) {
+        int mask = slots.length - 1;
+        int hole = (int) hash(key) & mask;
+        while (slotKeys[hole] != key || slots[hole] == NIL) hole = (hole + 1) & mask;
+        for (int slot = (hole + 1) & mask; slots[slot] != NIL; slot = (slot + 1) & mask) {
+            int home = (int) hash(slotKeys[slot]) & mask;
+            //The key can fill the hole if the hole is between its home slot and its slot
+            if(((slot - home) & mask) >= ((slot - hole) & mask)){
+                slots[hole] = slots[slot];
+                slotKeys[hole] = slotKeys[slot];
+                hole = slot;
+            }
+        }
+        slots[hole] = NIL;
+    }
+
+    private void grow() {
+        int length = Math.min(capacity, keys.length * 2);
+        keys = Arrays.copyOf(keys, length);
+        values = Arrays.copyOf(values, length);
+        diskEntries = Arrays.copyOf(diskEntries, length);
+        expirationTimes = Arrays.copyOf(expirationTimes, length);
+        states = Arrays.copyOf(states, length);
+        coldReads = Arrays.copyOf(coldReads, length);
+        prev = Arrays.copyOf(prev, length);
+        next = Arrays.copyOf(next, length);
+        newTable(length);
+        for (int index = 0; index < allocated; index++) {
+            if(states[index] != FREE) insertSlot(keys[index], index);
+        }
+    }
+
+    private void newTable(int entries) {
+        slots = new int[Integer.highestOneBit(entries * 2 - 1) << 1];
+        slotKeys = new long[slots.length];
+        Arrays.fill(slots, NIL);
+    }
+
+    private void reset() {
+        int length = Math.min(capacity, INITIAL_ENTRIES);
+        keys = new long[length];
+        values = new Object[length];
+        diskEntries = new DiskEntry[length];
+        expirationTimes = new long[length];
+        states = new byte[length];
+        coldReads = new int[length];
+        prev = new int[length];
+        next = new int[length];
+        newTable(length);
+        Arrays.fill(heads, NIL);
+        Arrays.fill(tails, NIL);
+        freeHead = NIL;
+        allocated = 0;
+        size = 0;
+        diskSize = 0;
+        expiryCursor = 0;
+    }
+
+    private void moveToHead(int index) {
+        int list = listOf(index);
+        if(heads[list] == index) return;
+        unlink(list, index);
+        link(list, index);
+    }
+
+    private void link(int list, int index) {
+        prev[index] = NIL;
+        next[index] = heads[list];
+        if(heads[list] != NIL) prev[heads[list]] = index; else tails[list] = index;
+        heads[list] = index;
+    }
+
+    private void linkTail(int list, int index) {
+        next[index] = NIL;
+        prev[index] = tails[list];
+        if(tails[list] != NIL) next[tails[list]] = index; else heads[list] = index;
+        tails[list] = index;
+    }
+
+    private void unlink(int list, int index) {
+        if(prev[index] != NIL) next[prev[index]] = next[index]; else heads[list] = next[index];
+        if(next[index] != NIL) prev[next[index]] = prev[index]; else tails[list] = prev[index];
+    }
+}
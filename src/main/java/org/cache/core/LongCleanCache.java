@@ -0,0 +1,351 @@
+package org.cache.core;
+
+import org.cache.config.CacheConfig;
+import org.cache.config.CommonConfig;
+import org.cache.disk.DiskStore;
+import org.cache.interfaces.LongReplenishCallback;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.cache.config.CommonConfig.DISK_CACHE_PATH;
+
+/**
+ * Cache keyed by primitive longs. The keys are never boxed and the entries are kept in primitive arrays,
+ * so a read served from memory allocates nothing. The values over the memory threshold are spilled to disk
+ * and the expired keys are removed by a background scan. The concurrent misses of a key share one replenish call,
+ * only the misses box their key
+ * @param <V> Cache Value object
+ */
+public class LongCleanCache<V extends Serializable> extends CacheStats implements AutoCloseable {
+
+    // Call back method and will be call while the cache replenish a value
+    private final LongReplenishCallback<V> replenishCallback;
+
+    //Replenish calls in progress, the concurrent misses of a key wait for the same call
+    private final ConcurrentHashMap<Long, CompletableFuture<Optional<V>>> inFlightLoads = new ConcurrentHashMap<>();
+
+    //Time to live in millis of the values put without their own
+    private final long cacheTimeout;
+
+    private final DiskStore<Long,V> diskStore;
+
+    private final LongCacheSegment<V>[] segments;
+
+    private final int segmentMask;
+
+    private final Thread cleanerThread;
+
+    //Platform MBean of the cache, unregistered by the close
+    private final CacheMetrics metrics;
+
+    private boolean closed = false;
+
+    /**
+     * @param cacheConfig settings of the cache, the capacity, the memory threshold, the timeout, the concurrency level,
+     *                    the value serializer and the disk promotion threshold are used
+     * @param replenishCallback loads the missing keys, null if the misses are not loaded
+     */
+    @SuppressWarnings("unchecked")
+    public LongCleanCache(CacheConfig<Long,V> cacheConfig, LongReplenishCallback<V> replenishCallback) {
+        super(cacheConfig.getCapacity(), cacheConfig.getMemoryThresholdSize() != null
+                ? cacheConfig.getMemoryThresholdSize() : cacheConfig.getCapacity() / 2);
+        this.replenishCallback = replenishCallback;
+        this.cacheTimeout = cacheConfig.getCacheTimeout();
+        this.diskStore = new DiskStore<>(new File(DISK_CACHE_PATH, uuid), CommonConfig.DISK_SEGMENT_SIZE, false, this,
+                cacheConfig.getValueSerializer());
+        int segmentCount = 1;
+        while (segmentCount < cacheConfig.getConcurrencyLevel()) segmentCount <<= 1;
+        this.segments = new LongCacheSegment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new LongCacheSegment<>(diskStore, this, (int) ((capacity + segmentCount - 1) / segmentCount),
+                    (int) (memoryThresholdSize / segmentCount), cacheConfig.getDiskPromotionThreshold());
+        }
+        this.segmentMask = segmentCount - 1;
+        this.cleanerThread = startCleanerThread();
+        this.metrics = new CacheMetrics(uuid, this, gauges());
+        metrics.register();
+    }
+
+    /**
+     * Object mapped with the key, a missing key is loaded by the replenish callback
+     * @param key key of the cached object
+     * @return null if the key is missing and could not be loaded
+     */
+    public V get(long key) {
+        long start = System.nanoTime();
+        this.accessCount.increment();
+        V value = segment(key).get(key, System.currentTimeMillis());
+        if(value != null){
+            this.getHitLatency.record(System.nanoTime() - start);
+            return value;
+        }
+        this.missCount.increment();
+        if(this.replenishCallback != null) value = replenish(key);
+        this.getMissLatency.record(System.nanoTime() - start);
+        return value;
+    }
+
+    public boolean containsKey(long key) {
+        return segment(key).containsKey(key, System.currentTimeMillis());
+    }
+
+    /**
+     * Add an object with the time to live of the cache
+     * @param key key for the object
+     * @param value object
+     */
+    public void put(long key, V value) {
+        put(key, value, this.cacheTimeout);
+    }
+
+    /**
+     * Add an object with its own time to live
+     * @param key key for the object
+     * @param value object
+     * @param ttl time to live in millis
+     */
+    public void put(long key, V value, long ttl) {
+        if(value == null) return;
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        segment(key).put(key, value, ttl >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + ttl);
+        this.putLatency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Remove the object mapped with the key
+     * @param key key of the cached object
+     * @return removed object, null if the key is missing
+     */
+    public V remove(long key) {
+        return segment(key).remove(key);
+    }
+
+    public void clear() {
+        for (LongCacheSegment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (LongCacheSegment<V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long getCapacity() {
+        return this.capacity;
+    }
+
+    public CacheStatistics getCacheStatistics() {
+        long size = 0;
+        long diskSize = 0;
+        for (LongCacheSegment<V> segment : segments) {
+            size += segment.size();
+            diskSize += segment.diskSize();
+        }
+        return new CacheStatistics().setTotalCacheSize(this.getCapacity())
+                .setMemorySize(size - diskSize)
+                .setCurrentDiskSize(diskSize)
+                .setTotalAccessCount(this.accessCount.sum())
+                .setHitRatio(this.calculateHitRatio())
+                .setMissRatio(this.calculateMissRatio())
+                .setAvgValueReplenishmentTimeSpent(averageMillis(this.replenishmentTimeSpent.sum(), this.replenishCount.sum()))
+                .setReplenishCoalesced(this.replenishCoalesced.sum())
+                .setSpilledNodes(this.spilledNodes.sum())
+                .setSpillBatches(this.spillBatches.sum())
+                .setSpillThroughput(this.calculateSpillThroughput())
+                .setDiskHits(this.diskHits.sum())
+                .setDiskPromotions(this.diskPromotions.sum())
+                .setDiskLiveBytes(this.diskStore.getLiveBytes())
+                .setDiskDeadBytes(this.diskStore.getDeadBytes())
+                .setGetHitLatency(this.getHitLatency.snapshot())
+                .setGetMissLatency(this.getMissLatency.snapshot())
+                .setPutLatency(this.putLatency.snapshot())
+                .setReplenishLatency(this.replenishLatency.snapshot())
+                .setSpillLatency(this.spillLatency.snapshot())
+                .setDiskReadLatency(this.diskReadLatency.snapshot())
+                .setTotalWeight(size)
+                .setMemoryWeight(size - diskSize)
+                .setDiskWeight(diskSize);
+    }
+
+    /**
+     * Live statistics of the cache, registered as a platform MBean until the cache is closed
+     */
+    public CacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Close the cache once the cleaner thread is stopped, its disk tier is deleted
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if(closed) return;
+            closed = true;
+        }
+        metrics.unregister();
+        cleanerThread.interrupt();
+        try {
+            cleanerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        diskStore.close(Collections.emptyList());
+    }
+
+    private long diskSize() {
+        long diskSize = 0;
+        for (LongCacheSegment<V> segment : segments) {
+            diskSize += segment.diskSize();
+        }
+        return diskSize;
+    }
+
+    /**
+     * Sizes of the cache read by its metrics, every key weighs 1 and nothing is kept off heap.
+     * The counts of the segments are read without their locks
+     */
+    private CacheGauges gauges() {
+        return new CacheGauges() {
+            @Override
+            public long size() {
+                return LongCleanCache.this.size();
+            }
+
+            @Override
+            public long memorySize() {
+                return LongCleanCache.this.size() - LongCleanCache.this.diskSize();
+            }
+
+            @Override
+            public long offHeapSize() {
+                return 0;
+            }
+
+            @Override
+            public long diskSize() {
+                return LongCleanCache.this.diskSize();
+            }
+
+            @Override
+            public long negativeSize() {
+                return 0;
+            }
+
+            @Override
+            public long totalWeight() {
+                return size();
+            }
+
+            @Override
+            public long memoryWeight() {
+                return memorySize();
+            }
+
+            @Override
+            public long offHeapWeight() {
+                return 0;
+            }
+
+            @Override
+            public long diskWeight() {
+                return diskSize();
+            }
+
+            @Override
+            public long spillQueueDepth() {
+                return 0;
+            }
+
+            @Override
+            public long diskLiveBytes() {
+                return diskStore.getLiveBytes();
+            }
+
+            @Override
+            public long diskDeadBytes() {
+                return diskStore.getDeadBytes();
+            }
+        };
+    }
+
+    private LongCacheSegment<V> segment(long key) {
+        return segments[(int) (LongCacheSegment.hash(key) >>> 32) & segmentMask];
+    }
+
+    /**
+     * Load a missing key with the replenish callback and cache the value found.
+     * The concurrent misses of the key wait for the call in progress instead of calling the callback again
+     */
+    private V replenish(long key) {
+        CompletableFuture<Optional<V>> load = new CompletableFuture<>();
+        CompletableFuture<Optional<V>> inFlightLoad = inFlightLoads.putIfAbsent(key, load);
+        if(inFlightLoad != null){
+            this.replenishCoalesced.increment();
+            return join(inFlightLoad).orElse(null);
+        }
+        try {
+            long start = System.nanoTime();
+            Optional<V> value = this.replenishCallback.call(key);
+            long elapsed = System.nanoTime() - start;
+            this.replenishCount.increment();
+            this.replenishmentTimeSpent.add(elapsed);
+            this.replenishLatency.record(elapsed);
+            if(value == null) value = Optional.empty();
+            if(value.isPresent()) put(key, value.get());
+            load.complete(value);
+            return value.orElse(null);
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(key, load);
+        }
+    }
+
+    /**
+     * Wait for a load in progress, its failure is thrown as is
+     */
+    private static <V> Optional<V> join(CompletableFuture<Optional<V>> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if(e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Clear thread for removing the expired keys, a batch of entries of every segment is checked every tick
+     */
+    private Thread startCleanerThread() {
+        Thread thread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(CommonConfig.TIMER_WHEEL_TICK);
+                    long now = System.currentTimeMillis();
+                    for (LongCacheSegment<V> segment : segments) {
+                        segment.expire(now, CommonConfig.EXPIRY_SCAN_BATCH_SIZE);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
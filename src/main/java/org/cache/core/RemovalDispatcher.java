@@ -0,0 +1,157 @@
+package org.cache.core;
+
+import org.cache.config.CommonConfig;
+import org.cache.disk.DiskStore;
+import org.cache.interfaces.RemovalListener;
+import org.cache.model.RemovalCause;
+import org.cache.model.RemovedValue;
+
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.cache.config.CommonConfig.LOGGING_LEVEL;
+
+/**
+ * Delivers the removal notifications of a cache off the request and cleaner threads. A removal only queues
+ * its notification, one drain task at a time runs on the executor and delivers the queued notifications
+ * in batches, so the listener sees them in the order of the removals. A removed value left on disk is read
+ * by the drain task, the removal only hands over its location
+ * @param <K> Cache Key Type
+ * @param <V> Cache Value object
+ */
+final class RemovalDispatcher<K,V extends Serializable> {
+
+    private final static Logger LOGGER;
+    static {
+        LOGGER = Logger.getLogger(RemovalDispatcher.class.getName());
+        LOGGER.setLevel(LOGGING_LEVEL);
+    }
+
+    private final RemovalListener<K,V> listener;
+
+    private final Executor executor;
+
+    //Store of the removed values handed over by their location on disk
+    private final DiskStore<K,V> diskStore;
+
+    private final ConcurrentLinkedQueue<RemovalEvent<K,V>> events = new ConcurrentLinkedQueue<>();
+
+    //Set while a drain task is queued or running
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * @param listener listener of the removals, null if nobody listens
+     * @param executor runs the drain tasks
+     * @param diskStore store of the removed values left on disk
+     */
+    RemovalDispatcher(RemovalListener<K,V> listener, Executor executor, DiskStore<K,V> diskStore) {
+        this.listener = listener;
+        this.executor = executor;
+        this.diskStore = diskStore;
+    }
+
+    /**
+     * @return false if nobody listens, the removed values do not need to be read
+     */
+    boolean isEnabled() {
+        return listener != null;
+    }
+
+    /**
+     * Queue a notification
+     * @param value removed value, null for a negative key or a value collected by the garbage collector
+     */
+    void dispatch(K key, V value, RemovalCause cause) {
+        if(listener == null) return;
+        events.add(new RemovalEvent<>(key, value, null, cause));
+        schedule();
+    }
+
+    /**
+     * Queue a notification of a value taken out of a node. A value off heap is read right away
+     * so its room is given back, a value on disk is read by the drain task
+     */
+    void dispatch(K key, RemovedValue<V> removedValue, RemovalCause cause) {
+        if(listener == null){
+            removedValue.release(diskStore);
+        }else if(removedValue.isOnDisk()){
+            events.add(new RemovalEvent<>(key, null, removedValue, cause));
+            schedule();
+        }else{
+            dispatch(key, removedValue.read(diskStore), cause);
+        }
+    }
+
+    private void schedule() {
+        if(events.isEmpty() || !scheduled.compareAndSet(false, true)) return;
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            scheduled.set(false);
+            int dropped = 0;
+            RemovalEvent<K,V> event;
+            while ((event = events.poll()) != null) {
+                if(event.removedValue != null) event.removedValue.release(diskStore);
+                dropped++;
+            }
+            LOGGER.severe(String.format("The removal listener executor rejected the notifications, %s dropped%n%s", dropped, e));
+        }
+    }
+
+    /**
+     * Deliver a batch of notifications, the next batch is left to a new task so a busy cache
+     * does not keep an executor thread for itself
+     */
+    private void drain() {
+        try {
+            RemovalEvent<K,V> event;
+            for (int i = 0; i < CommonConfig.REMOVAL_BATCH_SIZE && (event = events.poll()) != null; i++) {
+                try {
+                    listener.onRemoval(event.key, event.removedValue != null ? read(event.key, event.removedValue) : event.value, event.cause);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "The removal listener failed for the key " + event.key, e);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+        }
+        schedule();
+    }
+
+    /**
+     * Read a removed value on disk a last time, its location is discarded even if the read fails
+     * @return null if the value could not be read
+     */
+    private V read(K key, RemovedValue<V> removedValue) {
+        try {
+            return removedValue.read(diskStore);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "The removed value could not be read for the key " + key, e);
+            return null;
+        }
+    }
+
+    private static final class RemovalEvent<K,V extends Serializable> {
+
+        private final K key;
+
+        private final V value;
+
+        //Value left on disk, read by the drain task
+        private final RemovedValue<V> removedValue;
+
+        private final RemovalCause cause;
+
+        private RemovalEvent(K key, V value, RemovedValue<V> removedValue, RemovalCause cause) {
+            this.key = key;
+            this.value = value;
+            this.removedValue = removedValue;
+            this.cause = cause;
+        }
+    }
+}
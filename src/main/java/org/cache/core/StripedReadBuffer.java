@@ -0,0 +1,86 @@
+package org.cache.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Lossy striped ring buffers recording the cache hits of a segment.
+ * A thread writes in the stripe picked by its id, a full or contended stripe drops the element.
+ * Elements are drained while holding the segment lock.
+ * @param <E> buffered element type
+ */
+final class StripedReadBuffer<E> {
+
+    //Number of slots of a stripe, must be a power of two
+    static final int BUFFER_SIZE = 16;
+
+    //Number of pending elements of a stripe which asks for a drain
+    static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+
+    private static final int MASK = BUFFER_SIZE - 1;
+
+    //Counters of a stripe are 8 longs apart so two stripes never share a cache line
+    private static final int PADDING = 8;
+
+    private final int stripeMask;
+
+    private final AtomicReferenceArray<E> slots;
+
+    private final AtomicLongArray writeCounters;
+
+    private final AtomicLongArray readCounters;
+
+    StripedReadBuffer() {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors()) stripes <<= 1;
+        this.stripeMask = stripes - 1;
+        this.slots = new AtomicReferenceArray<>(stripes * BUFFER_SIZE);
+        this.writeCounters = new AtomicLongArray(stripes * PADDING);
+        this.readCounters = new AtomicLongArray(stripes * PADDING);
+    }
+
+    /**
+     * Record an element, the element is dropped if its stripe is full or contended
+     * @param element element to record
+     * @return true if the stripe should be drained
+     */
+    boolean offer(E element) {
+        int stripe = stripe();
+        int counter = stripe * PADDING;
+        long tail = writeCounters.get(counter);
+        long size = tail - readCounters.get(counter);
+        if(size >= BUFFER_SIZE) return true;
+        if(writeCounters.compareAndSet(counter, tail, tail + 1)) {
+            slots.lazySet(stripe * BUFFER_SIZE + (int) (tail & MASK), element);
+            return size + 1 >= DRAIN_THRESHOLD;
+        }
+        return false;
+    }
+
+    /**
+     * Replay all the recorded elements, must be called by one thread at a time
+     * @param consumer consumer of the elements
+     */
+    void drainTo(Consumer<E> consumer) {
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            int counter = stripe * PADDING;
+            long head = readCounters.get(counter);
+            long tail = writeCounters.get(counter);
+            for (; head < tail; head++) {
+                int index = stripe * BUFFER_SIZE + (int) (head & MASK);
+                E element = slots.get(index);
+                //Slot claimed but not yet published, take it in the next drain
+                if(element == null) break;
+                slots.lazySet(index, null);
+                consumer.accept(element);
+            }
+            readCounters.lazySet(counter, head);
+        }
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & stripeMask;
+    }
+}
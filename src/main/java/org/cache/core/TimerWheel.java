@@ -0,0 +1,128 @@
+package org.cache.core;
+
+import org.cache.model.CacheNode;
+
+import java.io.Serializable;
+import java.util.function.Predicate;
+
+/**
+ * Hierarchical timing wheel of the expiring nodes of a segment.
+ * Every level has 64 buckets, a bucket of a level spans 64 times the bucket of the level below.
+ * The nodes are linked in the buckets through their own timer links, so scheduling and rescheduling
+ * a node is O(1) and does not allocate. When the time moves the elapsed buckets are processed at once,
+ * the expired nodes are removed and the others cascade to a lower level.
+ * Must be used while holding the segment lock.
+ * @param <K> Cache Key Type
+ * @param <V> Cache Value object
+ */
+final class TimerWheel<K,V extends Serializable> {
+
+    static final int BUCKETS = 64;
+
+    //Bucket span of every level, in ticks
+    private static final long[] SPANS = {1L, 64L, 64L * 64L, 64L * 64L * 64L};
+
+    private final long tick;
+
+    //Sentinels of the circular bucket lists
+    private final CacheNode<K,V>[][] wheel;
+
+    //Time of the last advance in millis
+    private long currentTime;
+
+    @SuppressWarnings("unchecked")
+    TimerWheel(long tick, long currentTime) {
+        this.tick = tick;
+        this.currentTime = currentTime;
+        this.wheel = new CacheNode[SPANS.length][BUCKETS];
+        for (CacheNode<K,V>[] buckets : wheel) {
+            for (int i = 0; i < BUCKETS; i++) {
+                CacheNode<K,V> sentinel = new CacheNode<>(null, null);
+                sentinel.setTimerPrev(sentinel);
+                sentinel.setTimerNext(sentinel);
+                buckets[i] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Add the node in the bucket of its expiration time, or move it there if it is already scheduled
+     * @param cacheNode node to schedule
+     */
+    void schedule(CacheNode<K,V> cacheNode) {
+        deschedule(cacheNode);
+        CacheNode<K,V> sentinel = findBucket(cacheNode.getExpirationTime());
+        CacheNode<K,V> last = sentinel.getTimerPrev();
+        cacheNode.setTimerPrev(last);
+        cacheNode.setTimerNext(sentinel);
+        last.setTimerNext(cacheNode);
+        sentinel.setTimerPrev(cacheNode);
+    }
+
+    /**
+     * Remove the node from its bucket, nothing happens if it is not scheduled
+     * @param cacheNode node to remove
+     */
+    void deschedule(CacheNode<K,V> cacheNode) {
+        if(cacheNode.getTimerNext() == null) return;
+        cacheNode.getTimerPrev().setTimerNext(cacheNode.getTimerNext());
+        cacheNode.getTimerNext().setTimerPrev(cacheNode.getTimerPrev());
+        cacheNode.setTimerPrev(null);
+        cacheNode.setTimerNext(null);
+    }
+
+    /**
+     * Move the wheel to the current time and process the elapsed buckets
+     * @param now current time in millis
+     * @param expirer removes an expired node, returns false if the node has to stay scheduled
+     */
+    void advance(long now, Predicate<CacheNode<K,V>> expirer) {
+        long previousTime = currentTime;
+        if(now <= previousTime) return;
+        currentTime = now;
+        for (int level = 0; level < SPANS.length; level++) {
+            long span = tick * SPANS[level];
+            long previousTicks = previousTime / span;
+            long delta = now / span - previousTicks;
+            if(delta <= 0) break;
+            expire(level, previousTicks, delta, now, expirer);
+        }
+    }
+
+    /**
+     * Process the buckets of a level from the previous one to the current one
+     */
+    private void expire(int level, long previousTicks, long delta, long now, Predicate<CacheNode<K,V>> expirer) {
+        long count = Math.min(delta + 1, BUCKETS);
+        for (long i = 0; i < count; i++) {
+            CacheNode<K,V> sentinel = wheel[level][(int) ((previousTicks + i) & (BUCKETS - 1))];
+            //Detach the whole bucket, the nodes which are not expired are scheduled again
+            CacheNode<K,V> cacheNode = sentinel.getTimerNext();
+            sentinel.setTimerPrev(sentinel);
+            sentinel.setTimerNext(sentinel);
+            while (cacheNode != sentinel) {
+                CacheNode<K,V> next = cacheNode.getTimerNext();
+                cacheNode.setTimerPrev(null);
+                cacheNode.setTimerNext(null);
+                if(cacheNode.getExpirationTime() > now || !expirer.test(cacheNode)){
+                    schedule(cacheNode);
+                }
+                cacheNode = next;
+            }
+        }
+    }
+
+    /**
+     * Bucket of the lowest level which can hold the expiration time
+     */
+    private CacheNode<K,V> findBucket(long expirationTime) {
+        //An expired node goes to the current bucket
+        long time = Math.max(expirationTime, currentTime);
+        long duration = time - currentTime;
+        int level = 0;
+        while (level < SPANS.length - 1 && duration >= tick * SPANS[level + 1]) {
+            level++;
+        }
+        return wheel[level][(int) ((time / (tick * SPANS[level])) & (BUCKETS - 1))];
+    }
+}
@@ -0,0 +1,158 @@
+package org.cache.disk;
+
+import org.cache.config.CommonConfig;
+import org.cache.core.CacheStats;
+import org.cache.model.CacheNode;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Background compaction of the disk store. The sealed segments whose live bytes fell under the live ratio
+ * are rewritten at the end of the log, so the space of the removed, updated and expired values is reclaimed.
+ * The copies are paced to the I/O budget, the writer pauses after every batch for the time the batch takes at the budget rate.
+ * The same thread writes the index of a durable store at every checkpoint interval, so a crash loses at most the keys spilled since
+ * @param <K> Cache Key Type
+ * @param <V> Cache Value object
+ */
+public class DiskCompactor<K,V extends Serializable> {
+
+    private final static Logger LOGGER;
+    static {
+        LOGGER = Logger.getLogger(DiskCompactor.class.getName());
+        LOGGER.setLevel(CommonConfig.LOGGING_LEVEL);
+    }
+
+    private final DiskStore<K,V> diskStore;
+
+    private final Function<K, CacheNode<K,V>> nodes;
+
+    private final double liveRatio;
+
+    private final long bytesPerSecond;
+
+    //Nodes of the cache written in the index at every checkpoint, null if the store is not durable
+    private final Collection<CacheNode<K,V>> checkpointNodes;
+
+    private final long checkpointInterval;
+
+    //Guards the closed flag, the compactor waits on it between the batches
+    private final Object lock = new Object();
+
+    private boolean closed = false;
+
+    private Thread compactorThread;
+
+    /**
+     * @param diskStore store to compact
+     * @param nodes node of a key in the cache
+     * @param liveRatio part of live bytes under which a segment is compacted, 0 disables the compaction
+     * @param bytesPerSecond maximum number of bytes copied per second
+     * @param checkpointNodes live view of the nodes of the cache, null if the store is not durable
+     * @param checkpointInterval millis between the index checkpoints
+     */
+    public DiskCompactor(DiskStore<K,V> diskStore, Function<K, CacheNode<K,V>> nodes, double liveRatio, long bytesPerSecond,
+                         Collection<CacheNode<K,V>> checkpointNodes, long checkpointInterval) {
+        this.diskStore = diskStore;
+        this.nodes = nodes;
+        this.liveRatio = liveRatio;
+        this.bytesPerSecond = bytesPerSecond;
+        this.checkpointNodes = checkpointNodes;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Start the compactor thread, it checks the segments every compaction interval and writes the index
+     * every checkpoint interval until it is closed
+     */
+    public void start() {
+        if(liveRatio <= 0 && checkpointNodes == null) return;
+        long tick = checkpointNodes == null ? CommonConfig.COMPACTION_INTERVAL
+                : Math.min(CommonConfig.COMPACTION_INTERVAL, checkpointInterval);
+        compactorThread = new Thread(() -> {
+            long nextCheckpoint = System.currentTimeMillis() + checkpointInterval;
+            while (pause(tick)) {
+                while (liveRatio > 0 && compact() > 0 && !isClosed()) {
+                    //Next segment under the live ratio
+                }
+                if(checkpointNodes != null && System.currentTimeMillis() >= nextCheckpoint){
+                    checkpoint();
+                    nextCheckpoint = System.currentTimeMillis() + checkpointInterval;
+                }
+            }
+        });
+        compactorThread.setDaemon(true);
+        compactorThread.start();
+    }
+
+    /**
+     * Stop the compactor thread, a batch being written is completed first
+     */
+    public void close() throws InterruptedException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        if(compactorThread != null) compactorThread.join();
+    }
+
+    /**
+     * Compact one segment
+     * @return bytes of the values moved
+     */
+    private long compact() {
+        CacheStats cacheStats = diskStore.getCacheStats();
+        long start = System.nanoTime();
+        try {
+            long moved = diskStore.compact(liveRatio, nodes, copied -> pause(copied * 1000 / bytesPerSecond));
+            if(moved > 0){
+                cacheStats.compactedBytes.add(moved);
+                cacheStats.compactionTimeSpent.add(System.nanoTime() - start);
+            }
+            return moved;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.severe(String.format("Unable to compact the disk store%n%s", e));
+            return 0;
+        }
+    }
+
+    /**
+     * Write the index of the nodes on disk
+     */
+    private void checkpoint() {
+        try {
+            diskStore.checkpoint(checkpointNodes);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.severe(String.format("Unable to write the disk index%n%s", e));
+        }
+    }
+
+    /**
+     * Wait without interrupting the thread, an interrupt would close the channel of the segment being written
+     * @return false if the compactor is closed
+     */
+    private boolean pause(long millis) {
+        long deadline = System.currentTimeMillis() + millis;
+        synchronized (lock) {
+            long remaining;
+            while (!closed && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                try {
+                    lock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return !closed;
+        }
+    }
+
+    private boolean isClosed() {
+        synchronized (lock) {
+            return closed;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.cache.disk;
+
+/**
+ * Location of a value in the disk store, the index maps every key on disk to its entry
+ */
+public final class DiskEntry {
+
+    private final DiskSegment segment;
+
+    private final int offset;
+
+    private final int length;
+
+    DiskEntry(DiskSegment segment, int offset, int length) {
+        this.segment = segment;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    DiskSegment getSegment() {
+        return segment;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+}
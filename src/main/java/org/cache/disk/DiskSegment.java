@@ -0,0 +1,158 @@
+package org.cache.disk;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-allocated append only file of the disk store. The values are appended through the file channel
+ * and read through a memory mapping of the whole file, so a read does not need any system call
+ */
+final class DiskSegment {
+
+    private final int id;
+
+    private final File file;
+
+    private final RandomAccessFile randomAccessFile;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer mappedBuffer;
+
+    private final int capacity;
+
+    //Next append offset, only changed under the store write lock
+    private int writeOffset;
+
+    //Bytes of the values still referenced by the index
+    private final AtomicLong liveBytes = new AtomicLong();
+
+    //No append is done in a sealed segment anymore
+    private volatile boolean sealed;
+
+    private boolean closed;
+
+    DiskSegment(int id, File file, int capacity) throws IOException {
+        this.id = id;
+        this.file = file;
+        this.capacity = capacity;
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        this.randomAccessFile.setLength(capacity);
+        this.channel = randomAccessFile.getChannel();
+        this.mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, capacity);
+    }
+
+    /**
+     * Reopen a segment file written by a previous instance of the store, it is sealed at once
+     * and its values count as live only once they are retained by the recovered index
+     */
+    static DiskSegment open(int id, File file) throws IOException {
+        DiskSegment segment = new DiskSegment(id, file, (int) file.length());
+        segment.writeOffset = segment.capacity;
+        segment.sealed = true;
+        return segment;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    int remaining() {
+        return capacity - writeOffset;
+    }
+
+    int getWriteOffset() {
+        return writeOffset;
+    }
+
+    /**
+     * Append values at the end of the segment with one gather write
+     * @param values serialized values, read from their position to their limit
+     * @return offset of the first value
+     */
+    int append(ByteBuffer[] values) throws IOException {
+        int offset = writeOffset;
+        long length = 0;
+        for (ByteBuffer value : values) {
+            length += value.remaining();
+        }
+        channel.position(offset);
+        long written = 0;
+        while (written < length) {
+            written += channel.write(values);
+        }
+        writeOffset += (int) length;
+        liveBytes.addAndGet(length);
+        return offset;
+    }
+
+    /**
+     * View of a value in the memory mapping, no copy is done
+     */
+    ByteBuffer read(int offset, int length) {
+        ByteBuffer buffer = mappedBuffer.duplicate();
+        ((Buffer) buffer).position(offset);
+        ((Buffer) buffer).limit(offset + length);
+        return buffer.slice();
+    }
+
+    /**
+     * Count a recovered value as referenced
+     */
+    void retain(int length) {
+        liveBytes.addAndGet(length);
+    }
+
+    /**
+     * Forget a value which is not referenced anymore
+     * @return true if the segment is sealed and has no value left, it can be deleted
+     */
+    boolean release(int length) {
+        return liveBytes.addAndGet(-length) == 0 && sealed;
+    }
+
+    /**
+     * Stop appending to the segment
+     * @return true if the segment has no value left, it can be deleted
+     */
+    boolean seal() {
+        sealed = true;
+        return liveBytes.get() == 0;
+    }
+
+    long getLiveBytes() {
+        return liveBytes.get();
+    }
+
+    /**
+     * Force the appended values to the storage device
+     */
+    synchronized void flush() throws IOException {
+        if(!closed) channel.force(false);
+    }
+
+    /**
+     * Close the file, the memory mapping stays readable until it is garbage collected
+     * @return false if the file was already closed
+     */
+    synchronized boolean close() throws IOException {
+        if(closed) return false;
+        closed = true;
+        channel.close();
+        randomAccessFile.close();
+        return true;
+    }
+
+    /**
+     * Close and delete the file
+     */
+    synchronized void delete() throws IOException {
+        if(close() && !file.delete()) throw new IOException("Unable to delete the disk segment " + file);
+    }
+}
@@ -0,0 +1,634 @@
+package org.cache.disk;
+
+import org.cache.config.CommonConfig;
+import org.cache.config.CommonMessage;
+import org.cache.config.CommonUtils;
+import org.cache.core.CacheStats;
+
+import org.cache.interfaces.ValueSerializer;
+import org.cache.model.CacheNode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Log structured disk tier of a cache. The values are appended to large pre-allocated segment files
+ * and read back through memory mappings, a heap index maps every key on disk to its segment, offset and length.
+ * A segment file is deleted once it is full and none of its values is referenced anymore.
+ * A durable store writes its index next to the segment files at every checkpoint and when it is closed, the next store
+ * opened on the same directory reads it back and serves the keys from the same files, after a crash the keys
+ * spilled since the last checkpoint are lost.
+ * Every store holds a lock file in its directory while it is open, so a directory is used by one store at a time.
+ * The directories of the stores which are not durable left without a held lock by a JVM which crashed
+ * are deleted by the first store of the next JVM
+ * @param <K> Cache Key Type
+ * @param <V> Cache Value object
+ */
+public class DiskStore<K,V extends Serializable> {
+
+    private static final int INITIAL_WRITE_BUFFER_SIZE = 4096;
+
+    private static final String INDEX_FILE = "index.data";
+
+    private static final int INDEX_VERSION = 1;
+
+    private static final String LOCK_FILE = "store.lock";
+
+    //Directory names of the stores which are not durable, the random uuid of their cache
+    private static final Pattern UUID_DIRECTORY = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    //Set by the first store which is not durable, the directories left by the previous JVMs are swept once
+    private static final AtomicBoolean SWEPT = new AtomicBoolean();
+
+    //Directories locked by the stores of this JVM, their lock file must not be opened again as closing it would release the lock
+    private static final Set<String> LOCKED = ConcurrentHashMap.newKeySet();
+
+    private final static Logger LOGGER;
+    static {
+        LOGGER = Logger.getLogger(DiskStore.class.getName());
+        LOGGER.setLevel(CommonConfig.LOGGING_LEVEL);
+    }
+
+    private final File directory;
+
+    private final int segmentSize;
+
+    private final CacheStats cacheStats;
+
+    private final ValueSerializer<V> serializer;
+
+    //Directory and index kept when the store is closed
+    private final boolean durable;
+
+    //Location of every key on disk
+    private final ConcurrentHashMap<K, DiskEntry> index = new ConcurrentHashMap<>();
+
+    //Segment files not deleted yet
+    private final Set<DiskSegment> segments = ConcurrentHashMap.newKeySet();
+
+    private final Object writeLock = new Object();
+
+    //One index file is written at a time, by a checkpoint or the close
+    private final Object indexLock = new Object();
+
+    //Segment receiving the appends, created by the first write
+    private volatile DiskSegment activeSegment;
+
+    private int nextSegmentId;
+
+    //Lock file held while the store is open, taken by the recovery of a durable store or with the directory of an other one
+    private FileChannel lockChannel;
+
+    //Reused for every batch, the values are serialized straight into it
+    private ByteBuffer writeBuffer = ByteBuffer.allocateDirect(INITIAL_WRITE_BUFFER_SIZE);
+
+    /**
+     * @param directory directory of the segment files, created by the first write
+     * @param segmentSize size of a segment file in bytes
+     * @param durable true to keep the directory and the index when the store is closed
+     * @param cacheStats statistics of the cache
+     * @param serializer converts the values to bytes
+     */
+    public DiskStore(File directory, int segmentSize, boolean durable, CacheStats cacheStats, ValueSerializer<V> serializer) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.durable = durable;
+        this.cacheStats = cacheStats;
+        this.serializer = serializer;
+        //The files of a store which is not durable never outlive the JVM, the directory is registered first to be deleted last
+        if(!durable) directory.deleteOnExit();
+        if(!durable && SWEPT.compareAndSet(false, true)) sweep(directory.getParentFile());
+    }
+
+    /**
+     * Delete the directories of the stores which are not durable left by a JVM which did not close them,
+     * their lock file is missing or not held anymore. A directory modified lately is kept, its store
+     * may not have taken its lock yet
+     * @param root parent directory of the stores
+     */
+    public static void sweep(File root) {
+        long staleTime = System.currentTimeMillis() - CommonConfig.STALE_DISK_DIRECTORY_AGE;
+        File[] directories = root.listFiles(file -> file.isDirectory() && UUID_DIRECTORY.matcher(file.getName()).matches()
+                && file.lastModified() < staleTime);
+        if(directories == null) return;
+        for (File stale : directories) {
+            if(isLocked(stale)) continue;
+            try {
+                CommonUtils.deleteDirectory(stale.getPath());
+                LOGGER.info(String.format("Deleted the disk directory %s left by a cache which was not closed", stale));
+            } catch (IOException e) {
+                LOGGER.warning(String.format("Unable to delete the disk directory %s%n%s", stale, e));
+            }
+        }
+    }
+
+    /**
+     * @return true if an open store holds the lock file of the directory
+     */
+    private static boolean isLocked(File directory) {
+        File lockFile = new File(directory, LOCK_FILE);
+        if(LOCKED.contains(lockFile.getAbsolutePath())) return true;
+        if(!lockFile.exists()) return false;
+        try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.WRITE)) {
+            FileLock lock = channel.tryLock();
+            if(lock == null) return true;
+            lock.release();
+            return false;
+        } catch (OverlappingFileLockException | IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Hold the lock file of the store until it is closed
+     * @throws IllegalStateException if an other store of this JVM or of an other process holds it
+     */
+    private void lock() throws IOException {
+        File lockFile = new File(directory, LOCK_FILE);
+        String path = lockFile.getAbsolutePath();
+        if(!LOCKED.add(path)) throw new IllegalStateException(CommonMessage.CACHE_NAME_IS_IN_USE);
+        FileChannel channel = null;
+        try {
+            if(!durable) lockFile.deleteOnExit();
+            channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if(channel.tryLock() == null) throw new IllegalStateException(CommonMessage.CACHE_NAME_IS_IN_USE);
+            lockChannel = channel;
+        } catch (IOException | RuntimeException e) {
+            LOCKED.remove(path);
+            if(channel != null) channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reopen the segment files and the index written by the last checkpoint or close of a durable store on the same directory.
+     * The lock file of the directory is taken first, no file is touched while an other store has it open.
+     * The index file is kept until the next checkpoint replaces it, so a crash meanwhile recovers the same keys again.
+     * The segment files it does not reference are deleted and the ids of the ones it references are never reused,
+     * the new values are appended to new segments which it can not reference
+     * @param now current time in millis, the keys expired meanwhile are not recovered
+     * @return nodes on disk of the recovered keys, the oldest writes first
+     * @throws IllegalStateException if an other open store uses the directory
+     */
+    @SuppressWarnings("unchecked")
+    public List<CacheNode<K,V>> recover(long now) {
+        List<CacheNode<K,V>> nodes = new ArrayList<>();
+        if(!durable) return nodes;
+        try {
+            CommonUtils.createNewDirectory(directory.getParent());
+            CommonUtils.createNewDirectory(directory.getPath());
+            lock();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<IndexRecord> records = new ArrayList<>();
+        File indexFile = new File(directory, INDEX_FILE);
+        if(indexFile.exists()){
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+                if(in.readInt() != INDEX_VERSION) throw new IOException("Unknown disk index version");
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    records.add(new IndexRecord(in.readObject(), in.readInt(), in.readInt(), in.readInt(),
+                            in.readInt(), in.readLong(), in.readLong()));
+                }
+            } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                LOGGER.severe(String.format("Unable to read the disk index %s, the cache starts empty%n%s", indexFile, e));
+                records.clear();
+            }
+        }
+        Map<Integer, DiskSegment> recoveredSegments = new HashMap<>();
+        records.sort(Comparator.comparingLong(record -> record.writeTime));
+        for (IndexRecord record : records) {
+            nextSegmentId = Math.max(nextSegmentId, record.segmentId + 1);
+            if(record.expirationTime <= now) continue;
+            DiskSegment segment = recoveredSegments.get(record.segmentId);
+            if(segment == null && !recoveredSegments.containsKey(record.segmentId)){
+                segment = openSegment(record.segmentId);
+                recoveredSegments.put(record.segmentId, segment);
+            }
+            if(segment == null || record.offset + record.length > segment.getWriteOffset()) continue;
+            segment.retain(record.length);
+            DiskEntry entry = new DiskEntry(segment, record.offset, record.length);
+            index.put((K) record.key, entry);
+            CacheNode<K,V> cacheNode = CacheNode.restore((K) record.key, entry, record.weight, this);
+            cacheNode.setWriteTime(record.writeTime);
+            cacheNode.setExpirationTime(record.expirationTime);
+            nodes.add(cacheNode);
+        }
+        File[] segmentFiles = directory.listFiles((dir, name) -> name.startsWith("segment-") && name.endsWith(".data"));
+        for (File segmentFile : segmentFiles != null ? segmentFiles : new File[0]) {
+            int id = Integer.parseInt(segmentFile.getName().substring("segment-".length(), segmentFile.getName().length() - ".data".length()));
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+            DiskSegment segment = recoveredSegments.get(id);
+            if(segment == null){
+                if(!segmentFile.delete()) LOGGER.severe(String.format("Unable to delete the disk segment %s", id));
+            }else if(segment.getLiveBytes() == 0){
+                deleteSegment(segment);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Write the index of the nodes on disk while the store is open, a store reopened after a crash
+     * recovers the keys which were on disk at the last checkpoint
+     * @param nodes nodes of the cache
+     */
+    public void checkpoint(Collection<CacheNode<K,V>> nodes) throws IOException {
+        if(durable) writeIndex(nodes);
+    }
+
+    /**
+     * Close the store, the values can not be read anymore. A durable store flushes its segment files
+     * and writes the index of the nodes on disk, an other store deletes its directory
+     * @param nodes nodes of the cache
+     */
+    public void close(Collection<CacheNode<K,V>> nodes) {
+        synchronized (writeLock) {
+            try {
+                if(durable) writeIndex(nodes);
+                for (DiskSegment segment : segments) {
+                    segment.close();
+                }
+                if(lockChannel != null){
+                    lockChannel.close();
+                    LOCKED.remove(new File(directory, LOCK_FILE).getAbsolutePath());
+                }
+                if(!durable) CommonUtils.deleteDirectory(directory.getPath());
+            } catch (IOException e) {
+                LOGGER.severe(String.format("Unable to close the disk store %s%n%s", directory, e));
+            }
+        }
+    }
+
+    /**
+     * Append a batch of values, the values sharing a segment are written with one gather write.
+     * The keys are not mapped to the new locations until they are committed
+     * @param values values to write
+     * @return location of every value, in the order of the values
+     */
+    public List<DiskEntry> writeBatch(List<V> values) throws IOException {
+        synchronized (writeLock) {
+            return append(serialize(values));
+        }
+    }
+
+    /**
+     * Rewrite the live values of the sealed segment with the lowest live ratio under the threshold at the end of the log.
+     * The values are copied as bytes in batches and the segment file is deleted once its last value is moved
+     * @param liveRatio part of live bytes under which a segment is compacted
+     * @param nodes node of a key in the cache
+     * @param throttle called with the bytes of every copied batch, returns false to stop the compaction
+     * @return bytes of the values moved, 0 if no segment is under the live ratio
+     */
+    public long compact(double liveRatio, Function<K, CacheNode<K,V>> nodes, LongPredicate throttle) throws IOException {
+        DiskSegment victim = null;
+        double victimRatio = liveRatio;
+        for (DiskSegment segment : segments) {
+            if(segment == activeSegment || segment.getWriteOffset() == 0) continue;
+            double ratio = (double) segment.getLiveBytes() / segment.getWriteOffset();
+            if(ratio < victimRatio){
+                victim = segment;
+                victimRatio = ratio;
+            }
+        }
+        if(victim == null) return 0;
+        List<K> keys = new ArrayList<>();
+        List<DiskEntry> entries = new ArrayList<>();
+        for (Map.Entry<K, DiskEntry> mapping : index.entrySet()) {
+            if(mapping.getValue().getSegment() != victim) continue;
+            keys.add(mapping.getKey());
+            entries.add(mapping.getValue());
+        }
+        long moved = 0;
+        for (int from = 0; from < entries.size(); from += CommonConfig.SPILL_BATCH_SIZE) {
+            int to = Math.min(from + CommonConfig.SPILL_BATCH_SIZE, entries.size());
+            ByteBuffer[] values = new ByteBuffer[to - from];
+            long length = 0;
+            for (int i = from; i < to; i++) {
+                DiskEntry entry = entries.get(i);
+                values[i - from] = victim.read(entry.getOffset(), entry.getLength());
+                length += entry.getLength();
+            }
+            List<DiskEntry> copies;
+            synchronized (writeLock) {
+                copies = append(values);
+            }
+            for (int i = from; i < to; i++) {
+                CacheNode<K,V> cacheNode = nodes.apply(keys.get(i));
+                DiskEntry copy = copies.get(i - from);
+                if(cacheNode != null && cacheNode.relocate(entries.get(i), copy, this)){
+                    moved += copy.getLength();
+                }else{
+                    discard(copy);
+                }
+            }
+            if(!throttle.test(length)) break;
+        }
+        return moved;
+    }
+
+    /**
+     * Map a key to its written value, the previous value of the key is released
+     * @param key key of the value
+     * @param entry location returned by the write
+     */
+    public void commit(K key, DiskEntry entry) {
+        DiskEntry previous = index.put(key, entry);
+        if(previous != null) release(previous);
+    }
+
+    /**
+     * Release a written value which was never committed, or an unmapped one
+     * @param entry location returned by the write
+     */
+    public void discard(DiskEntry entry) {
+        release(entry);
+    }
+
+    /**
+     * Read a value through the memory mapping of its segment
+     * @param entry location of the value
+     * @return value
+     */
+    public V read(DiskEntry entry) {
+        long start = System.nanoTime();
+        V value = serializer.deserialize(entry.getSegment().read(entry.getOffset(), entry.getLength()));
+        cacheStats.diskReadLatency.record(System.nanoTime() - start);
+        return value;
+    }
+
+    /**
+     * Forget a value, only if the key is still mapped to this location
+     * @param key key of the value
+     * @param entry location of the value
+     */
+    public void delete(K key, DiskEntry entry) {
+        if(index.remove(key, entry)) release(entry);
+    }
+
+    /**
+     * Forget a value but keep its bytes, so its segment is not deleted before the value is read a last time.
+     * The location must be discarded once read
+     * @param key key of the value
+     * @param entry location of the value
+     * @return false if the key is not mapped to this location, its bytes are not kept
+     */
+    public boolean unmap(K key, DiskEntry entry) {
+        return index.remove(key, entry);
+    }
+
+    public CacheStats getCacheStats() {
+        return cacheStats;
+    }
+
+    /**
+     * Number of keys on disk
+     */
+    public long size() {
+        return index.size();
+    }
+
+    /**
+     * Bytes of the values referenced by the index
+     */
+    public long getLiveBytes() {
+        long liveBytes = 0;
+        for (DiskSegment segment : segments) {
+            liveBytes += segment.getLiveBytes();
+        }
+        return liveBytes;
+    }
+
+    /**
+     * Bytes written to the segment files which are not referenced anymore, reclaimed by the compaction
+     */
+    public long getDeadBytes() {
+        long deadBytes = 0;
+        for (DiskSegment segment : segments) {
+            deadBytes += segment.getWriteOffset() - segment.getLiveBytes();
+        }
+        return deadBytes;
+    }
+
+    private void release(DiskEntry entry) {
+        if(entry.getSegment().release(entry.getLength())) deleteSegment(entry.getSegment());
+    }
+
+    /**
+     * Append serialized values, the values sharing a segment are written with one gather write.
+     * Must be called while holding the write lock
+     * @return location of every value, in the order of the values
+     */
+    private List<DiskEntry> append(ByteBuffer[] serializedValues) throws IOException {
+        List<DiskEntry> entries = new ArrayList<>(serializedValues.length);
+        int from = 0;
+        while (from < serializedValues.length) {
+            DiskSegment segment = segmentFor(serializedValues[from].remaining());
+            int to = from;
+            int length = 0;
+            while (to < serializedValues.length && length + serializedValues[to].remaining() <= segment.remaining()) {
+                length += serializedValues[to++].remaining();
+            }
+            int offset = segment.getWriteOffset();
+            for (int i = from; i < to; i++) {
+                entries.add(new DiskEntry(segment, offset, serializedValues[i].remaining()));
+                offset += serializedValues[i].remaining();
+            }
+            segment.append(Arrays.copyOfRange(serializedValues, from, to));
+            from = to;
+        }
+        return entries;
+    }
+
+    /**
+     * Active segment with room for the value, a new one is started when it is full
+     */
+    private DiskSegment segmentFor(int length) throws IOException {
+        if(activeSegment != null && activeSegment.remaining() >= length) return activeSegment;
+        if(activeSegment != null && activeSegment.seal()) deleteSegment(activeSegment);
+        CommonUtils.createNewDirectory(directory.getParent());
+        CommonUtils.createNewDirectory(directory.getPath());
+        if(lockChannel == null) lock();
+        int id = nextSegmentId++;
+        File file = segmentFile(id);
+        if(!durable) file.deleteOnExit();
+        //A value bigger than a segment gets its own segment
+        activeSegment = new DiskSegment(id, file, Math.max(segmentSize, length));
+        segments.add(activeSegment);
+        return activeSegment;
+    }
+
+    private File segmentFile(int id) {
+        return new File(directory, "segment-" + id + ".data");
+    }
+
+    /**
+     * Open a segment file left by a previous store
+     * @return null if the file is missing or can not be opened
+     */
+    private DiskSegment openSegment(int id) {
+        File file = segmentFile(id);
+        if(!file.exists()) return null;
+        try {
+            DiskSegment segment = DiskSegment.open(id, file);
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            LOGGER.severe(String.format("Unable to open the disk segment %s%n%s", id, e));
+            return null;
+        }
+    }
+
+    /**
+     * Write the location, weight and times of every node on disk in a new index file,
+     * it replaces the previous one only once it is complete. The keys are written with the Java serialization
+     */
+    private void writeIndex(Collection<CacheNode<K,V>> nodes) throws IOException {
+        synchronized (indexLock) {
+            List<IndexRecord> records = new ArrayList<>();
+            for (CacheNode<K,V> cacheNode : nodes) {
+                DiskEntry entry = cacheNode.getDiskEntry();
+                if(entry == null) continue;
+                records.add(new IndexRecord(cacheNode.getKey(), entry.getSegment().getId(), entry.getOffset(), entry.getLength(),
+                        cacheNode.getWeight(), cacheNode.getWriteTime(), cacheNode.getExpirationTime()));
+            }
+            for (DiskSegment segment : segments) {
+                segment.flush();
+            }
+            CommonUtils.createNewDirectory(directory.getParent());
+            CommonUtils.createNewDirectory(directory.getPath());
+            File indexFile = new File(directory, INDEX_FILE);
+            File tempFile = new File(directory, INDEX_FILE + ".tmp");
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(INDEX_VERSION);
+                out.writeInt(records.size());
+                for (IndexRecord record : records) {
+                    out.writeObject(record.key);
+                    out.writeInt(record.segmentId);
+                    out.writeInt(record.offset);
+                    out.writeInt(record.length);
+                    out.writeInt(record.weight);
+                    out.writeLong(record.writeTime);
+                    out.writeLong(record.expirationTime);
+                }
+            } catch (IOException e) {
+                Files.deleteIfExists(tempFile.toPath());
+                throw e;
+            }
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private void deleteSegment(DiskSegment segment) {
+        segments.remove(segment);
+        try {
+            segment.delete();
+        } catch (IOException e) {
+            LOGGER.severe(String.format("Unable to delete the disk segment %s%n%s", segment.getId(), e));
+        }
+    }
+
+    /**
+     * Serialize the values one after the other in the write buffer, the buffer grows until the values fit
+     * @return view of every value in the write buffer
+     */
+    private ByteBuffer[] serialize(List<V> values) {
+        ((Buffer) writeBuffer).clear();
+        int[] ends = new int[values.size()];
+        for (int i = 0; i < ends.length; i++) {
+            int start = writeBuffer.position();
+            while (true) {
+                try {
+                    serializer.serialize(values.get(i), writeBuffer);
+                    break;
+                } catch (BufferOverflowException e) {
+                    grow(start);
+                }
+            }
+            ends[i] = writeBuffer.position();
+        }
+        ByteBuffer[] serializedValues = new ByteBuffer[ends.length];
+        int start = 0;
+        for (int i = 0; i < ends.length; i++) {
+            ByteBuffer serializedValue = writeBuffer.duplicate();
+            ((Buffer) serializedValue).limit(ends[i]);
+            ((Buffer) serializedValue).position(start);
+            serializedValues[i] = serializedValue.slice();
+            start = ends[i];
+        }
+        return serializedValues;
+    }
+
+    /**
+     * Double the write buffer, the completed values are kept and the partial one is dropped
+     */
+    private void grow(int written) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(writeBuffer.capacity() * 2);
+        ((Buffer) writeBuffer).limit(written);
+        ((Buffer) writeBuffer).position(0);
+        grown.put(writeBuffer);
+        writeBuffer = grown;
+    }
+
+    /**
+     * Entry of the index file
+     */
+    private static final class IndexRecord {
+
+        private final Object key;
+
+        private final int segmentId;
+
+        private final int offset;
+
+        private final int length;
+
+        private final int weight;
+
+        private final long writeTime;
+
+        private final long expirationTime;
+
+        private IndexRecord(Object key, int segmentId, int offset, int length, int weight, long writeTime, long expirationTime) {
+            this.key = key;
+            this.segmentId = segmentId;
+            this.offset = offset;
+            this.length = length;
+            this.weight = weight;
+            this.writeTime = writeTime;
+            this.expirationTime = expirationTime;
+        }
+    }
+}
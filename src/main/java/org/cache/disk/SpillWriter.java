@@ -0,0 +1,159 @@
+package org.cache.disk;
+
+import org.cache.config.CommonConfig;
+import org.cache.core.CacheStats;
+import org.cache.model.CacheNode;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * Background writer of the nodes pushed out of memory. The request threads only queue the spill victims,
+ * the writer thread serializes them in batches and appends every batch with one gather write.
+ * A queued node keeps its value in memory and stays readable until its write is acknowledged,
+ * a node updated or removed meanwhile keeps its new state and the written value is discarded
+ * @param <K> Cache Key Type
+ * @param <V> Cache Value object
+ */
+public class SpillWriter<K,V extends Serializable> {
+
+    private final static Logger LOGGER;
+    static {
+        LOGGER = Logger.getLogger(SpillWriter.class.getName());
+        LOGGER.setLevel(CommonConfig.LOGGING_LEVEL);
+    }
+
+    private final DiskStore<K,V> diskStore;
+
+    private final int batchSize;
+
+    //Told of every value written, on the writer thread
+    private final BiConsumer<K,V> spillListener;
+
+    private final BlockingQueue<SpillTask<K,V>> queue = new LinkedBlockingQueue<>();
+
+    //Queued nodes and nodes of the batch being written
+    private final AtomicInteger pending = new AtomicInteger();
+
+    //Queued by the close, the writer thread stops once the tasks queued before it are written
+    private final SpillTask<K,V> closeTask = new SpillTask<>(null, null);
+
+    private Thread writerThread;
+
+    /**
+     * @param diskStore store receiving the values
+     * @param batchSize maximum number of values written at once
+     * @param spillListener called with the key and the value of every node whose write is acknowledged
+     */
+    public SpillWriter(DiskStore<K,V> diskStore, int batchSize, BiConsumer<K,V> spillListener) {
+        this.diskStore = diskStore;
+        this.batchSize = batchSize;
+        this.spillListener = spillListener;
+    }
+
+    /**
+     * Queue the value of a node marked as spilling
+     * @param cacheNode node pushed out of memory
+     * @param value value of the node when it was marked
+     */
+    public void spill(CacheNode<K,V> cacheNode, V value) {
+        pending.incrementAndGet();
+        queue.add(new SpillTask<>(cacheNode, value));
+    }
+
+    /**
+     * Number of nodes waiting for their write to be acknowledged
+     */
+    public int getQueueDepth() {
+        return pending.get();
+    }
+
+    /**
+     * Start the writer thread, it runs until the JVM exits
+     */
+    public void start() {
+        writerThread = new Thread(() -> {
+            List<SpillTask<K,V>> batch = new ArrayList<>(batchSize);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, batchSize - 1);
+                    boolean closing = batch.remove(closeTask);
+                    if(!batch.isEmpty()) write(batch);
+                    pending.addAndGet(-batch.size());
+                    batch.clear();
+                    if(closing) return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stop the writer thread once the queued nodes are written, no node can be queued anymore
+     */
+    public void close() throws InterruptedException {
+        queue.add(closeTask);
+        writerThread.join();
+    }
+
+    /**
+     * Write a batch and acknowledge its nodes, the nodes changed meanwhile release their written value
+     */
+    private void write(List<SpillTask<K,V>> batch) {
+        List<V> values = new ArrayList<>(batch.size());
+        for (SpillTask<K,V> task : batch) {
+            values.add(task.value);
+        }
+        CacheStats cacheStats = diskStore.getCacheStats();
+        long start = System.nanoTime();
+        List<DiskEntry> entries;
+        try {
+            entries = diskStore.writeBatch(values);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.severe(String.format("Unable to spill %s values to disk%n%s", batch.size(), e));
+            for (SpillTask<K,V> task : batch) {
+                task.cacheNode.cancelSpill(task.value, diskStore);
+            }
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        cacheStats.spillTimeSpent.add(elapsed);
+        cacheStats.spillLatency.record(elapsed);
+        cacheStats.spillBatches.increment();
+        for (int i = 0; i < batch.size(); i++) {
+            SpillTask<K,V> task = batch.get(i);
+            DiskEntry entry = entries.get(i);
+            cacheStats.spilledBytes.add(entry.getLength());
+            if(task.cacheNode.completeSpill(task.value, entry, diskStore)){
+                cacheStats.spilledNodes.increment();
+                spillListener.accept(task.cacheNode.getKey(), task.value);
+            }else{
+                diskStore.discard(entry);
+            }
+        }
+    }
+
+    private static final class SpillTask<K,V extends Serializable> {
+
+        private final CacheNode<K,V> cacheNode;
+
+        //Strong reference, the soft value of the node can not be collected before the write
+        private final V value;
+
+        private SpillTask(CacheNode<K,V> cacheNode, V value) {
+            this.cacheNode = cacheNode;
+            this.value = value;
+        }
+    }
+}
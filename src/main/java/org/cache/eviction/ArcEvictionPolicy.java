@@ -0,0 +1,116 @@
+package org.cache.eviction;
+
+import org.cache.interfaces.EvictionPolicy;
+import org.cache.model.CacheNode;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+/**
+ * Adaptive replacement cache (ARC). Nodes seen once live in T1, nodes seen more than once in T2.
+ * The keys of the evicted nodes are remembered in the ghost lists B1 and B2,
+ * a new key found in a ghost list moves the target size of T1 towards the list which would have kept it
+ * @param <K>
+ * @param <V>
+ */
+public class ArcEvictionPolicy<K,V extends Serializable> implements EvictionPolicy<K,V> {
+
+    private static final int RECENT = 1;
+    private static final int FREQUENT = 2;
+
+    private final long capacity;
+
+    private final NodeList<K,V> t1 = new NodeList<>();
+    private final NodeList<K,V> t2 = new NodeList<>();
+
+    //Ghost lists, the eldest key is the first one
+    private final LinkedHashSet<K> b1 = new LinkedHashSet<>();
+    private final LinkedHashSet<K> b2 = new LinkedHashSet<>();
+
+    //Target size of T1
+    private long p = 0;
+
+    /**
+     * @param capacity number of nodes the segment is expected to hold
+     */
+    public ArcEvictionPolicy(long capacity) {
+        this.capacity = Math.max(1L, capacity);
+    }
+
+    @Override
+    public void onAdd(CacheNode<K,V> cacheNode) {
+        K key = cacheNode.getKey();
+        if(b1.contains(key)){
+            long delta = b1.size() >= b2.size() ? 1 : b2.size() / b1.size();
+            p = Math.min(capacity, p + delta);
+            b1.remove(key);
+            addFrequent(cacheNode);
+        }else if(b2.contains(key)){
+            long delta = b2.size() >= b1.size() ? 1 : b1.size() / b2.size();
+            p = Math.max(0, p - delta);
+            b2.remove(key);
+            addFrequent(cacheNode);
+        }else{
+            cacheNode.setPolicyState(RECENT);
+            t1.addFirst(cacheNode);
+        }
+        trimGhosts();
+    }
+
+    @Override
+    public void onAccess(CacheNode<K,V> cacheNode) {
+        if(cacheNode.getPolicyState() == RECENT){
+            t1.remove(cacheNode);
+            addFrequent(cacheNode);
+        }else{
+            t2.moveToHead(cacheNode);
+        }
+    }
+
+    @Override
+    public void onRemove(CacheNode<K,V> cacheNode) {
+        listOf(cacheNode).remove(cacheNode);
+    }
+
+    @Override
+    public CacheNode<K,V> victim() {
+        if(!t1.isEmpty() && (t1.size() > p || t2.isEmpty())) return t1.getEnd();
+        return t2.getEnd();
+    }
+
+    @Override
+    public void onEvict(CacheNode<K,V> cacheNode) {
+        onRemove(cacheNode);
+        if(cacheNode.getPolicyState() == RECENT){
+            b1.add(cacheNode.getKey());
+        }else{
+            b2.add(cacheNode.getKey());
+        }
+        trimGhosts();
+    }
+
+    private void addFrequent(CacheNode<K,V> cacheNode) {
+        cacheNode.setPolicyState(FREQUENT);
+        t2.addFirst(cacheNode);
+    }
+
+    private NodeList<K,V> listOf(CacheNode<K,V> cacheNode) {
+        return cacheNode.getPolicyState() == RECENT ? t1 : t2;
+    }
+
+    private void trimGhosts() {
+        while (t1.size() + b1.size() > capacity && !b1.isEmpty()) {
+            removeEldest(b1);
+        }
+        while (t1.size() + t2.size() + b1.size() + b2.size() > 2 * capacity && !b2.isEmpty()) {
+            removeEldest(b2);
+        }
+    }
+
+    private void removeEldest(LinkedHashSet<K> ghosts) {
+        Iterator<K> iterator = ghosts.iterator();
+        iterator.next();
+        iterator.remove();
+    }
+}
@@ -0,0 +1,66 @@
+package org.cache.eviction;
+
+import org.cache.interfaces.EvictionPolicy;
+import org.cache.model.CacheNode;
+
+import java.io.Serializable;
+
+/**
+ * Second chance (CLOCK) eviction. A read only sets the reference bit of the node,
+ * the hand clears the bits while looking for a node which was not referenced since its last pass.
+ * The hand stays on the victim until it is evicted, a bit is cleared once per read so the sweep is constant amortized time
+ * @param <K>
+ * @param <V>
+ */
+public class ClockEvictionPolicy<K,V extends Serializable> implements EvictionPolicy<K,V> {
+
+    private static final int REFERENCED = 1;
+
+    //Circular order, the hand moves from the end to the head and starts again from the end
+    private final NodeList<K,V> nodes = new NodeList<>();
+
+    //Next node checked by the sweep, null to start again from the end
+    private CacheNode<K,V> hand;
+
+    @Override
+    public void onAdd(CacheNode<K,V> cacheNode) {
+        cacheNode.setPolicyState(0);
+        if(hand == null){
+            nodes.addFirst(cacheNode);
+        }else{
+            //Just behind the hand, the node is checked last in the current round
+            nodes.addBefore(cacheNode, hand.getNext());
+        }
+    }
+
+    @Override
+    public void onAccess(CacheNode<K,V> cacheNode) {
+        cacheNode.setPolicyState(REFERENCED);
+    }
+
+    @Override
+    public void onRemove(CacheNode<K,V> cacheNode) {
+        CacheNode<K,V> nextHand = cacheNode.getPrev();
+        nodes.remove(cacheNode);
+        if(hand == cacheNode) hand = nextHand;
+    }
+
+    /**
+     * The hand clears the reference bits of the nodes it passes and stops on the first node without one
+     */
+    @Override
+    public CacheNode<K,V> victim() {
+        if(nodes.isEmpty()) return null;
+        if(hand == null) hand = nodes.getEnd();
+        //Every bit cleared was set by a read, after a full round the hand finds a node it cleared
+        while (hand.getPolicyState() == REFERENCED) {
+            hand.setPolicyState(0);
+            hand = previous(hand);
+        }
+        return hand;
+    }
+
+    private CacheNode<K,V> previous(CacheNode<K,V> cacheNode) {
+        return cacheNode.getPrev() != null ? cacheNode.getPrev() : nodes.getEnd();
+    }
+}
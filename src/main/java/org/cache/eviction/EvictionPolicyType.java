@@ -0,0 +1,32 @@
+package org.cache.eviction;
+
+import org.cache.interfaces.EvictionPolicy;
+
+import java.io.Serializable;
+
+/**
+ * Built in eviction policies
+ */
+public enum EvictionPolicyType {
+    LRU, LFU, FIFO, CLOCK, ARC;
+
+    /**
+     * Create a policy instance for one segment
+     * @param capacity number of nodes the segment is expected to hold
+     * @return new policy
+     */
+    public <K,V extends Serializable> EvictionPolicy<K,V> create(long capacity) {
+        switch (this) {
+            case LFU:
+                return new LfuEvictionPolicy<>();
+            case FIFO:
+                return new FifoEvictionPolicy<>();
+            case CLOCK:
+                return new ClockEvictionPolicy<>();
+            case ARC:
+                return new ArcEvictionPolicy<>(capacity);
+            default:
+                return new LruEvictionPolicy<>();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.cache.eviction;
+
+import org.cache.interfaces.EvictionPolicy;
+import org.cache.model.CacheNode;
+
+import java.io.Serializable;
+
+/**
+ * Oldest inserted node is evicted first, reads do not change the order
+ * @param <K>
+ * @param <V>
+ */
+public class FifoEvictionPolicy<K,V extends Serializable> implements EvictionPolicy<K,V> {
+
+    private final NodeList<K,V> nodes = new NodeList<>();
+
+    @Override
+    public void onAdd(CacheNode<K,V> cacheNode) {
+        nodes.addFirst(cacheNode);
+    }
+
+    @Override
+    public void onAccess(CacheNode<K,V> cacheNode) {
+        //Insertion order only
+    }
+
+    @Override
+    public void onRemove(CacheNode<K,V> cacheNode) {
+        nodes.remove(cacheNode);
+    }
+
+    @Override
+    public CacheNode<K,V> victim() {
+        return nodes.getEnd();
+    }
+}
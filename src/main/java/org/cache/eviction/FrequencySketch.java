@@ -0,0 +1,94 @@
+package org.cache.eviction;
+
+/**
+ * Count-min sketch estimating the access frequency of the keys with 4-bit counters.
+ * Every long of the table holds 16 counters, a key uses one counter in 4 different longs.
+ * When the number of recorded accesses reaches ten times the sketch size all the counters are halved,
+ * so the old popularity fades away.
+ */
+public final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+
+    private final int tableMask;
+
+    private final long sampleSize;
+
+    private long additions;
+
+    /**
+     * @param size expected number of keys, rounded up to a power of two
+     */
+    public FrequencySketch(long size) {
+        int length = 8;
+        while (length < size && length < (1 << 30)) length <<= 1;
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = 10L * length;
+    }
+
+    /**
+     * Estimated number of accesses of the key, at most 15
+     */
+    public int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int depth = 0; depth < SEEDS.length; depth++) {
+            int index = indexOf(hash, depth);
+            int offset = counterOffset(hash, depth);
+            frequency = Math.min(frequency, (int) ((table[index] >>> offset) & 0xfL));
+        }
+        return frequency;
+    }
+
+    /**
+     * Record an access of the key
+     */
+    public void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int depth = 0; depth < SEEDS.length; depth++) {
+            int index = indexOf(hash, depth);
+            int offset = counterOffset(hash, depth);
+            if(((table[index] >>> offset) & 0xfL) != MAX_COUNT){
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if(added && ++additions == sampleSize){
+            reset();
+        }
+    }
+
+    /**
+     * Halve all the counters
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions = additions / 2;
+    }
+
+    private int indexOf(int hash, int depth) {
+        long h = (hash + SEEDS[depth]) * SEEDS[depth];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    //One of the 16 counters of the long, a different one for every depth
+    private int counterOffset(int hash, int depth) {
+        return (((hash >>> (depth << 3)) & 3) << 2 | depth) << 2;
+    }
+
+    private int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
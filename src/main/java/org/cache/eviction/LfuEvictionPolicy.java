@@ -0,0 +1,69 @@
+package org.cache.eviction;
+
+import org.cache.interfaces.EvictionPolicy;
+import org.cache.model.CacheNode;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Least frequently used node is evicted first, the least recent one among nodes with the same frequency.
+ * All the nodes are kept in one list sorted by frequency, the most frequent at the head,
+ * and the first node of every frequency group is indexed so an access moves a node in constant time
+ * @param <K>
+ * @param <V>
+ */
+public class LfuEvictionPolicy<K,V extends Serializable> implements EvictionPolicy<K,V> {
+
+    private final NodeList<K,V> nodes = new NodeList<>();
+
+    //Frequency to the most recent node with this frequency
+    private final Map<Integer, CacheNode<K,V>> groupFront = new HashMap<>();
+
+    @Override
+    public void onAdd(CacheNode<K,V> cacheNode) {
+        cacheNode.setPolicyState(1);
+        //Lowest frequency group is always at the end of the list
+        nodes.addBefore(cacheNode, groupFront.get(1));
+        groupFront.put(1, cacheNode);
+    }
+
+    @Override
+    public void onAccess(CacheNode<K,V> cacheNode) {
+        int frequency = cacheNode.getPolicyState();
+        if(frequency == Integer.MAX_VALUE) return;
+        leaveGroup(cacheNode);
+        CacheNode<K,V> successor = groupFront.get(frequency + 1);
+        if(successor == null) successor = groupFront.get(frequency);
+        //Otherwise the node is alone between the groups around it and keeps its place
+        if(successor != null){
+            nodes.remove(cacheNode);
+            nodes.addBefore(cacheNode, successor);
+        }
+        cacheNode.setPolicyState(frequency + 1);
+        groupFront.put(frequency + 1, cacheNode);
+    }
+
+    @Override
+    public void onRemove(CacheNode<K,V> cacheNode) {
+        leaveGroup(cacheNode);
+        nodes.remove(cacheNode);
+    }
+
+    @Override
+    public CacheNode<K,V> victim() {
+        return nodes.getEnd();
+    }
+
+    private void leaveGroup(CacheNode<K,V> cacheNode) {
+        int frequency = cacheNode.getPolicyState();
+        if(groupFront.get(frequency) != cacheNode) return;
+        CacheNode<K,V> next = cacheNode.getNext();
+        if(next != null && next.getPolicyState() == frequency){
+            groupFront.put(frequency, next);
+        }else{
+            groupFront.remove(frequency);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.cache.eviction;
+
+import org.cache.model.CacheNode;
+
+import java.io.Serializable;
+
+/**
+ * Doubly linked list of cache nodes using the prev and next links of the node,
+ * the head is the most recent element and the end the least recent one
+ * @param <K>
+ * @param <V>
+ */
+public final class NodeList<K,V extends Serializable> {
+
+    private CacheNode<K,V> head;
+
+    private CacheNode<K,V> end;
+
+    private long size;
+
+    public CacheNode<K,V> getHead() {
+        return head;
+    }
+
+    public CacheNode<K,V> getEnd() {
+        return end;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Set the Head of the linked list
+     */
+    public void addFirst(CacheNode<K,V> cacheNode) {
+        cacheNode.setNext(head);
+        cacheNode.setPrev(null);
+        if(head != null) head.setPrev(cacheNode);
+        head = cacheNode;
+        if(end == null) end = head;
+        size++;
+    }
+
+    /**
+     * Add the node just before an other node of the list, null adds it at the end
+     */
+    public void addBefore(CacheNode<K,V> cacheNode, CacheNode<K,V> successor) {
+        if(successor == null){
+            cacheNode.setPrev(end);
+            cacheNode.setNext(null);
+            if(end != null) end.setNext(cacheNode);
+            end = cacheNode;
+            if(head == null) head = cacheNode;
+            size++;
+        }else if(successor == head){
+            addFirst(cacheNode);
+        }else{
+            cacheNode.setPrev(successor.getPrev());
+            cacheNode.setNext(successor);
+            successor.getPrev().setNext(cacheNode);
+            successor.setPrev(cacheNode);
+            size++;
+        }
+    }
+
+    /**
+     * This method will delete node
+     */
+    public void remove(CacheNode<K,V> cacheNode) {
+        if(cacheNode.getPrev() != null){
+            cacheNode.getPrev().setNext(cacheNode.getNext());
+        }else{
+            head = cacheNode.getNext();
+        }
+        if(cacheNode.getNext() != null){
+            cacheNode.getNext().setPrev(cacheNode.getPrev());
+        }else{
+            end = cacheNode.getPrev();
+        }
+        cacheNode.setPrev(null);
+        cacheNode.setNext(null);
+        size--;
+    }
+
+    public void moveToHead(CacheNode<K,V> cacheNode) {
+        if(cacheNode == head) return;
+        remove(cacheNode);
+        addFirst(cacheNode);
+    }
+}
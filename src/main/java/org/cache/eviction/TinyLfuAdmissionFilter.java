@@ -0,0 +1,132 @@
+package org.cache.eviction;
+
+import org.cache.core.CacheStats;
+import org.cache.interfaces.EvictionPolicy;
+import org.cache.model.CacheNode;
+
+import java.io.Serializable;
+
+/**
+ * W-TinyLFU admission filter around an eviction policy.
+ * New nodes enter a small LRU admission window. When the window is full its least recent node
+ * moves to the main policy while the main policy has room, otherwise it is a candidate:
+ * the candidate is admitted only if the frequency sketch says it is hotter than the victim of the main policy,
+ * the loser of the comparison is evicted.
+ * @param <K>
+ * @param <V>
+ */
+public class TinyLfuAdmissionFilter<K,V extends Serializable> implements EvictionPolicy<K,V> {
+
+    private final EvictionPolicy<K,V> mainPolicy;
+
+    private final FrequencySketch sketch;
+
+    private final NodeList<K,V> window = new NodeList<>();
+
+    private final long windowCapacity;
+
+    private final long mainCapacity;
+
+    private final CacheStats cacheStats;
+
+    private long mainSize;
+
+    //Outcome of the last admission decided by victim, applied when the victim is evicted
+    private CacheNode<K,V> admittedCandidate;
+    private CacheNode<K,V> rejectedCandidate;
+
+    /**
+     * @param mainPolicy policy of the admitted nodes
+     * @param capacity number of nodes the segment is expected to hold
+     * @param windowPercentage part of the capacity used by the admission window
+     * @param sketchSize number of keys tracked by the frequency sketch
+     * @param cacheStats statistics receiving the admission rejections
+     */
+    public TinyLfuAdmissionFilter(EvictionPolicy<K,V> mainPolicy, long capacity, int windowPercentage,
+                                  long sketchSize, CacheStats cacheStats) {
+        this.mainPolicy = mainPolicy;
+        this.sketch = new FrequencySketch(sketchSize);
+        this.windowCapacity = Math.max(1L, capacity * windowPercentage / 100);
+        this.mainCapacity = Math.max(0L, capacity - windowCapacity);
+        this.cacheStats = cacheStats;
+    }
+
+    @Override
+    public void onAdd(CacheNode<K,V> cacheNode) {
+        clearDecision();
+        sketch.increment(cacheNode.getKey());
+        cacheNode.setInAdmissionWindow(true);
+        window.addFirst(cacheNode);
+        if(window.size() > windowCapacity && mainSize < mainCapacity){
+            admit(window.getEnd());
+        }
+    }
+
+    @Override
+    public void onAccess(CacheNode<K,V> cacheNode) {
+        clearDecision();
+        sketch.increment(cacheNode.getKey());
+        if(cacheNode.isInAdmissionWindow()){
+            window.moveToHead(cacheNode);
+        }else{
+            mainPolicy.onAccess(cacheNode);
+        }
+    }
+
+    @Override
+    public void onRemove(CacheNode<K,V> cacheNode) {
+        clearDecision();
+        if(cacheNode.isInAdmissionWindow()){
+            window.remove(cacheNode);
+        }else{
+            mainPolicy.onRemove(cacheNode);
+            mainSize--;
+        }
+    }
+
+    @Override
+    public void onEvict(CacheNode<K,V> cacheNode) {
+        CacheNode<K,V> admitted = admittedCandidate;
+        CacheNode<K,V> rejected = rejectedCandidate;
+        clearDecision();
+        if(cacheNode.isInAdmissionWindow()){
+            window.remove(cacheNode);
+            if(cacheNode == rejected) cacheStats.admissionRejections.increment();
+        }else{
+            mainPolicy.onEvict(cacheNode);
+            mainSize--;
+            if(admitted != null && admitted.isInAdmissionWindow()) admit(admitted);
+        }
+    }
+
+    @Override
+    public CacheNode<K,V> victim() {
+        CacheNode<K,V> victim = mainPolicy.victim();
+        if(window.size() <= windowCapacity || window.isEmpty()){
+            return victim != null ? victim : window.getEnd();
+        }
+        CacheNode<K,V> candidate = window.getEnd();
+        if(victim == null) return candidate;
+        if(sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey())){
+            admittedCandidate = candidate;
+            return victim;
+        }
+        rejectedCandidate = candidate;
+        return candidate;
+    }
+
+    private void clearDecision() {
+        admittedCandidate = null;
+        rejectedCandidate = null;
+    }
+
+    /**
+     * Move a node from the window to the main policy
+     */
+    private void admit(CacheNode<K,V> cacheNode) {
+        window.remove(cacheNode);
+        cacheNode.setInAdmissionWindow(false);
+        mainPolicy.onAdd(cacheNode);
+        mainSize++;
+    }
+}
@@ -0,0 +1,32 @@
+package org.cache.expiry;
+
+import org.cache.interfaces.Expiry;
+
+import java.io.Serializable;
+
+/**
+ * A key expires a fixed time after its last write or read
+ * @param <K>
+ * @param <V>
+ */
+public class ExpireAfterAccess<K,V extends Serializable> implements Expiry<K,V> {
+
+    private final long timeout;
+
+    /**
+     * @param timeout time to live of a key in millis
+     */
+    public ExpireAfterAccess(long timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    public long expireAfterCreate(K key, V value, long currentTime) {
+        return timeout;
+    }
+
+    @Override
+    public long expireAfterRead(K key, V value, long currentTime, long remainingTime) {
+        return timeout;
+    }
+}
@@ -0,0 +1,27 @@
+package org.cache.expiry;
+
+import org.cache.interfaces.Expiry;
+
+import java.io.Serializable;
+
+/**
+ * A key expires a fixed time after its last write, the reads do not change it
+ * @param <K>
+ * @param <V>
+ */
+public class ExpireAfterWrite<K,V extends Serializable> implements Expiry<K,V> {
+
+    private final long timeout;
+
+    /**
+     * @param timeout time to live of a key in millis
+     */
+    public ExpireAfterWrite(long timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    public long expireAfterCreate(K key, V value, long currentTime) {
+        return timeout;
+    }
+}
@@ -1,12 +1,26 @@
 package org.cache.factory;
 
+import org.cache.config.CacheConfig;
+import org.cache.config.CommonConfig;
 import org.cache.config.CommonMessage;
+import org.cache.core.AsyncCleanCacheProxy;
 import org.cache.core.BasicCleanCacheProxy;
 import org.cache.core.CacheProxy;
+import org.cache.eviction.EvictionPolicyType;
+import org.cache.interfaces.AsyncCleanCache;
+import org.cache.interfaces.AsyncReplenishCallback;
+import org.cache.interfaces.BulkReplenishCallback;
 import org.cache.interfaces.EvictionCallback;
+import org.cache.interfaces.EvictionPolicy;
+import org.cache.interfaces.Expiry;
+import org.cache.interfaces.RemovalListener;
 import org.cache.interfaces.ReplenishCallback;
+import org.cache.interfaces.ValueSerializer;
+import org.cache.interfaces.Weigher;
 
 import java.io.Serializable;
+import java.util.concurrent.Executor;
+import java.util.function.LongFunction;
 
 /**
  * Factory for the BasicCleanCache proxy object
@@ -69,16 +83,326 @@ public class BasicCleanCacheFactory<K,V extends Serializable > extends CacheFact
         return this;
     }
 
+    /**
+     * Set the number of independent segments of the cache, every segment has its own lock.
+     * The value is rounded up to a power of two, with more than one segment the eviction order is kept per segment
+     * @param concurrencyLevel
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setConcurrencyLevel(Integer concurrencyLevel) {
+        super.concurrencyLevel = concurrencyLevel;
+        return this;
+    }
+
+    /**
+     * Record the cache hits in lossy read buffers and replay them to the eviction policy in batches,
+     * a hit does not take the segment lock anymore. The writes go through a bounded write buffer
+     * @param readBufferEnabled
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setReadBufferEnabled(boolean readBufferEnabled) {
+        super.readBufferEnabled = readBufferEnabled;
+        return this;
+    }
+
+    /**
+     * Set one of the built in eviction policies, LRU by default
+     * @param evictionPolicyType
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setEvictionPolicy(EvictionPolicyType evictionPolicyType) {
+        super.evictionPolicy = evictionPolicyType::create;
+        return this;
+    }
+
+    /**
+     * Set a custom eviction policy, the function creates the policy of a segment from the segment capacity
+     * @param evictionPolicy
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setEvictionPolicy(LongFunction<EvictionPolicy<K,V>> evictionPolicy) {
+        super.evictionPolicy = evictionPolicy;
+        return this;
+    }
+
+    /**
+     * Enable the W-TinyLFU admission filter, a new key replaces the eviction victim only if it is used more often
+     * @param admissionFilterEnabled
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setAdmissionFilterEnabled(boolean admissionFilterEnabled) {
+        super.admissionFilterEnabled = admissionFilterEnabled;
+        return this;
+    }
+
+    /**
+     * Set the number of keys tracked by the frequency sketch of the admission filter, the capacity by default.
+     * With a weigher the capacity is a weight, the sketch size is then the number of keys the cache is expected to hold
+     * and it sizes the admission window and the eviction policies as well. It is required with a weigher and the admission
+     * filter, without the admission filter the capacity capped to MAX_WEIGHTED_ENTRY_COUNT is used
+     * @param sketchSize
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setSketchSize(Long sketchSize) {
+        super.sketchSize = sketchSize;
+        return this;
+    }
+
+    /**
+     * Set the part of the capacity used by the admission window, 1 percent by default
+     * @param admissionWindowPercentage
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setAdmissionWindowPercentage(Integer admissionWindowPercentage) {
+        super.admissionWindowPercentage = admissionWindowPercentage;
+        return this;
+    }
+
+    /**
+     * Set the expiry strategy of the keys, like ExpireAfterWrite, ExpireAfterAccess or a custom one.
+     * The keys expire after the cache timeout from their last write by default
+     * @param expiry
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setExpiry(Expiry<K,V> expiry) {
+        super.expiry = expiry;
+        return this;
+    }
+
+    /**
+     * Set the asynchronous replenish callback, it returns a future instead of blocking the reader
+     * @param asyncReplenishCallback
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setAsyncReplenishCallback(AsyncReplenishCallback<K,V> asyncReplenishCallback) {
+        super.asyncReplenishCallback = asyncReplenishCallback;
+        return this;
+    }
+
+    /**
+     * Set the bulk replenish callback, getAll loads all its missing keys with one call
+     * @param bulkReplenishCallback
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setBulkReplenishCallback(BulkReplenishCallback<K,V> bulkReplenishCallback) {
+        super.bulkReplenishCallback = bulkReplenishCallback;
+        return this;
+    }
+
+    /**
+     * Set the executor of the replenish calls of the asynchronous reads, the common fork join pool by default
+     * @param loaderExecutor
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setLoaderExecutor(Executor loaderExecutor) {
+        super.loaderExecutor = loaderExecutor;
+        return this;
+    }
+
+    /**
+     * Set the listener of the removals, it is told the cause of every removal, replaced value and disk spill.
+     * The notifications are delivered asynchronously in batches, in the order of the removals
+     * @param removalListener
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setRemovalListener(RemovalListener<K,V> removalListener) {
+        super.removalListener = removalListener;
+        return this;
+    }
+
+    /**
+     * Set the executor delivering the removal notifications and the eviction callback calls, the common fork join pool by default
+     * @param removalListenerExecutor
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setRemovalListenerExecutor(Executor removalListenerExecutor) {
+        super.removalListenerExecutor = removalListenerExecutor;
+        return this;
+    }
+
+    /**
+     * Set the age in millis after which a read reloads the key in the background with the replenish callback,
+     * the readers keep getting the current value until the cache timeout
+     * @param refreshAfterWrite
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setRefreshAfterWrite(Long refreshAfterWrite) {
+        super.refreshAfterWrite = refreshAfterWrite;
+        return this;
+    }
+
+    /**
+     * Set the part of the refresh time before it where a read may already refresh the key,
+     * the chance grows with the age of the key. 0 by default, the keys are refreshed at the refresh time only
+     * @param earlyRefreshPercentage
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setEarlyRefreshPercentage(Integer earlyRefreshPercentage) {
+        super.earlyRefreshPercentage = earlyRefreshPercentage;
+        return this;
+    }
+
+    /**
+     * Set the serializer of the values pushed to disk, JavaValueSerializer by default.
+     * BinaryValueSerializer writes the primitive wrappers, Strings, byte arrays and the types of its registered codecs
+     * without class descriptors
+     * @param valueSerializer
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setValueSerializer(ValueSerializer<V> valueSerializer) {
+        super.valueSerializer = valueSerializer;
+        return this;
+    }
+
+    /**
+     * Set the direct memory in bytes of the off heap tier between the heap and the disk, 0 by default.
+     * The keys pushed out of the heap are serialized off heap first and go to disk once the off heap tier is full
+     * @param offHeapCapacityBytes
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setOffHeapCapacityBytes(Long offHeapCapacityBytes) {
+        super.offHeapCapacityBytes = offHeapCapacityBytes;
+        return this;
+    }
+
+    /**
+     * Set the number of reads served off heap or from disk before a key is promoted back in memory, 2 by default.
+     * The reads before the promotion leave the value where it is
+     * @param diskPromotionThreshold
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setDiskPromotionThreshold(Integer diskPromotionThreshold) {
+        super.diskPromotionThreshold = diskPromotionThreshold;
+        return this;
+    }
+
+    /**
+     * Set the weigher of the values, the capacity and the memory threshold are then weights instead of numbers of keys.
+     * SerializedSizeWeigher weighs a value by its serialized size in bytes
+     * @param weigher
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setWeigher(Weigher<K,V> weigher) {
+        super.weigher = weigher;
+        return this;
+    }
+
+    /**
+     * Name the cache to make its disk tier durable, the disk tier lives in a directory of this name instead of a random one.
+     * Closing the cache writes its keys to disk with their index, the next cache of the same name serves them
+     * at once until they expire. The keys must be Serializable and the value serializer must not change between the runs
+     * @param cacheName
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setCacheName(String cacheName) {
+        super.cacheName = cacheName;
+        return this;
+    }
+
+    /**
+     * Cache the keys the replenish callbacks found no value for with their own time to live in millis,
+     * usually shorter than the cache timeout. The reads of such a key return empty without calling the callbacks
+     * until it expires or a value is written. Disabled by default
+     * @param negativeCacheTimeout
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setNegativeCacheTimeout(Long negativeCacheTimeout) {
+        super.negativeCacheTimeout = negativeCacheTimeout;
+        return this;
+    }
+
+    /**
+     * Set the part of live bytes under which a disk segment is rewritten by the background compaction, 0.5 by default.
+     * 0 disables the compaction
+     * @param compactionLiveRatio
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setCompactionLiveRatio(Double compactionLiveRatio) {
+        super.compactionLiveRatio = compactionLiveRatio;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of bytes copied per second by the disk compaction, 16 MB by default
+     * @param compactionBytesPerSecond
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setCompactionBytesPerSecond(Long compactionBytesPerSecond) {
+        super.compactionBytesPerSecond = compactionBytesPerSecond;
+        return this;
+    }
+
+    /**
+     * Set the interval in millis between the writes of the disk index of a named cache, 10 seconds by default.
+     * A crash loses the keys spilled to disk since the last write
+     * @param diskIndexInterval
+     * @return
+     */
+    public BasicCleanCacheFactory<K,V> setDiskIndexInterval(Long diskIndexInterval) {
+        super.diskIndexInterval = diskIndexInterval;
+        return this;
+    }
+
     // Create an instance for the BasicCleanCache Proxy
     public CacheProxy<K,V> build(){
         validateData();
-        return new BasicCleanCacheProxy<>(super.cacheTimeout, super.capacity,super.memoryThresholdSize, super.replenishCallback,this.evictionCallback);
+        return new BasicCleanCacheProxy<>(cacheConfig());
+    }
+
+    // Create an instance for the BasicCleanCache Proxy with the asynchronous reads
+    public AsyncCleanCache<K,V> buildAsync(){
+        validateData();
+        return new AsyncCleanCacheProxy<>(cacheConfig());
+    }
+
+    private CacheConfig<K,V> cacheConfig() {
+        return new CacheConfig<K,V>().setCacheTimeout(super.cacheTimeout)
+                .setCapacity(super.capacity).setMemoryThresholdSize(super.memoryThresholdSize)
+                .setReplenishCallback(super.replenishCallback).setEvictionCallback(super.evictionCallback)
+                .setConcurrencyLevel(super.concurrencyLevel).setReadBufferEnabled(super.readBufferEnabled)
+                .setEvictionPolicy(super.evictionPolicy).setAdmissionFilterEnabled(super.admissionFilterEnabled)
+                .setSketchSize(entryCount())
+                .setAdmissionWindowPercentage(super.admissionWindowPercentage).setExpiry(super.expiry)
+                .setAsyncReplenishCallback(super.asyncReplenishCallback).setBulkReplenishCallback(super.bulkReplenishCallback)
+                .setLoaderExecutor(super.loaderExecutor)
+                .setRefreshAfterWrite(super.refreshAfterWrite).setEarlyRefreshPercentage(super.earlyRefreshPercentage)
+                .setValueSerializer(super.valueSerializer).setDiskPromotionThreshold(super.diskPromotionThreshold)
+                .setOffHeapCapacityBytes(super.offHeapCapacityBytes).setWeigher(super.weigher)
+                .setCacheName(super.cacheName).setCompactionLiveRatio(super.compactionLiveRatio)
+                .setCompactionBytesPerSecond(super.compactionBytesPerSecond).setDiskIndexInterval(super.diskIndexInterval)
+                .setNegativeCacheTimeout(super.negativeCacheTimeout)
+                .setRemovalListener(super.removalListener).setRemovalListenerExecutor(super.removalListenerExecutor);
+    }
+
+    /**
+     * Number of keys the cache is expected to hold, the capacity unless the capacity is a weight
+     */
+    private Long entryCount() {
+        if(super.sketchSize != null) return super.sketchSize;
+        return super.weigher == null ? super.capacity : Math.min(super.capacity, CommonConfig.MAX_WEIGHTED_ENTRY_COUNT);
     }
 
     private void validateData() {
         if(this.memoryThresholdSize < 0) throw new RuntimeException(CommonMessage.MEMORY_THRESHOLD_VALUE_CAN_NOT_BE_NEGATIVE);
         if(this.capacity <= 0) throw new RuntimeException(CommonMessage.CAPACITY_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO);
         if(this.memoryThresholdSize > this.capacity) throw new RuntimeException(CommonMessage.MEMORY_THRESHOLD_VALUE_IS_GREATER_THAN_TOTAL_CACHE_CAPACITY);
+        if(this.concurrencyLevel == null || this.concurrencyLevel <= 0) throw new RuntimeException(CommonMessage.CONCURRENCY_LEVEL_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO);
+        if(this.evictionPolicy == null) throw new RuntimeException(CommonMessage.EVICTION_POLICY_CAN_NOT_BE_NULL);
+        if(this.sketchSize != null && this.sketchSize <= 0) throw new RuntimeException(CommonMessage.SKETCH_SIZE_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO);
+        if(this.weigher != null && this.admissionFilterEnabled && this.sketchSize == null) throw new RuntimeException(CommonMessage.SKETCH_SIZE_IS_REQUIRED_WITH_A_WEIGHER);
+        if(this.valueSerializer == null) throw new RuntimeException(CommonMessage.VALUE_SERIALIZER_CAN_NOT_BE_NULL);
+        if(this.offHeapCapacityBytes == null || this.offHeapCapacityBytes < 0) throw new RuntimeException(CommonMessage.OFF_HEAP_CAPACITY_CAN_NOT_BE_NEGATIVE);
+        if(this.diskPromotionThreshold == null || this.diskPromotionThreshold <= 0) throw new RuntimeException(CommonMessage.DISK_PROMOTION_THRESHOLD_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO);
+        if(this.cacheName != null && !this.cacheName.matches("[A-Za-z0-9_-][A-Za-z0-9._-]*")) throw new RuntimeException(CommonMessage.CACHE_NAME_MUST_BE_A_DIRECTORY_NAME);
+        if(this.compactionLiveRatio == null || this.compactionLiveRatio < 0 || this.compactionLiveRatio >= 1) throw new RuntimeException(CommonMessage.COMPACTION_LIVE_RATIO_MUST_BE_BETWEEN_0_AND_1);
+        if(this.compactionBytesPerSecond == null || this.compactionBytesPerSecond <= 0) throw new RuntimeException(CommonMessage.COMPACTION_BYTES_PER_SECOND_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO);
+        if(this.diskIndexInterval == null || this.diskIndexInterval <= 0) throw new RuntimeException(CommonMessage.DISK_INDEX_INTERVAL_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO);
+        if(this.negativeCacheTimeout != null && this.negativeCacheTimeout <= 0) throw new RuntimeException(CommonMessage.NEGATIVE_CACHE_TIMEOUT_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO);
+        if(this.loaderExecutor == null) throw new RuntimeException(CommonMessage.LOADER_EXECUTOR_CAN_NOT_BE_NULL);
+        if(this.removalListenerExecutor == null) throw new RuntimeException(CommonMessage.REMOVAL_LISTENER_EXECUTOR_CAN_NOT_BE_NULL);
+        if(this.refreshAfterWrite != null && this.refreshAfterWrite <= 0) throw new RuntimeException(CommonMessage.REFRESH_AFTER_WRITE_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO);
+        if(this.earlyRefreshPercentage == null || this.earlyRefreshPercentage < 0 || this.earlyRefreshPercentage > 100) throw new RuntimeException(CommonMessage.EARLY_REFRESH_PERCENTAGE_MUST_BE_BETWEEN_0_AND_100);
+        if(this.admissionWindowPercentage == null || this.admissionWindowPercentage < 0 || this.admissionWindowPercentage > 99) throw new RuntimeException(CommonMessage.ADMISSION_WINDOW_PERCENTAGE_MUST_BE_BETWEEN_0_AND_99);
     }
 
 
@@ -1,10 +1,22 @@
 package org.cache.factory;
 
 import org.cache.config.CommonConfig;
+import org.cache.eviction.EvictionPolicyType;
+import org.cache.interfaces.AsyncReplenishCallback;
+import org.cache.interfaces.BulkReplenishCallback;
 import org.cache.interfaces.EvictionCallback;
+import org.cache.interfaces.EvictionPolicy;
+import org.cache.interfaces.Expiry;
+import org.cache.interfaces.RemovalListener;
 import org.cache.interfaces.ReplenishCallback;
+import org.cache.interfaces.ValueSerializer;
+import org.cache.interfaces.Weigher;
+import org.cache.serializer.JavaValueSerializer;
 
 import java.io.Serializable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
 
 /**
  * Cache Factory for the cache init
@@ -18,10 +30,38 @@ public class CacheFactory<K,V extends Serializable> {
     protected Long capacity = CommonConfig.DEFAULT_CACHE_SIZE;
     protected Long cacheTimeout = CommonConfig.DEFAULT_CACHE_OBJECT_TIMEOUT;
     protected Long memoryThresholdSize = null;
+    protected Integer concurrencyLevel = CommonConfig.DEFAULT_CONCURRENCY_LEVEL;
+    protected boolean readBufferEnabled = false;
+    protected LongFunction<EvictionPolicy<K,V>> evictionPolicy = EvictionPolicyType.LRU::create;
+    protected boolean admissionFilterEnabled = false;
+    protected Long sketchSize = null;
+    protected Integer admissionWindowPercentage = CommonConfig.DEFAULT_ADMISSION_WINDOW_PERCENTAGE;
+    protected Expiry<K,V> expiry = null;
+    protected AsyncReplenishCallback<K,V> asyncReplenishCallback = null;
+    protected BulkReplenishCallback<K,V> bulkReplenishCallback = null;
+    protected Executor loaderExecutor = ForkJoinPool.commonPool();
+    protected Long refreshAfterWrite = null;
+    protected ValueSerializer<V> valueSerializer = new JavaValueSerializer<>();
+    protected Integer earlyRefreshPercentage = 0;
+    protected Long offHeapCapacityBytes = 0L;
+    protected Integer diskPromotionThreshold = CommonConfig.DEFAULT_DISK_PROMOTION_THRESHOLD;
+    protected Weigher<K,V> weigher = null;
+    protected String cacheName = null;
+    protected Long negativeCacheTimeout = null;
+    protected Double compactionLiveRatio = CommonConfig.DEFAULT_COMPACTION_LIVE_RATIO;
+    protected Long compactionBytesPerSecond = CommonConfig.DEFAULT_COMPACTION_BYTES_PER_SECOND;
+    protected Long diskIndexInterval = CommonConfig.DEFAULT_DISK_INDEX_INTERVAL;
+    protected RemovalListener<K,V> removalListener = null;
+    protected Executor removalListenerExecutor = ForkJoinPool.commonPool();
 
     public BasicCleanCacheFactory<K,V> basicCleanCache(){
         return new BasicCleanCacheFactory<>();
     }
 
+    //Cache keyed by primitive longs, the key type of this factory is not used
+    public LongCleanCacheFactory<V> longCleanCache(){
+        return new LongCleanCacheFactory<>();
+    }
+
 
 }
@@ -0,0 +1,114 @@
+package org.cache.factory;
+
+import org.cache.config.CacheConfig;
+import org.cache.config.CommonConfig;
+import org.cache.config.CommonMessage;
+import org.cache.core.LongCleanCache;
+import org.cache.interfaces.LongReplenishCallback;
+import org.cache.interfaces.ValueSerializer;
+
+import java.io.Serializable;
+
+/**
+ * Factory for the LongCleanCache object, a cache keyed by primitive longs
+ * @param <V>
+ */
+public class LongCleanCacheFactory<V extends Serializable> extends CacheFactory<Long,V> {
+
+    private LongReplenishCallback<V> longReplenishCallback = null;
+
+    //Package private Don't change
+    LongCleanCacheFactory(){}
+
+    /**
+     * set the capacity of the cache
+     * @param capacity
+     * @return
+     */
+    public LongCleanCacheFactory<V> setCapacity(Long capacity) {
+        super.capacity = capacity;
+        if(super.memoryThresholdSize == null) super.memoryThresholdSize = capacity;
+        return this;
+    }
+
+    /**
+     * Set the timeout time for the cached object
+     * @param cacheTimeout
+     * @return
+     */
+    public LongCleanCacheFactory<V> setCacheTimeout(Long cacheTimeout) {
+        super.cacheTimeout = cacheTimeout;
+        return this;
+    }
+
+    /**
+     * Set the memory Threshold Size time for the cached object
+     * @param memoryThresholdSize
+     * @return
+     */
+    public LongCleanCacheFactory<V> setMemoryThresholdSize(Long memoryThresholdSize) {
+        super.memoryThresholdSize = memoryThresholdSize;
+        return this;
+    }
+
+    /**
+     * Set the replenish Callback method, it gets the missing key without boxing
+     * @param replenishCallback
+     * @return
+     */
+    public LongCleanCacheFactory<V> setReplenishCallback(LongReplenishCallback<V> replenishCallback) {
+        this.longReplenishCallback = replenishCallback;
+        return this;
+    }
+
+    /**
+     * Set the number of independent segments of the cache, every segment has its own lock and eviction order.
+     * The value is rounded up to a power of two
+     * @param concurrencyLevel
+     * @return
+     */
+    public LongCleanCacheFactory<V> setConcurrencyLevel(Integer concurrencyLevel) {
+        super.concurrencyLevel = concurrencyLevel;
+        return this;
+    }
+
+    /**
+     * Set the serializer of the values written to disk, Java serialization by default
+     * @param valueSerializer
+     * @return
+     */
+    public LongCleanCacheFactory<V> setValueSerializer(ValueSerializer<V> valueSerializer) {
+        super.valueSerializer = valueSerializer;
+        return this;
+    }
+
+    /**
+     * Set the number of reads served from disk before a value moves back to memory
+     * @param diskPromotionThreshold
+     * @return
+     */
+    public LongCleanCacheFactory<V> setDiskPromotionThreshold(Integer diskPromotionThreshold) {
+        super.diskPromotionThreshold = diskPromotionThreshold;
+        return this;
+    }
+
+    // Create an instance for the LongCleanCache, the cache is created at once
+    public LongCleanCache<V> build(){
+        validateData();
+        return new LongCleanCache<>(new CacheConfig<Long,V>().setCacheTimeout(super.cacheTimeout)
+                .setCapacity(super.capacity).setMemoryThresholdSize(super.memoryThresholdSize)
+                .setConcurrencyLevel(super.concurrencyLevel).setValueSerializer(super.valueSerializer)
+                .setDiskPromotionThreshold(super.diskPromotionThreshold), this.longReplenishCallback);
+    }
+
+    private void validateData() {
+        if(this.capacity == null || this.capacity <= 0) throw new RuntimeException(CommonMessage.CAPACITY_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO);
+        if(this.memoryThresholdSize != null && this.memoryThresholdSize < 0) throw new RuntimeException(CommonMessage.MEMORY_THRESHOLD_VALUE_CAN_NOT_BE_NEGATIVE);
+        if(this.memoryThresholdSize != null && this.memoryThresholdSize > this.capacity) throw new RuntimeException(CommonMessage.MEMORY_THRESHOLD_VALUE_IS_GREATER_THAN_TOTAL_CACHE_CAPACITY);
+        if(this.concurrencyLevel == null || this.concurrencyLevel <= 0) throw new RuntimeException(CommonMessage.CONCURRENCY_LEVEL_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO);
+        long segmentCount = Integer.highestOneBit(this.concurrencyLevel * 2 - 1);
+        if((this.capacity + segmentCount - 1) / segmentCount > CommonConfig.MAX_LONG_SEGMENT_CAPACITY) throw new RuntimeException(CommonMessage.SEGMENT_CAPACITY_IS_TOO_BIG);
+        if(this.valueSerializer == null) throw new RuntimeException(CommonMessage.VALUE_SERIALIZER_CAN_NOT_BE_NULL);
+        if(this.diskPromotionThreshold == null || this.diskPromotionThreshold <= 0) throw new RuntimeException(CommonMessage.DISK_PROMOTION_THRESHOLD_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO);
+    }
+}
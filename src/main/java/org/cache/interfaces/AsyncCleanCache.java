@@ -0,0 +1,21 @@
+package org.cache.interfaces;
+
+import java.io.Serializable;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cache view with non blocking reads, a miss is loaded by the replenish callbacks on the loader executor
+ * @param <K>
+ * @param <V>
+ */
+public interface AsyncCleanCache<K,V extends Serializable> extends ICleanCache<K,V> {
+
+    /**
+     * Cached object for the key, the concurrent misses of a key share the same future
+     * and a failed load is not cached
+     * @param key key of the cached object
+     * @return future of the cached object, completed at once on a hit
+     */
+    CompletableFuture<Optional<V>> getAsync(K key);
+}
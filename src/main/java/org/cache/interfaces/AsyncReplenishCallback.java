@@ -0,0 +1,22 @@
+package org.cache.interfaces;
+
+import java.io.Serializable;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous callback method, loads a missing key without blocking the reader
+ * @param <K>
+ * @param <V>
+ */
+@FunctionalInterface
+public interface AsyncReplenishCallback<K,V extends Serializable> {
+
+    /**
+     * @param key missing key
+     * @param executor loader executor of the cache
+     * @return future of the loaded object
+     */
+    CompletableFuture<Optional<V>> call(K key, Executor executor);
+}
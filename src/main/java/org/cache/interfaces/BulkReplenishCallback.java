@@ -0,0 +1,20 @@
+package org.cache.interfaces;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Callback method loading all the missing keys of a bulk read in one call
+ * @param <K>
+ * @param <V>
+ */
+@FunctionalInterface
+public interface BulkReplenishCallback<K,V extends Serializable> {
+
+    /**
+     * @param keys missing keys
+     * @return loaded objects, a key without object is left out
+     */
+    Map<K,V> call(Collection<K> keys);
+}
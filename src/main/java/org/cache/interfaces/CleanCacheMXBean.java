@@ -0,0 +1,91 @@
+package org.cache.interfaces;
+
+import org.cache.core.LatencyPercentiles;
+
+/**
+ * Live statistics of a cache, registered as a platform MBean under the name
+ * org.cache:type=CleanCache,name=(cache name or uuid). The attributes read the counters directly
+ * without any cache lock, the latencies are in nanos
+ */
+public interface CleanCacheMXBean {
+
+    /**
+     * Name of the cache, its uuid if it has none
+     */
+    String getName();
+
+    long getCapacity();
+
+    /**
+     * Number of cached keys, the negative entries excluded
+     */
+    long getSize();
+
+    long getMemorySize();
+
+    long getOffHeapSize();
+
+    long getDiskSize();
+
+    long getNegativeSize();
+
+    long getTotalWeight();
+
+    long getMemoryWeight();
+
+    long getOffHeapWeight();
+
+    long getDiskWeight();
+
+    long getAccessCount();
+
+    long getMissCount();
+
+    double getHitRatio();
+
+    double getMissRatio();
+
+    long getReplenishCount();
+
+    long getReplenishCoalesced();
+
+    long getRefreshCount();
+
+    long getRefreshFailures();
+
+    long getAdmissionRejections();
+
+    long getNegativeHits();
+
+    long getOffHeapHits();
+
+    long getDiskHits();
+
+    long getDiskPromotions();
+
+    long getSpillQueueDepth();
+
+    long getSpilledNodes();
+
+    long getSpilledBytes();
+
+    long getSpillBatches();
+
+    long getDiskLiveBytes();
+
+    long getDiskDeadBytes();
+
+    long getCompactedBytes();
+
+    LatencyPercentiles getGetHitLatency();
+
+    LatencyPercentiles getGetMissLatency();
+
+    LatencyPercentiles getPutLatency();
+
+    LatencyPercentiles getReplenishLatency();
+
+    LatencyPercentiles getSpillLatency();
+
+    LatencyPercentiles getDiskReadLatency();
+}
@@ -3,7 +3,7 @@ package org.cache.interfaces;
 import java.io.Serializable;
 
 /**
- * the cache entry eviction callback
+ * the cache entry eviction callback, called asynchronously like a removal listener for the evicted and expired keys
  * @param <K>
  * @param <V>
  */
@@ -0,0 +1,45 @@
+package org.cache.interfaces;
+
+import org.cache.model.CacheNode;
+
+import java.io.Serializable;
+
+/**
+ * Eviction policy of a cache segment, decides which node leaves the cache when it is full.
+ * A policy instance is used by one segment only and always called while holding the segment lock,
+ * every method is expected to run in constant amortized time.
+ * @param <K>
+ * @param <V>
+ */
+public interface EvictionPolicy<K,V extends Serializable> {
+
+    /**
+     * A new node is added in the segment
+     */
+    void onAdd(CacheNode<K,V> cacheNode);
+
+    /**
+     * A node of the segment is read or updated
+     */
+    void onAccess(CacheNode<K,V> cacheNode);
+
+    /**
+     * A node is removed from the segment, by the user or because it expired
+     */
+    void onRemove(CacheNode<K,V> cacheNode);
+
+    /**
+     * Next node to evict, the node stays in the policy until onEvict is called.
+     * Asking again without any other call in between returns the same node, a policy may only advance
+     * its own bookkeeping like the hand of a clock, the other side effects are done by onEvict
+     * @return victim node, null if the policy has no node
+     */
+    CacheNode<K,V> victim();
+
+    /**
+     * A node returned by victim is evicted
+     */
+    default void onEvict(CacheNode<K,V> cacheNode) {
+        onRemove(cacheNode);
+    }
+}
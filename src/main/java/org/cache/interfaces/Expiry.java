@@ -0,0 +1,45 @@
+package org.cache.interfaces;
+
+import java.io.Serializable;
+
+/**
+ * Expiry strategy of the cache, computes the time to live of a key in millis after every write or read
+ * @param <K>
+ * @param <V>
+ */
+@FunctionalInterface
+public interface Expiry<K,V extends Serializable> {
+
+    /**
+     * Time to live of a new key
+     * @param key key of the cached object
+     * @param value cached object
+     * @param currentTime current time in millis
+     * @return time to live in millis
+     */
+    long expireAfterCreate(K key, V value, long currentTime);
+
+    /**
+     * Time to live of a key after an overwrite, the same as a new key by default
+     * @param key key of the cached object
+     * @param value new cached object
+     * @param currentTime current time in millis
+     * @param remainingTime time to live left before the overwrite
+     * @return time to live in millis
+     */
+    default long expireAfterUpdate(K key, V value, long currentTime, long remainingTime) {
+        return expireAfterCreate(key, value, currentTime);
+    }
+
+    /**
+     * Time to live of a key after a read, unchanged by default
+     * @param key key of the cached object
+     * @param value cached object
+     * @param currentTime current time in millis
+     * @param remainingTime time to live left before the read
+     * @return time to live in millis
+     */
+    default long expireAfterRead(K key, V value, long currentTime, long remainingTime) {
+        return remainingTime;
+    }
+}
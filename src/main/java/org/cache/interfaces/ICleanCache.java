@@ -3,6 +3,8 @@ package org.cache.interfaces;
 import org.cache.core.CacheStatistics;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -10,7 +12,7 @@ import java.util.Optional;
  * @param <K>
  * @param <V>
  */
-public interface ICleanCache<K,V extends Serializable> {
+public interface ICleanCache<K,V extends Serializable> extends AutoCloseable {
 
     void clear();
 
@@ -22,7 +24,41 @@ public interface ICleanCache<K,V extends Serializable> {
 
     void put(K key, V value);
 
+    /**
+     * Add an object with its own time to live, the expiry strategy of the cache is not used for this write
+     * @param key key for the object
+     * @param value object
+     * @param ttl time to live in millis
+     */
+    void put(K key, V value, long ttl);
+
     Optional<V> remove(K key);
 
+    /**
+     * Cached objects of a batch of keys, the missing keys are loaded by the bulk replenish callback in one call
+     * @param keys keys of the cached objects
+     * @return found and loaded objects by key
+     */
+    Map<K,V> getAll(Collection<K> keys);
+
+    /**
+     * Add a batch of objects, the eviction order of every segment is updated once for the whole batch
+     * @param values objects by key
+     */
+    void putAll(Map<K,V> values);
+
+    /**
+     * Remove a batch of keys
+     * @param keys keys of the cached objects need to be removed
+     */
+    void removeAll(Collection<K> keys);
+
     CacheStatistics getCacheStatistics();
+
+    /**
+     * Close the cache, it can not be used anymore. A named cache writes its keys to its disk tier
+     * for the next cache of the same name, the disk tier of an other cache is deleted
+     */
+    @Override
+    void close();
 }
@@ -0,0 +1,13 @@
+package org.cache.interfaces;
+
+import java.io.Serializable;
+import java.util.Optional;
+
+/**
+ * Callback method of the caches keyed by a primitive long, the key is not boxed
+ * @param <V>
+ */
+@FunctionalInterface
+public interface LongReplenishCallback<V extends Serializable> {
+    Optional<V> call(long key);
+}
@@ -0,0 +1,24 @@
+package org.cache.interfaces;
+
+import org.cache.model.RemovalCause;
+
+import java.io.Serializable;
+
+/**
+ * Listener of the values leaving the cache or its memory. The notifications are delivered asynchronously
+ * in batches on the removal listener executor, in the order of the removals, so a slow listener
+ * does not delay the writes nor the expiry
+ * @param <K>
+ * @param <V>
+ */
+@FunctionalInterface
+public interface RemovalListener<K,V extends Serializable> {
+
+    /**
+     * @param key key of the removed value
+     * @param value removed value, null for a key cached as missing by the negative cache, a value collected
+     *              by the garbage collector or a value on disk which could not be read
+     * @param cause reason of the removal
+     */
+    void onRemoval(K key, V value, RemovalCause cause);
+}
@@ -0,0 +1,24 @@
+package org.cache.interfaces;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts the values pushed to disk to bytes and back. The bytes are written straight into the buffers of the disk store
+ * @param <V>
+ */
+public interface ValueSerializer<V> {
+
+    /**
+     * Write the value from the position of the buffer
+     * @param value value to write
+     * @param buffer target buffer, a BufferOverflowException makes the disk store retry with a bigger one
+     */
+    void serialize(V value, ByteBuffer buffer);
+
+    /**
+     * Read a value written by serialize
+     * @param buffer bytes of the value, from its position to its limit
+     * @return value
+     */
+    V deserialize(ByteBuffer buffer);
+}
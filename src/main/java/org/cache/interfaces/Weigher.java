@@ -0,0 +1,20 @@
+package org.cache.interfaces;
+
+import java.io.Serializable;
+
+/**
+ * Weight of a cached object, the capacity and the memory threshold of the cache are given in the same unit.
+ * The weight is computed once per write, usually an estimate of the size in bytes
+ * @param <K>
+ * @param <V>
+ */
+@FunctionalInterface
+public interface Weigher<K,V extends Serializable> {
+
+    /**
+     * @param key key of the cached object
+     * @param value cached object
+     * @return weight of the object, not negative
+     */
+    int weigh(K key, V value);
+}
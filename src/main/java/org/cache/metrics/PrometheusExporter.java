@@ -0,0 +1,208 @@
+package org.cache.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.cache.config.CommonConfig;
+import org.cache.core.CacheMetrics;
+import org.cache.core.LatencyPercentiles;
+import org.cache.interfaces.CleanCacheMXBean;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Serves the metrics of the open caches in the Prometheus text format, on the built in HTTP server of the JDK.
+ * A scrape reads the counters of the caches without taking their locks. The server thread is not a daemon,
+ * the exporter has to be closed
+ */
+public final class PrometheusExporter implements AutoCloseable {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final String PREFIX = "cleancache_";
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private static final List<Metric> METRICS = Arrays.asList(
+            Metric.gauge("capacity", "Maximum weight of the cache.", CleanCacheMXBean::getCapacity),
+            Metric.gauge("size", "Cached keys, the negative entries excluded.", CleanCacheMXBean::getSize),
+            Metric.gauge("memory_size", "Keys with their value on the heap.", CleanCacheMXBean::getMemorySize),
+            Metric.gauge("off_heap_size", "Keys with their value off heap.", CleanCacheMXBean::getOffHeapSize),
+            Metric.gauge("disk_size", "Keys with their value on disk.", CleanCacheMXBean::getDiskSize),
+            Metric.gauge("negative_size", "Keys cached as having no value.", CleanCacheMXBean::getNegativeSize),
+            Metric.gauge("weight", "Weight of the cached keys.", CleanCacheMXBean::getTotalWeight),
+            Metric.gauge("memory_weight", "Weight of the keys with their value on the heap.", CleanCacheMXBean::getMemoryWeight),
+            Metric.gauge("off_heap_weight", "Weight of the keys with their value off heap.", CleanCacheMXBean::getOffHeapWeight),
+            Metric.gauge("disk_weight", "Weight of the keys with their value on disk.", CleanCacheMXBean::getDiskWeight),
+            Metric.counter("gets_total", "Reads of the cache.", CleanCacheMXBean::getAccessCount),
+            Metric.counter("misses_total", "Reads of a missing or expired key.", CleanCacheMXBean::getMissCount),
+            Metric.ratio("hit_ratio", "Part of the reads answered from the cache.", CleanCacheMXBean::getHitRatio),
+            Metric.counter("replenishes_total", "Keys loaded by the replenish callbacks.", CleanCacheMXBean::getReplenishCount),
+            Metric.counter("replenish_coalesced_total", "Misses which waited for the load of an other thread.", CleanCacheMXBean::getReplenishCoalesced),
+            Metric.counter("refreshes_total", "Background reloads of the keys.", CleanCacheMXBean::getRefreshCount),
+            Metric.counter("refresh_failures_total", "Background reloads which failed.", CleanCacheMXBean::getRefreshFailures),
+            Metric.counter("admission_rejections_total", "New keys evicted by the admission filter.", CleanCacheMXBean::getAdmissionRejections),
+            Metric.counter("negative_hits_total", "Reads answered by the negative cache.", CleanCacheMXBean::getNegativeHits),
+            Metric.counter("off_heap_hits_total", "Reads served off heap.", CleanCacheMXBean::getOffHeapHits),
+            Metric.counter("disk_hits_total", "Reads served from disk.", CleanCacheMXBean::getDiskHits),
+            Metric.counter("disk_promotions_total", "Keys promoted back in memory.", CleanCacheMXBean::getDiskPromotions),
+            Metric.gauge("spill_queue_depth", "Values waiting for the disk writer.", CleanCacheMXBean::getSpillQueueDepth),
+            Metric.counter("spilled_nodes_total", "Values written to disk.", CleanCacheMXBean::getSpilledNodes),
+            Metric.counter("spilled_bytes_total", "Bytes written to disk.", CleanCacheMXBean::getSpilledBytes),
+            Metric.counter("spill_batches_total", "Batch writes to disk.", CleanCacheMXBean::getSpillBatches),
+            Metric.gauge("disk_live_bytes", "Bytes of the values referenced on disk.", CleanCacheMXBean::getDiskLiveBytes),
+            Metric.gauge("disk_dead_bytes", "Bytes on disk not referenced anymore.", CleanCacheMXBean::getDiskDeadBytes),
+            Metric.counter("compacted_bytes_total", "Bytes moved by the disk compaction.", CleanCacheMXBean::getCompactedBytes),
+            Metric.summary("get_hit_latency_seconds", "Latency of the reads answered from the cache.", CleanCacheMXBean::getGetHitLatency),
+            Metric.summary("get_miss_latency_seconds", "Latency of the reads which missed.", CleanCacheMXBean::getGetMissLatency),
+            Metric.summary("put_latency_seconds", "Latency of the puts.", CleanCacheMXBean::getPutLatency),
+            Metric.summary("replenish_latency_seconds", "Latency of the replenish callback calls.", CleanCacheMXBean::getReplenishLatency),
+            Metric.summary("spill_latency_seconds", "Latency of the batch writes to disk.", CleanCacheMXBean::getSpillLatency),
+            Metric.summary("disk_read_latency_seconds", "Latency of the reads of a value from disk.", CleanCacheMXBean::getDiskReadLatency));
+
+    private final HttpServer server;
+
+    /**
+     * @param port port of the metrics endpoint, 0 for any free port
+     */
+    public PrometheusExporter(int port) throws IOException {
+        this(new InetSocketAddress(port));
+    }
+
+    /**
+     * @param address address of the metrics endpoint
+     */
+    public PrometheusExporter(InetSocketAddress address) throws IOException {
+        this.server = HttpServer.create(address, 0);
+        this.server.createContext(CommonConfig.METRICS_PATH, this::handle);
+    }
+
+    public PrometheusExporter start() {
+        server.start();
+        return this;
+    }
+
+    /**
+     * Port the metrics are served on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    /**
+     * Metrics of the caches in the Prometheus text format, the samples of a metric are grouped across the caches
+     * @param caches metrics of the caches
+     * @return exposition text
+     */
+    public static String scrape(Collection<? extends CleanCacheMXBean> caches) {
+        StringBuilder text = new StringBuilder();
+        for (Metric metric : METRICS) {
+            String name = PREFIX + metric.name;
+            text.append("# HELP ").append(name).append(' ').append(metric.help).append('\n');
+            text.append("# TYPE ").append(name).append(' ').append(metric.type).append('\n');
+            for (CleanCacheMXBean cache : caches) {
+                String label = "cache=\"" + escape(cache.getName()) + "\"";
+                if(metric.latency != null){
+                    LatencyPercentiles percentiles = metric.latency.apply(cache);
+                    sample(text, name, label + ",quantile=\"0.5\"", percentiles.getP50() / NANOS_PER_SECOND);
+                    sample(text, name, label + ",quantile=\"0.99\"", percentiles.getP99() / NANOS_PER_SECOND);
+                    sample(text, name, label + ",quantile=\"0.999\"", percentiles.getP999() / NANOS_PER_SECOND);
+                    sample(text, name + "_sum", label, percentiles.getSum() / NANOS_PER_SECOND);
+                    text.append(name).append("_count{").append(label).append("} ").append(percentiles.getCount()).append('\n');
+                }else if(metric.ratio != null){
+                    sample(text, name, label, metric.ratio.applyAsDouble(cache));
+                }else{
+                    text.append(name).append('{').append(label).append("} ").append(metric.value.applyAsLong(cache)).append('\n');
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if(!"GET".equals(method) && !"HEAD".equals(method)){
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = scrape(CacheMetrics.registered()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if("HEAD".equals(method)){
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void sample(StringBuilder text, String name, String labels, double value) {
+        text.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Metric family read from every cache, exactly one of the readers is set
+     */
+    private static final class Metric {
+
+        private final String name;
+
+        private final String type;
+
+        private final String help;
+
+        private final ToLongFunction<CleanCacheMXBean> value;
+
+        private final ToDoubleFunction<CleanCacheMXBean> ratio;
+
+        private final Function<CleanCacheMXBean, LatencyPercentiles> latency;
+
+        private Metric(String name, String type, String help, ToLongFunction<CleanCacheMXBean> value,
+                       ToDoubleFunction<CleanCacheMXBean> ratio, Function<CleanCacheMXBean, LatencyPercentiles> latency) {
+            this.name = name;
+            this.type = type;
+            this.help = help;
+            this.value = value;
+            this.ratio = ratio;
+            this.latency = latency;
+        }
+
+        static Metric counter(String name, String help, ToLongFunction<CleanCacheMXBean> value) {
+            return new Metric(name, "counter", help, value, null, null);
+        }
+
+        static Metric gauge(String name, String help, ToLongFunction<CleanCacheMXBean> value) {
+            return new Metric(name, "gauge", help, value, null, null);
+        }
+
+        static Metric ratio(String name, String help, ToDoubleFunction<CleanCacheMXBean> ratio) {
+            return new Metric(name, "gauge", help, null, ratio, null);
+        }
+
+        static Metric summary(String name, String help, Function<CleanCacheMXBean, LatencyPercentiles> latency) {
+            return new Metric(name, "summary", help, null, null, latency);
+        }
+    }
+}
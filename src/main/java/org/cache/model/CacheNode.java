@@ -1,19 +1,20 @@
 package org.cache.model;
 
 import org.cache.config.CommonConfig;
-import org.cache.config.CommonUtils;
 import org.cache.config.LogFormatter;
 import org.cache.core.BasicCleanCache;
-import org.cache.core.CacheStats;
+import org.cache.disk.DiskEntry;
+import org.cache.disk.DiskStore;
+import org.cache.offheap.OffHeapEntry;
+import org.cache.offheap.OffHeapStore;
 
 import java.io.*;
 import java.lang.ref.SoftReference;
+import java.util.function.BooleanSupplier;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Formatter;
 import java.util.logging.Logger;
 
-import static org.cache.config.CommonConfig.DISK_CACHE_PATH;
-
 /**
  * CaheNode class for storing the cached value in form doubly linked list
  * @param <K> key type of the object
@@ -23,15 +24,62 @@ public class CacheNode<K,V extends Serializable> {
 
     //Store the key of the object
     private final K key;
-    //Value of the object
-    private SoftReference<V> value;
+    //Value of the object, null while the node is off heap or on disk
+    private volatile SoftReference<V> value;
     //Link to the previous node
     private CacheNode<K,V> prev;
 
-    private PersistentState persistentState = PersistentState.IN_MEMORY;
+    private volatile PersistentState persistentState = PersistentState.IN_MEMORY;
+
+    //Location of the value in the disk store while the node is on disk
+    private DiskEntry diskEntry;
+
+    //Location of the value in the off heap store while the node is off heap
+    private OffHeapEntry<V> offHeapEntry;
+
+    //Value queued for the disk while the node is spilling
+    private V spillingValue;
+
+    //Weight of the value, 1 when the cache has no weigher
+    private volatile int weight = 1;
+
+    //Key the replenish callback found no value for, until a value is written
+    private volatile boolean negative = false;
+
+    //Reads served off heap or from disk since the node left the heap
+    private int coldReads;
+
+    //Set once the node is removed from the cache, a retired node is never written to disk again
+    private volatile boolean retired = false;
     //Link to the next node
     private CacheNode<K,V> next;
 
+    //Links of the list of the in memory, off heap or on disk nodes, used to pick the nodes pushed down or promoted
+    private CacheNode<K,V> memoryPrev;
+    private CacheNode<K,V> memoryNext;
+
+    //Tier of the list of its segment holding the node, null if it is in none
+    private PersistentState residency;
+
+    //Eviction policy specific state like the frequency or the reference bit
+    private int policyState;
+
+    //Node is part of the eviction policy and the memory list of its segment
+    private boolean linked;
+
+    //Node is in the admission window and not yet admitted to the eviction policy
+    private boolean inAdmissionWindow;
+
+    //Expiry time of the node in millis
+    private volatile long expirationTime;
+
+    //Time of the last write of the value in millis
+    private volatile long writeTime;
+
+    //Links of the timer wheel bucket of the node
+    private CacheNode<K,V> timerPrev;
+    private CacheNode<K,V> timerNext;
+
     private final static Logger LOGGER;
     static {
         LOGGER = Logger.getLogger(BasicCleanCache.class.getName());
@@ -43,13 +91,6 @@ public class CacheNode<K,V extends Serializable> {
 
         LOGGER.addHandler(handler);
         LOGGER.setLevel(CommonConfig.LOGGING_LEVEL);
-
-        try {
-            CommonUtils.deleteDirectory(DISK_CACHE_PATH);
-            CommonUtils.createNewDirectory(DISK_CACHE_PATH);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
     }
 
     public CacheNode(K key, SoftReference<V> value){
@@ -57,39 +98,182 @@ public class CacheNode<K,V extends Serializable> {
         this.value = value;
     }
 
-    public void setValue(SoftReference<V> value) {
+    /**
+     * Node of a key the replenish callback found no value for, it stays in memory without value
+     * @param key key of the missing value
+     * @return negative node of weight 1
+     */
+    public static <K,V extends Serializable> CacheNode<K,V> negative(K key) {
+        CacheNode<K,V> cacheNode = new CacheNode<>(key, new SoftReference<>(null));
+        cacheNode.negative = true;
+        return cacheNode;
+    }
+
+    /**
+     * Node of a key found on disk by the recovery of a durable disk store
+     * @param key key of the value
+     * @param diskEntry location of the value
+     * @param weight weight of the value
+     * @param diskStore store holding the value
+     * @return node on disk
+     */
+    public static <K,V extends Serializable> CacheNode<K,V> restore(K key, DiskEntry diskEntry, int weight, DiskStore<K,V> diskStore) {
+        CacheNode<K,V> cacheNode = new CacheNode<>(key, null);
+        cacheNode.diskEntry = diskEntry;
+        cacheNode.weight = weight;
+        cacheNode.persistentState = PersistentState.DISK;
+        diskStore.getCacheStats().diskCachedNodes.incrementAndGet();
+        diskStore.getCacheStats().diskWeight.addAndGet(weight);
+        return cacheNode;
+    }
+
+    /**
+     * Replace the value taking the old one out for the removal listener, an old value off heap or on disk is not read
+     * @return replaced value
+     */
+    public synchronized RemovedValue<V> replaceValue(SoftReference<V> value, int weight, DiskStore<K,V> diskStore) {
+        RemovedValue<V> replacedValue = this.detachValue(diskStore);
+        this.value = value;
+        this.weight = weight;
+        this.negative = false;
+        return replacedValue;
+    }
+
+    public synchronized void setValue(SoftReference<V> value, int weight, DiskStore<K,V> diskStore) {
+        //Old value on disk is not valid any more
+        if(this.persistentState == PersistentState.DISK){
+            this.removeCacheNodeFromDisk(diskStore);
+        }else if(this.persistentState == PersistentState.SPILLING){
+            this.abortSpill(diskStore);
+        }else if(this.persistentState == PersistentState.OFF_HEAP){
+            this.removeCacheNodeFromOffHeap();
+        }
         this.value = value;
+        this.weight = weight;
+        this.negative = false;
+    }
+
+    public boolean isNegative() {
+        return negative;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Weight of a new node, the weight of a node in the map changes with its value only
+     */
+    public void setWeight(int weight) {
+        this.weight = weight;
     }
 
     public K getKey() {
         return key;
     }
 
-    public SoftReference<V> getValue(CacheStats cacheStats) {
+    /**
+     * Value of the node without touching the off heap store or the disk
+     * @return value reference or null if the value is off heap or on disk
+     */
+    public SoftReference<V> getMemoryValue() {
+        return value;
+    }
+
+    /**
+     * Value of the node, a value off heap or on disk is read without moving the node back in memory
+     * @return value reference
+     */
+    public synchronized SoftReference<V> getValue(DiskStore<K,V> diskStore) {
+        if(this.persistentState == PersistentState.OFF_HEAP){
+            return new SoftReference<V>(offHeapEntry.read());
+        }
         if(this.persistentState == PersistentState.DISK){
             try {
-                V cachedValue = this.getCacheNodeFromDisk(cacheStats.getUuid());
-                value = new SoftReference<V>(cachedValue);
-                this.removeCacheNodeFromDisk(cacheStats);
-                cacheStats.diskCachedNodes--;
-                this.persistentState = PersistentState.IN_MEMORY;
-            } catch (IOException | ClassNotFoundException e) {
+                return new SoftReference<V>(diskStore.read(diskEntry));
+            } catch (RuntimeException e) {
                 e.printStackTrace();
-                value = new SoftReference<V>(null);
+                return new SoftReference<V>(null);
             }
         }
         return value;
     }
 
-    public void clearValue(CacheStats cacheStats){
+    /**
+     * Count a read of the value off heap or on disk, the node is promoted back in memory once it is read often enough
+     * @param diskStore store holding the value
+     * @param promotionThreshold number of reads off heap or on disk before the promotion
+     * @return true if the node was promoted
+     */
+    public synchronized boolean recordColdRead(DiskStore<K,V> diskStore, int promotionThreshold) {
+        if(this.persistentState == PersistentState.OFF_HEAP){
+            diskStore.getCacheStats().offHeapHits.increment();
+        }else if(this.persistentState == PersistentState.DISK){
+            diskStore.getCacheStats().diskHits.increment();
+        }else{
+            return false;
+        }
+        if(++coldReads < promotionThreshold) return false;
+        return promote(diskStore);
+    }
+
+    /**
+     * Bring the value back in memory, a spilling node just gives up its pending write
+     * @param diskStore store holding the value
+     * @return true if the value is in memory
+     */
+    public synchronized boolean promote(DiskStore<K,V> diskStore) {
+        if(retired) return false;
+        if(this.persistentState == PersistentState.OFF_HEAP){
+            value = new SoftReference<V>(offHeapEntry.read());
+            this.removeCacheNodeFromOffHeap();
+        }else if(this.persistentState == PersistentState.SPILLING){
+            this.abortSpill(diskStore);
+        }else if(this.persistentState == PersistentState.DISK){
+            try {
+                value = new SoftReference<V>(diskStore.read(diskEntry));
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                return false;
+            }
+            this.removeCacheNodeFromDisk(diskStore);
+            diskStore.getCacheStats().diskPromotions.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Retire the node taking its value out for the removal listener, a value off heap or on disk is not read
+     * @param diskStore store holding the value
+     * @return removed value, null if the node is already retired
+     */
+    public synchronized RemovedValue<V> takeValue(DiskStore<K,V> diskStore){
+        if(retired) return null;
+        retired = true;
+        RemovedValue<V> removedValue = this.detachValue(diskStore);
+        value = new SoftReference<V>(null);
+        return removedValue;
+    }
+
+    public synchronized void clearValue(DiskStore<K,V> diskStore){
+        if(retired) return;
+        retired = true;
         if(this.persistentState == PersistentState.DISK){
-            this.removeCacheNodeFromDisk(cacheStats);
-            cacheStats.diskCachedNodes--;
+            this.removeCacheNodeFromDisk(diskStore);
+            value = new SoftReference<V>(null);
+        }else if(this.persistentState == PersistentState.OFF_HEAP){
+            this.removeCacheNodeFromOffHeap();
+            value = new SoftReference<V>(null);
         }else{
+            if(this.persistentState == PersistentState.SPILLING) this.abortSpill(diskStore);
             value.clear();
         }
     }
 
+    public boolean isRetired() {
+        return retired;
+    }
+
     public CacheNode<K, V> getPrev() {
         return prev;
     }
@@ -106,59 +290,245 @@ public class CacheNode<K,V extends Serializable> {
         this.next = next;
     }
 
-    public void flushToDisk(CacheStats cacheStats){
-        //No need to persist if node already in disk
-        if(this.persistentState == PersistentState.DISK) return;
+    public CacheNode<K, V> getMemoryPrev() {
+        return memoryPrev;
+    }
 
-        try {
-            this.flushCacheNodeToDisk(cacheStats.getUuid());
-            value = null;
-            cacheStats.diskCachedNodes++;
-            this.persistentState = PersistentState.DISK;
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    public void setMemoryPrev(CacheNode<K, V> memoryPrev) {
+        this.memoryPrev = memoryPrev;
     }
 
-    public PersistentState getPersistentState() {
-        return persistentState;
+    public CacheNode<K, V> getMemoryNext() {
+        return memoryNext;
     }
 
-    private void flushCacheNodeToDisk(String uniqueDirName) throws IOException {
-        CommonUtils.createNewDirectory(DISK_CACHE_PATH + "/" + uniqueDirName); //TODO: Need to fix this
-        FileOutputStream f = new FileOutputStream(getFilePath(uniqueDirName));
-        ObjectOutputStream o = new ObjectOutputStream(f);
+    public void setMemoryNext(CacheNode<K, V> memoryNext) {
+        this.memoryNext = memoryNext;
+    }
 
-        // Write objects to file
-        o.writeObject(value.get());
-        o.close();
-        f.close();
+    public PersistentState getResidency() {
+        return residency;
     }
 
-    private String getFilePath(String uniqueDirName) {
-        return CommonConfig.DISK_CACHE_PATH +  "/" + uniqueDirName + "/" + key.hashCode();
+    public void setResidency(PersistentState residency) {
+        this.residency = residency;
     }
 
-    public V getCacheNodeFromDisk(String uniqueDirName) throws IOException, ClassNotFoundException {
+    public boolean isLinked() {
+        return linked;
+    }
 
-        FileInputStream fi = new FileInputStream(getFilePath(uniqueDirName));
-        ObjectInputStream oi = new ObjectInputStream(fi);
+    public void setLinked(boolean linked) {
+        this.linked = linked;
+    }
 
-        // Read objects
-        V value = (V) oi.readObject();
-        oi.close();
-        fi.close();
-        return value;
+    public boolean isInAdmissionWindow() {
+        return inAdmissionWindow;
+    }
+
+    public void setInAdmissionWindow(boolean inAdmissionWindow) {
+        this.inAdmissionWindow = inAdmissionWindow;
+    }
+
+    public long getExpirationTime() {
+        return expirationTime;
+    }
+
+    public void setExpirationTime(long expirationTime) {
+        this.expirationTime = expirationTime;
+    }
+
+    public long getWriteTime() {
+        return writeTime;
+    }
+
+    public void setWriteTime(long writeTime) {
+        this.writeTime = writeTime;
+    }
+
+    public CacheNode<K, V> getTimerPrev() {
+        return timerPrev;
+    }
+
+    public void setTimerPrev(CacheNode<K, V> timerPrev) {
+        this.timerPrev = timerPrev;
+    }
+
+    public CacheNode<K, V> getTimerNext() {
+        return timerNext;
+    }
+
+    public void setTimerNext(CacheNode<K, V> timerNext) {
+        this.timerNext = timerNext;
+    }
+
+    public int getPolicyState() {
+        return policyState;
+    }
+
+    public void setPolicyState(int policyState) {
+        this.policyState = policyState;
+    }
+
+    /**
+     * Serialize the value in the off heap store
+     * @param offHeapStore store receiving the value
+     * @param makeRoom pushes other nodes out of the store when it is full
+     * @return false if the node is not in memory or the value does not fit
+     */
+    public synchronized boolean moveOffHeap(OffHeapStore<V> offHeapStore, BooleanSupplier makeRoom){
+        if(this.persistentState != PersistentState.IN_MEMORY || retired) return false;
+        V cachedValue = value.get();
+        if(cachedValue == null) return false;
+        OffHeapEntry<V> entry = offHeapStore.store(cachedValue, weight, makeRoom);
+        if(entry == null) return false;
+        this.offHeapEntry = entry;
+        this.coldReads = 0;
+        this.persistentState = PersistentState.OFF_HEAP;
+        value = null;
+        return true;
+    }
+
+    /**
+     * Mark the node as spilling, its value stays in memory until the write is acknowledged.
+     * An off heap value is moved back to the heap for the time of the write
+     * @param diskStore store receiving the value
+     * @return value to write, null if the node is already on disk or removed from the cache
+     */
+    public synchronized V startSpill(DiskStore<K,V> diskStore){
+        //No need to persist if node already in disk or removed from the cache
+        if(retired) return null;
+        V cachedValue;
+        if(this.persistentState == PersistentState.OFF_HEAP){
+            cachedValue = offHeapEntry.read();
+            value = new SoftReference<V>(cachedValue);
+            this.removeCacheNodeFromOffHeap();
+        }else if(this.persistentState == PersistentState.IN_MEMORY){
+            cachedValue = value.get();
+        }else{
+            return null;
+        }
+        if(cachedValue == null) return null;
+        this.spillingValue = cachedValue;
+        this.persistentState = PersistentState.SPILLING;
+        diskStore.getCacheStats().diskCachedNodes.incrementAndGet();
+        diskStore.getCacheStats().diskWeight.addAndGet(weight);
+        return cachedValue;
+    }
 
+    /**
+     * Acknowledge the write of a spilling value, the node moves to disk
+     * @param spilledValue value which was written
+     * @param diskEntry location of the value
+     * @param diskStore store holding the value
+     * @return false if the node was updated or removed meanwhile, the written value is stale
+     */
+    public synchronized boolean completeSpill(V spilledValue, DiskEntry diskEntry, DiskStore<K,V> diskStore){
+        if(this.persistentState != PersistentState.SPILLING || spillingValue != spilledValue || retired) return false;
+        diskStore.commit(key, diskEntry);
+        this.diskEntry = diskEntry;
+        this.coldReads = 0;
+        this.persistentState = PersistentState.DISK;
+        this.spillingValue = null;
+        value = null;
+        return true;
     }
 
-    public void removeCacheNodeFromDisk(CacheStats cacheStats) {
+    /**
+     * Move the value on disk to the copy written by the compaction of its segment
+     * @param from location of the value read by the compaction
+     * @param to location of the copy
+     * @param diskStore store holding the value
+     * @return false if the value changed or left the disk meanwhile, the copy is stale
+     */
+    public synchronized boolean relocate(DiskEntry from, DiskEntry to, DiskStore<K,V> diskStore){
+        if(this.persistentState != PersistentState.DISK || diskEntry != from || retired) return false;
+        diskStore.commit(key, to);
+        this.diskEntry = to;
+        return true;
+    }
+
+    /**
+     * Give up a spilling value which could not be written, the node stays in memory
+     * @param spilledValue value which was not written
+     * @param diskStore store which failed
+     */
+    public synchronized void cancelSpill(V spilledValue, DiskStore<K,V> diskStore){
+        if(this.persistentState != PersistentState.SPILLING || spillingValue != spilledValue) return;
+        this.abortSpill(diskStore);
+    }
+
+    public PersistentState getPersistentState() {
+        return persistentState;
+    }
 
-        File file = new File(getFilePath(cacheStats.getUuid()));
-        if (file.delete()) {
-            LOGGER.info(String.format("cache node with key %s removed from disk",key.toString()));
-        } else {
-            LOGGER.info(String.format("Cache node with key %s not exist on disk.",key.toString()));
+    /**
+     * Location of the value on disk
+     * @return null if the node is not on disk or removed from the cache
+     */
+    public synchronized DiskEntry getDiskEntry() {
+        return this.persistentState == PersistentState.DISK && !retired ? diskEntry : null;
+    }
+
+    /**
+     * Free the value off heap, the node is back in memory
+     */
+    private void removeCacheNodeFromOffHeap() {
+        offHeapEntry.free();
+        offHeapEntry = null;
+        this.persistentState = PersistentState.IN_MEMORY;
+    }
+
+    /**
+     * Forget the pending write of the value, the node is back in memory
+     */
+    private void abortSpill(DiskStore<K,V> diskStore) {
+        spillingValue = null;
+        diskStore.getCacheStats().diskCachedNodes.decrementAndGet();
+        diskStore.getCacheStats().diskWeight.addAndGet(-weight);
+        this.persistentState = PersistentState.IN_MEMORY;
+    }
+
+    /**
+     * Forget the value on disk, the node is back in memory
+     */
+    private void removeCacheNodeFromDisk(DiskStore<K,V> diskStore) {
+        DiskEntry removedEntry = this.unmapCacheNodeFromDisk(diskStore);
+        if(removedEntry != null) diskStore.discard(removedEntry);
+    }
+
+    /**
+     * Take the value out of its tier without reading it, the node is back in memory.
+     * The location off heap or on disk of the value is kept until the removed value is read or released
+     */
+    private RemovedValue<V> detachValue(DiskStore<K,V> diskStore) {
+        if(this.persistentState == PersistentState.DISK){
+            return RemovedValue.onDisk(this.unmapCacheNodeFromDisk(diskStore));
+        }
+        if(this.persistentState == PersistentState.OFF_HEAP){
+            RemovedValue<V> removedValue = RemovedValue.offHeap(offHeapEntry);
+            offHeapEntry = null;
+            this.persistentState = PersistentState.IN_MEMORY;
+            return removedValue;
         }
+        if(this.persistentState == PersistentState.SPILLING){
+            RemovedValue<V> removedValue = RemovedValue.inMemory(spillingValue);
+            this.abortSpill(diskStore);
+            return removedValue;
+        }
+        return RemovedValue.inMemory(value != null ? value.get() : null);
+    }
+
+    /**
+     * Forget the value on disk keeping its bytes, the node is back in memory
+     * @return location of the value, to discard once read, null if it was not mapped anymore
+     */
+    private DiskEntry unmapCacheNodeFromDisk(DiskStore<K,V> diskStore) {
+        DiskEntry removedEntry = diskStore.unmap(key, diskEntry) ? diskEntry : null;
+        diskEntry = null;
+        diskStore.getCacheStats().diskCachedNodes.decrementAndGet();
+        diskStore.getCacheStats().diskWeight.addAndGet(-weight);
+        this.persistentState = PersistentState.IN_MEMORY;
+        return removedEntry;
     }
 }
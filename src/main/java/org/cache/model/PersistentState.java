@@ -1,5 +1,5 @@
 package org.cache.model;
 
 public enum PersistentState {
-    IN_MEMORY,DISK
+    IN_MEMORY,OFF_HEAP,SPILLING,DISK
 }
@@ -0,0 +1,29 @@
+package org.cache.model;
+
+/**
+ * Reason of a removal notification
+ */
+public enum RemovalCause {
+
+    //Removed by the user with remove, removeAll or clear
+    EXPLICIT,
+
+    //The value was replaced by a write of the same key
+    REPLACED,
+
+    //The time to live of the key ended
+    EXPIRED,
+
+    //Evicted by the eviction policy because the cache was full
+    SIZE,
+
+    //The value was written to disk, the key is still in the cache
+    SPILLED;
+
+    /**
+     * @return true if the cache removed the key by itself
+     */
+    public boolean wasEvicted() {
+        return this == EXPIRED || this == SIZE;
+    }
+}
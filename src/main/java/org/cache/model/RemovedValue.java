@@ -0,0 +1,71 @@
+package org.cache.model;
+
+import org.cache.disk.DiskEntry;
+import org.cache.disk.DiskStore;
+import org.cache.offheap.OffHeapEntry;
+
+import java.io.Serializable;
+
+/**
+ * Value taken out of a node which left the cache or was replaced, without reading it off heap or on disk.
+ * A value off heap or on disk keeps its location until it is read once or released
+ * @param <V> value type of the object
+ */
+public final class RemovedValue<V extends Serializable> {
+
+    //Value in memory, null if the value is off heap, on disk or collected by the garbage collector
+    private final V value;
+
+    private final OffHeapEntry<V> offHeapEntry;
+
+    private final DiskEntry diskEntry;
+
+    private RemovedValue(V value, OffHeapEntry<V> offHeapEntry, DiskEntry diskEntry) {
+        this.value = value;
+        this.offHeapEntry = offHeapEntry;
+        this.diskEntry = diskEntry;
+    }
+
+    static <V extends Serializable> RemovedValue<V> inMemory(V value) {
+        return new RemovedValue<>(value, null, null);
+    }
+
+    static <V extends Serializable> RemovedValue<V> offHeap(OffHeapEntry<V> offHeapEntry) {
+        return new RemovedValue<>(null, offHeapEntry, null);
+    }
+
+    /**
+     * @param diskEntry location of the value, null if it was already released
+     */
+    static <V extends Serializable> RemovedValue<V> onDisk(DiskEntry diskEntry) {
+        return new RemovedValue<>(null, null, diskEntry);
+    }
+
+    public boolean isOnDisk() {
+        return diskEntry != null;
+    }
+
+    /**
+     * Read the value and release its location
+     * @param diskStore store holding the value on disk
+     * @return value, null if it was collected by the garbage collector or its location was already released
+     */
+    public V read(DiskStore<?,V> diskStore) {
+        try {
+            if(offHeapEntry != null) return offHeapEntry.read();
+            if(diskEntry != null) return diskStore.read(diskEntry);
+            return value;
+        } finally {
+            release(diskStore);
+        }
+    }
+
+    /**
+     * Release the location of the value without reading it
+     * @param diskStore store holding the value on disk
+     */
+    public void release(DiskStore<?,V> diskStore) {
+        if(offHeapEntry != null) offHeapEntry.free();
+        if(diskEntry != null) diskStore.discard(diskEntry);
+    }
+}
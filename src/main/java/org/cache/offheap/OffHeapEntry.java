@@ -0,0 +1,58 @@
+package org.cache.offheap;
+
+import java.io.Serializable;
+
+/**
+ * Location of a serialized value in the off heap store
+ * @param <V> Cache Value object
+ */
+public final class OffHeapEntry<V extends Serializable> {
+
+    private final OffHeapStore<V> store;
+
+    private final Slab slab;
+
+    private final int offset;
+
+    private final int length;
+
+    private final int weight;
+
+    OffHeapEntry(OffHeapStore<V> store, Slab slab, int offset, int length, int weight) {
+        this.store = store;
+        this.slab = slab;
+        this.offset = offset;
+        this.length = length;
+        this.weight = weight;
+    }
+
+    /**
+     * Deserialize the value, the entry must not be freed meanwhile
+     */
+    public V read() {
+        return store.read(this);
+    }
+
+    /**
+     * Give the chunk of the value back to the store, the entry can not be read anymore
+     */
+    public void free() {
+        store.free(this);
+    }
+
+    Slab getSlab() {
+        return slab;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+}
@@ -0,0 +1,206 @@
+package org.cache.offheap;
+
+import org.cache.interfaces.ValueSerializer;
+
+import java.io.Serializable;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Off heap tier of a cache between the heap and the disk. The values are serialized in direct buffer slabs,
+ * so they do not count in the heap size nor in the garbage collection work.
+ * Every slab is carved in chunks of one power of two size class and a value takes the smallest chunk it fits in.
+ * A slab which becomes empty goes back to the pool and can be carved again for any size class
+ * @param <V> Cache Value object
+ */
+public class OffHeapStore<V extends Serializable> {
+
+    //Smallest chunk size, in bytes
+    static final int MIN_CHUNK_SIZE = 64;
+
+    private static final int INITIAL_SCRATCH_SIZE = 4096;
+
+    //Serialization buffer of the calling thread, a value is serialized once whatever the number of allocation attempts
+    private static final ThreadLocal<ByteBuffer> SCRATCH = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(INITIAL_SCRATCH_SIZE));
+
+    private final long capacityBytes;
+
+    private final int slabSize;
+
+    private final ValueSerializer<V> serializer;
+
+    //Slabs with a free chunk, by size class
+    private final ArrayDeque<Slab>[] partialSlabs;
+
+    //Empty slab buffers which can be carved for any size class
+    private final ArrayDeque<ByteBuffer> emptySlabs = new ArrayDeque<>();
+
+    //Number and weight of the values in the store, read without the lock by the tier accounting
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong weight = new AtomicLong();
+
+    //Direct memory allocated for the slabs
+    private long reservedBytes;
+
+    //Bytes of the stored values
+    private long usedBytes;
+
+    /**
+     * @param capacityBytes maximum direct memory of the slabs, 0 disables the store
+     * @param slabSize size of a slab in bytes, the biggest value stored off heap
+     * @param serializer converts the values to bytes
+     */
+    @SuppressWarnings("unchecked")
+    public OffHeapStore(long capacityBytes, int slabSize, ValueSerializer<V> serializer) {
+        this.capacityBytes = capacityBytes;
+        //A small store gets slabs small enough to have several of them
+        int size = MIN_CHUNK_SIZE;
+        while (size < slabSize && (long) size * 2 <= capacityBytes) size <<= 1;
+        this.slabSize = size;
+        this.serializer = serializer;
+        this.partialSlabs = new ArrayDeque[Integer.numberOfTrailingZeros(this.slabSize / MIN_CHUNK_SIZE) + 1];
+        for (int i = 0; i < partialSlabs.length; i++) {
+            partialSlabs[i] = new ArrayDeque<>();
+        }
+    }
+
+    public boolean isEnabled() {
+        return capacityBytes >= MIN_CHUNK_SIZE;
+    }
+
+    /**
+     * Serialize a value in a free chunk
+     * @param value value to store
+     * @param weight weight of the value
+     * @param makeRoom called without the store lock when there is no free chunk, frees some chunks
+     *                 and returns false if there is nothing left to free
+     * @return location of the value, null if it does not fit
+     */
+    public OffHeapEntry<V> store(V value, int weight, BooleanSupplier makeRoom) {
+        ByteBuffer serializedValue = serialize(value);
+        int length = serializedValue.remaining();
+        int sizeClass = sizeClass(length);
+        if(sizeClass < 0) return null;
+        do {
+            synchronized (this) {
+                Slab slab = slabFor(sizeClass);
+                if(slab != null){
+                    int offset = slab.allocate();
+                    if(slab.isFull()) partialSlabs[sizeClass].remove(slab);
+                    ByteBuffer chunk = slab.getBuffer().duplicate();
+                    ((Buffer) chunk).position(offset);
+                    chunk.put(serializedValue);
+                    usedBytes += length;
+                    size.incrementAndGet();
+                    this.weight.addAndGet(weight);
+                    return new OffHeapEntry<>(this, slab, offset, length, weight);
+                }
+            }
+        } while (makeRoom.getAsBoolean());
+        return null;
+    }
+
+    /**
+     * Deserialize a value, the chunk is owned by the entry so no lock is needed
+     */
+    V read(OffHeapEntry<V> entry) {
+        ByteBuffer buffer = entry.getSlab().getBuffer().duplicate();
+        ((Buffer) buffer).position(entry.getOffset());
+        ((Buffer) buffer).limit(entry.getOffset() + entry.getLength());
+        return serializer.deserialize(buffer.slice());
+    }
+
+    synchronized void free(OffHeapEntry<V> entry) {
+        Slab slab = entry.getSlab();
+        ArrayDeque<Slab> partial = partialSlabs[slab.getSizeClass()];
+        if(slab.isFull()) partial.addFirst(slab);
+        slab.free(entry.getOffset());
+        if(slab.isEmpty()){
+            partial.remove(slab);
+            emptySlabs.push(slab.getBuffer());
+        }
+        usedBytes -= entry.getLength();
+        size.decrementAndGet();
+        weight.addAndGet(-entry.getWeight());
+    }
+
+    /**
+     * Number of values in the store
+     */
+    public long size() {
+        return size.get();
+    }
+
+    /**
+     * Weight of the values in the store
+     */
+    public long getWeight() {
+        return weight.get();
+    }
+
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Part of the carved slab memory which does not hold value bytes, the unused end of the chunks
+     * and the free chunks of the slabs still in use
+     */
+    public synchronized double getFragmentation() {
+        long carvedBytes = reservedBytes - (long) emptySlabs.size() * slabSize;
+        return carvedBytes == 0 ? 0 : 1 - (double) usedBytes / carvedBytes;
+    }
+
+    /**
+     * Slab of the size class with a free chunk, an empty slab is carved if there is none
+     * @return null if the store is full
+     */
+    private Slab slabFor(int sizeClass) {
+        Slab slab = partialSlabs[sizeClass].peekFirst();
+        if(slab != null) return slab;
+        ByteBuffer buffer = emptySlabs.poll();
+        if(buffer == null){
+            if(reservedBytes + slabSize > capacityBytes) return null;
+            buffer = ByteBuffer.allocateDirect(slabSize);
+            reservedBytes += slabSize;
+        }
+        slab = new Slab(buffer, sizeClass, MIN_CHUNK_SIZE << sizeClass);
+        partialSlabs[sizeClass].addFirst(slab);
+        return slab;
+    }
+
+    /**
+     * Smallest size class holding the length, -1 if the value is bigger than a slab
+     */
+    private int sizeClass(int length) {
+        if(length > slabSize) return -1;
+        if(length <= MIN_CHUNK_SIZE) return 0;
+        return 32 - Integer.numberOfLeadingZeros((length - 1) / MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * Serialize the value in the buffer of the calling thread, the buffer grows until the value fits
+     */
+    private ByteBuffer serialize(V value) {
+        ByteBuffer scratch = SCRATCH.get();
+        while (true) {
+            ((Buffer) scratch).clear();
+            try {
+                serializer.serialize(value, scratch);
+                ((Buffer) scratch).flip();
+                return scratch;
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocateDirect(scratch.capacity() * 2);
+                SCRATCH.set(scratch);
+            }
+        }
+    }
+}
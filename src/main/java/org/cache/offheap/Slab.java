@@ -0,0 +1,68 @@
+package org.cache.offheap;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Direct buffer carved in chunks of a single size class. The free chunks are kept in a stack of chunk indexes.
+ * Must be used while holding the off heap store lock
+ */
+final class Slab {
+
+    private final ByteBuffer buffer;
+
+    private final int sizeClass;
+
+    private final int chunkSize;
+
+    private final int[] freeChunks;
+
+    private int freeCount;
+
+    Slab(ByteBuffer buffer, int sizeClass, int chunkSize) {
+        this.buffer = buffer;
+        this.sizeClass = sizeClass;
+        this.chunkSize = chunkSize;
+        this.freeChunks = new int[buffer.capacity() / chunkSize];
+        //Lowest chunks first
+        for (int i = 0; i < freeChunks.length; i++) {
+            freeChunks[i] = freeChunks.length - 1 - i;
+        }
+        this.freeCount = freeChunks.length;
+    }
+
+    ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    int getSizeClass() {
+        return sizeClass;
+    }
+
+    int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Take a free chunk
+     * @return offset of the chunk in the buffer
+     */
+    int allocate() {
+        return freeChunks[--freeCount] * chunkSize;
+    }
+
+    /**
+     * Give back a chunk
+     * @param offset offset of the chunk in the buffer
+     */
+    void free(int offset) {
+        freeChunks[freeCount++] = offset / chunkSize;
+    }
+
+    boolean isFull() {
+        return freeCount == 0;
+    }
+
+    boolean isEmpty() {
+        return freeCount == freeChunks.length;
+    }
+}
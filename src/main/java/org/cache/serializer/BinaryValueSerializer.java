@@ -0,0 +1,170 @@
+package org.cache.serializer;
+
+import org.cache.interfaces.ValueSerializer;
+
+import java.io.Serializable;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact binary codec of the values. The primitive wrappers, Strings and byte arrays are written with a one byte tag
+ * and no class descriptor, the types with a registered codec are written by their codec
+ * and the other values fall back to the Java serialization
+ * @param <V>
+ */
+public class BinaryValueSerializer<V extends Serializable> implements ValueSerializer<V> {
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte SHORT = 6;
+    private static final byte BYTE = 7;
+    private static final byte BOOLEAN = 8;
+    private static final byte CHARACTER = 9;
+    private static final byte BYTE_ARRAY = 10;
+    private static final byte CODEC = 11;
+    private static final byte JAVA = 12;
+
+    private static final ThreadLocal<CharsetEncoder> ENCODER = ThreadLocal.withInitial(StandardCharsets.UTF_8::newEncoder);
+
+    private final Map<Class<?>, RegisteredCodec<?>> codecsByType = new ConcurrentHashMap<>();
+
+    private final Map<Integer, RegisteredCodec<?>> codecsById = new ConcurrentHashMap<>();
+
+    private final JavaValueSerializer<Serializable> javaValueSerializer = new JavaValueSerializer<>();
+
+    /**
+     * Register the codec of a value type, the id is written with every value and must stay the same across restarts
+     * @param id identifier of the codec
+     * @param type exact class of the values
+     * @param codec codec of the values
+     * @return this serializer
+     */
+    public <T> BinaryValueSerializer<V> register(int id, Class<T> type, ValueSerializer<T> codec) {
+        RegisteredCodec<T> registeredCodec = new RegisteredCodec<>(id, codec);
+        codecsByType.put(type, registeredCodec);
+        codecsById.put(id, registeredCodec);
+        return this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void serialize(V value, ByteBuffer buffer) {
+        if(value == null){
+            buffer.put(NULL);
+        }else if(value instanceof String){
+            buffer.put(STRING);
+            writeString((String) value, buffer);
+        }else if(value instanceof Integer){
+            buffer.put(INTEGER).putInt((Integer) value);
+        }else if(value instanceof Long){
+            buffer.put(LONG).putLong((Long) value);
+        }else if(value instanceof Double){
+            buffer.put(DOUBLE).putDouble((Double) value);
+        }else if(value instanceof Float){
+            buffer.put(FLOAT).putFloat((Float) value);
+        }else if(value instanceof Short){
+            buffer.put(SHORT).putShort((Short) value);
+        }else if(value instanceof Byte){
+            buffer.put(BYTE).put((Byte) value);
+        }else if(value instanceof Boolean){
+            buffer.put(BOOLEAN).put((byte) ((Boolean) value ? 1 : 0));
+        }else if(value instanceof Character){
+            buffer.put(CHARACTER).putChar((Character) value);
+        }else if(value instanceof byte[]){
+            byte[] bytes = (byte[]) value;
+            buffer.put(BYTE_ARRAY).putInt(bytes.length).put(bytes);
+        }else{
+            RegisteredCodec<Object> registeredCodec = (RegisteredCodec<Object>) codecsByType.get(value.getClass());
+            if(registeredCodec != null){
+                buffer.put(CODEC).putInt(registeredCodec.id);
+                registeredCodec.codec.serialize(value, buffer);
+            }else{
+                buffer.put(JAVA);
+                javaValueSerializer.serialize(value, buffer);
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V deserialize(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return (V) readString(buffer);
+            case INTEGER:
+                return (V) Integer.valueOf(buffer.getInt());
+            case LONG:
+                return (V) Long.valueOf(buffer.getLong());
+            case DOUBLE:
+                return (V) Double.valueOf(buffer.getDouble());
+            case FLOAT:
+                return (V) Float.valueOf(buffer.getFloat());
+            case SHORT:
+                return (V) Short.valueOf(buffer.getShort());
+            case BYTE:
+                return (V) Byte.valueOf(buffer.get());
+            case BOOLEAN:
+                return (V) Boolean.valueOf(buffer.get() != 0);
+            case CHARACTER:
+                return (V) Character.valueOf(buffer.getChar());
+            case BYTE_ARRAY:
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                return (V) bytes;
+            case CODEC:
+                int id = buffer.getInt();
+                RegisteredCodec<?> registeredCodec = codecsById.get(id);
+                if(registeredCodec == null) throw new IllegalStateException("No codec registered with the id " + id);
+                return (V) registeredCodec.codec.deserialize(buffer);
+            case JAVA:
+                return (V) javaValueSerializer.deserialize(buffer);
+            default:
+                throw new IllegalStateException("Unknown value tag " + tag);
+        }
+    }
+
+    //UTF-8 bytes after their length, encoded straight into the buffer
+    private static void writeString(String value, ByteBuffer buffer) {
+        int lengthPosition = buffer.position();
+        buffer.putInt(0);
+        CharsetEncoder encoder = ENCODER.get().reset();
+        if(encoder.encode(CharBuffer.wrap(value), buffer, true).isOverflow()) throw new BufferOverflowException();
+        CoderResult result = encoder.flush(buffer);
+        if(result.isOverflow()) throw new BufferOverflowException();
+        buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        ByteBuffer bytes = buffer.slice();
+        ((Buffer) bytes).limit(length);
+        ((Buffer) buffer).position(buffer.position() + length);
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    private static final class RegisteredCodec<T> {
+
+        private final int id;
+
+        private final ValueSerializer<T> codec;
+
+        private RegisteredCodec(int id, ValueSerializer<T> codec) {
+            this.id = id;
+            this.codec = codec;
+        }
+    }
+}
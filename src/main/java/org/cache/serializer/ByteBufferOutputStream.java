@@ -0,0 +1,26 @@
+package org.cache.serializer;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Stream writing into a buffer, a full buffer throws a BufferOverflowException
+ */
+final class ByteBufferOutputStream extends OutputStream {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferOutputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int b) {
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        buffer.put(bytes, offset, length);
+    }
+}
@@ -0,0 +1,38 @@
+package org.cache.serializer;
+
+import org.cache.interfaces.ValueSerializer;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Java serialization of the values, works for every value but writes the class descriptors with every value
+ * @param <V>
+ */
+public class JavaValueSerializer<V extends Serializable> implements ValueSerializer<V> {
+
+    @Override
+    public void serialize(V value, ByteBuffer buffer) {
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(new ByteBufferOutputStream(buffer))) {
+            objectOutputStream.writeObject(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V deserialize(ByteBuffer buffer) {
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteBufferInputStream(buffer))) {
+            return (V) objectInputStream.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package org.cache.simulator;
+
+import org.cache.config.CommonConfig;
+import org.cache.core.CacheStats;
+import org.cache.eviction.TinyLfuAdmissionFilter;
+import org.cache.interfaces.EvictionPolicy;
+import org.cache.model.CacheNode;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * Cache replaying a trace with the eviction policy code of the cache but without values nor disk.
+ * A miss is loaded and put like a replenished key. The memory and disk tiers follow the segments: the least
+ * recent in memory keys are spilled over the memory threshold, a key on disk is served from there and moves
+ * back in memory once read often enough. The cache has one segment and is used by one thread
+ */
+public class SimulatedCache {
+
+    private final SimulationConfig config;
+
+    private final EvictionPolicy<Long,Integer> evictionPolicy;
+
+    //Receives the admission rejections of the filter
+    private final CacheStats cacheStats;
+
+    private final HashMap<Long, Entry> entries = new HashMap<>();
+
+    //Access ordered list of the keys in memory, the head is the most recent
+    private Entry memoryHead;
+
+    private Entry memoryTail;
+
+    private long weightedSize;
+
+    private long memoryWeight;
+
+    private long accesses;
+
+    private long hits;
+
+    private long requestedBytes;
+
+    private long hitBytes;
+
+    private long evictions;
+
+    private long diskReads;
+
+    private long diskReadBytes;
+
+    private long diskWrites;
+
+    private long diskWriteBytes;
+
+    public SimulatedCache(SimulationConfig config) {
+        this.config = config;
+        this.cacheStats = new CacheStats(config.getCapacity(), config.getMemoryThresholdSize());
+        //The policies count keys, the capacity is a weight when weighted
+        EvictionPolicy<Long,Integer> evictionPolicy = config.getEvictionPolicyType().create(config.getSketchSize());
+        if(config.isAdmissionFilterEnabled()){
+            evictionPolicy = new TinyLfuAdmissionFilter<>(evictionPolicy, config.getSketchSize(),
+                    CommonConfig.DEFAULT_ADMISSION_WINDOW_PERCENTAGE, config.getSketchSize(), cacheStats);
+        }
+        this.evictionPolicy = evictionPolicy;
+    }
+
+    /**
+     * Replay one access
+     * @param key key read
+     * @param size size in bytes of its value
+     */
+    public void access(long key, int size) {
+        accesses++;
+        requestedBytes += size;
+        Entry entry = entries.get(key);
+        if(entry != null){
+            hits++;
+            hitBytes += size;
+            if(entry.onDisk){
+                diskReads++;
+                diskReadBytes += entry.size;
+                if(++entry.coldReads >= config.getDiskPromotionThreshold()){
+                    entry.onDisk = false;
+                    addToMemory(entry);
+                    evictionPolicy.onAccess(entry.node);
+                    pushToDisk();
+                    return;
+                }
+            }else{
+                removeFromMemory(entry);
+                addToMemory(entry);
+            }
+            evictionPolicy.onAccess(entry.node);
+            return;
+        }
+        entry = new Entry(new CacheNode<>(key, null), size, config.isWeighted() ? size : 1);
+        entries.put(key, entry);
+        weightedSize += entry.weight;
+        addToMemory(entry);
+        evictionPolicy.onAdd(entry.node);
+        evictOverflow();
+        pushToDisk();
+    }
+
+    /**
+     * Replay a whole trace
+     * @param reader accesses of the trace
+     * @return outcome of the replay
+     */
+    public SimulationResult replay(TraceReader reader) throws IOException {
+        while (reader.next()) {
+            access(reader.key(), reader.size());
+        }
+        return result();
+    }
+
+    public SimulationResult result() {
+        return new SimulationResult(config, accesses, hits, requestedBytes, hitBytes, evictions,
+                cacheStats.admissionRejections.sum(), diskReads, diskReadBytes, diskWrites, diskWriteBytes);
+    }
+
+    private void evictOverflow() {
+        while (weightedSize > config.getCapacity()) {
+            CacheNode<Long,Integer> victim = evictionPolicy.victim();
+            if(victim == null) return;
+            evictionPolicy.onEvict(victim);
+            Entry entry = entries.remove(victim.getKey());
+            weightedSize -= entry.weight;
+            if(!entry.onDisk) removeFromMemory(entry);
+            evictions++;
+        }
+    }
+
+    /**
+     * Spill the least recent keys in memory until the memory threshold is respected
+     */
+    private void pushToDisk() {
+        while (memoryWeight > config.getMemoryThresholdSize() && memoryTail != null) {
+            Entry entry = memoryTail;
+            removeFromMemory(entry);
+            entry.onDisk = true;
+            entry.coldReads = 0;
+            diskWrites++;
+            diskWriteBytes += entry.size;
+        }
+    }
+
+    private void addToMemory(Entry entry) {
+        entry.next = memoryHead;
+        entry.prev = null;
+        if(memoryHead != null) memoryHead.prev = entry;
+        memoryHead = entry;
+        if(memoryTail == null) memoryTail = entry;
+        memoryWeight += entry.weight;
+    }
+
+    private void removeFromMemory(Entry entry) {
+        if(entry.prev != null){
+            entry.prev.next = entry.next;
+        }else{
+            memoryHead = entry.next;
+        }
+        if(entry.next != null){
+            entry.next.prev = entry.prev;
+        }else{
+            memoryTail = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+        memoryWeight -= entry.weight;
+    }
+
+    private static final class Entry {
+
+        private final CacheNode<Long,Integer> node;
+
+        private final int size;
+
+        private final int weight;
+
+        private boolean onDisk;
+
+        //Reads served from disk since the key was spilled
+        private int coldReads;
+
+        private Entry prev;
+
+        private Entry next;
+
+        private Entry(CacheNode<Long,Integer> node, int size, int weight) {
+            this.node = node;
+            this.size = size;
+            this.weight = weight;
+        }
+    }
+}
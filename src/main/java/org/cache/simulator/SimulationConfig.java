@@ -0,0 +1,104 @@
+package org.cache.simulator;
+
+import org.cache.config.CommonConfig;
+import org.cache.config.CommonMessage;
+import org.cache.eviction.EvictionPolicyType;
+
+/**
+ * Settings of one simulated cache, the same meaning as the settings of the cache factory
+ */
+public final class SimulationConfig {
+
+    private final EvictionPolicyType evictionPolicyType;
+
+    private final boolean admissionFilterEnabled;
+
+    private final long capacity;
+
+    private final long memoryThresholdSize;
+
+    //Capacity and memory threshold in bytes of value, in keys otherwise
+    private final boolean weighted;
+
+    private final int diskPromotionThreshold;
+
+    //Number of keys expected, sizes the frequency sketch, the admission window and the eviction policy
+    private final long sketchSize;
+
+    public SimulationConfig(EvictionPolicyType evictionPolicyType, boolean admissionFilterEnabled, long capacity,
+                            long memoryThresholdSize, boolean weighted) {
+        this(evictionPolicyType, admissionFilterEnabled, capacity, memoryThresholdSize, weighted,
+                CommonConfig.DEFAULT_DISK_PROMOTION_THRESHOLD);
+    }
+
+    /**
+     * Settings with the number of keys expected of the cache factory, the capacity capped to MAX_WEIGHTED_ENTRY_COUNT if weighted
+     */
+    public SimulationConfig(EvictionPolicyType evictionPolicyType, boolean admissionFilterEnabled, long capacity,
+                            long memoryThresholdSize, boolean weighted, int diskPromotionThreshold) {
+        this(evictionPolicyType, admissionFilterEnabled, capacity, memoryThresholdSize, weighted, diskPromotionThreshold,
+                weighted ? Math.min(capacity, CommonConfig.MAX_WEIGHTED_ENTRY_COUNT) : capacity);
+    }
+
+    /**
+     * @param evictionPolicyType eviction policy
+     * @param admissionFilterEnabled true to put the W-TinyLFU admission filter in front of the policy
+     * @param capacity maximum weight of the cache
+     * @param memoryThresholdSize weight kept in memory, the rest is on disk
+     * @param weighted true if the weight of a key is the size of its value, the weight is 1 otherwise
+     * @param diskPromotionThreshold reads served from disk before a key moves back to memory
+     * @param sketchSize number of keys the cache is expected to hold, the capacity is a weight if weighted
+     */
+    public SimulationConfig(EvictionPolicyType evictionPolicyType, boolean admissionFilterEnabled, long capacity,
+                            long memoryThresholdSize, boolean weighted, int diskPromotionThreshold, long sketchSize) {
+        if(sketchSize <= 0) throw new IllegalArgumentException(CommonMessage.SKETCH_SIZE_CAN_NOT_BE_LESS_THAN_EQUAL_TO_ZERO);
+        this.evictionPolicyType = evictionPolicyType;
+        this.admissionFilterEnabled = admissionFilterEnabled;
+        this.capacity = capacity;
+        this.memoryThresholdSize = memoryThresholdSize;
+        this.weighted = weighted;
+        this.diskPromotionThreshold = diskPromotionThreshold;
+        this.sketchSize = sketchSize;
+    }
+
+    public EvictionPolicyType getEvictionPolicyType() {
+        return evictionPolicyType;
+    }
+
+    public boolean isAdmissionFilterEnabled() {
+        return admissionFilterEnabled;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getMemoryThresholdSize() {
+        return memoryThresholdSize;
+    }
+
+    public boolean isWeighted() {
+        return weighted;
+    }
+
+    public int getDiskPromotionThreshold() {
+        return diskPromotionThreshold;
+    }
+
+    public long getSketchSize() {
+        return sketchSize;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationConfig{" +
+                "evictionPolicyType=" + evictionPolicyType +
+                ", admissionFilterEnabled=" + admissionFilterEnabled +
+                ", capacity=" + capacity +
+                ", memoryThresholdSize=" + memoryThresholdSize +
+                ", weighted=" + weighted +
+                ", diskPromotionThreshold=" + diskPromotionThreshold +
+                ", sketchSize=" + sketchSize +
+                '}';
+    }
+}
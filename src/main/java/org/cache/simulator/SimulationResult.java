@@ -0,0 +1,114 @@
+package org.cache.simulator;
+
+/**
+ * Outcome of the replay of a trace by one simulated cache
+ */
+public final class SimulationResult {
+
+    private final SimulationConfig config;
+
+    private final long accesses;
+
+    private final long hits;
+
+    private final long requestedBytes;
+
+    private final long hitBytes;
+
+    private final long evictions;
+
+    private final long admissionRejections;
+
+    private final long diskReads;
+
+    private final long diskReadBytes;
+
+    private final long diskWrites;
+
+    private final long diskWriteBytes;
+
+    SimulationResult(SimulationConfig config, long accesses, long hits, long requestedBytes, long hitBytes, long evictions,
+                     long admissionRejections, long diskReads, long diskReadBytes, long diskWrites, long diskWriteBytes) {
+        this.config = config;
+        this.accesses = accesses;
+        this.hits = hits;
+        this.requestedBytes = requestedBytes;
+        this.hitBytes = hitBytes;
+        this.evictions = evictions;
+        this.admissionRejections = admissionRejections;
+        this.diskReads = diskReads;
+        this.diskReadBytes = diskReadBytes;
+        this.diskWrites = diskWrites;
+        this.diskWriteBytes = diskWriteBytes;
+    }
+
+    public SimulationConfig getConfig() {
+        return config;
+    }
+
+    public long getAccesses() {
+        return accesses;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public double getHitRatio() {
+        return accesses == 0 ? 0 : (double) hits / accesses;
+    }
+
+    /**
+     * Part of the requested bytes found in the cache
+     */
+    public double getByteHitRatio() {
+        return requestedBytes == 0 ? 0 : (double) hitBytes / requestedBytes;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getAdmissionRejections() {
+        return admissionRejections;
+    }
+
+    /**
+     * Hits served from disk
+     */
+    public long getDiskReads() {
+        return diskReads;
+    }
+
+    public long getDiskReadBytes() {
+        return diskReadBytes;
+    }
+
+    /**
+     * Values spilled from memory to disk
+     */
+    public long getDiskWrites() {
+        return diskWrites;
+    }
+
+    public long getDiskWriteBytes() {
+        return diskWriteBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationResult{" +
+                "config=" + config +
+                ", accesses=" + accesses +
+                ", hits=" + hits +
+                ", hitRatio=" + getHitRatio() +
+                ", byteHitRatio=" + getByteHitRatio() +
+                ", evictions=" + evictions +
+                ", admissionRejections=" + admissionRejections +
+                ", diskReads=" + diskReads +
+                ", diskReadBytes=" + diskReadBytes +
+                ", diskWrites=" + diskWrites +
+                ", diskWriteBytes=" + diskWriteBytes +
+                '}';
+    }
+}
@@ -0,0 +1,206 @@
+package org.cache.simulator;
+
+import org.cache.config.CommonConfig;
+import org.cache.eviction.EvictionPolicyType;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Replays an access trace against a sweep of cache settings to compare their hit ratios and disk traffic
+ * before changing a production cache. Every setting streams the trace on its own so the settings
+ * are simulated in parallel, one per core.
+ * <pre>
+ * java -cp CleanCache.jar org.cache.simulator.Simulator trace.txt --capacities 1000,10000 --memory-thresholds 100,1000
+ *      [--format TEXT|BINARY] [--policies LRU,LFU,FIFO,CLOCK,ARC] [--admission] [--weighted] [--sketch-size n] [--threads n]
+ * </pre>
+ * Without memory thresholds half of every capacity is kept in memory, like the cache factory does.
+ * Weighted, the capacities are in bytes and the policies are sized by the number of keys expected, the sketch size
+ * or else every capacity divided by the mean value size of the trace
+ */
+public final class Simulator {
+
+    private Simulator() {
+    }
+
+    /**
+     * Simulate every setting on the trace
+     * @param trace access trace
+     * @param format format of the trace
+     * @param configs settings to simulate
+     * @param threads number of settings simulated at the same time
+     * @return outcome of every setting, in the order of the settings
+     */
+    public static List<SimulationResult> sweep(Path trace, TraceFormat format, List<SimulationConfig> configs, int threads)
+            throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, configs.size())));
+        try {
+            List<Future<SimulationResult>> simulations = new ArrayList<>(configs.size());
+            for (SimulationConfig config : configs) {
+                simulations.add(executor.submit(() -> {
+                    try (TraceReader reader = format.open(trace)) {
+                        return new SimulatedCache(config).replay(reader);
+                    }
+                }));
+            }
+            List<SimulationResult> results = new ArrayList<>(configs.size());
+            for (Future<SimulationResult> simulation : simulations) {
+                try {
+                    results.add(simulation.get());
+                } catch (ExecutionException e) {
+                    if(e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                    if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                    if(e.getCause() instanceof Error) throw (Error) e.getCause();
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Settings of every policy, capacity and memory threshold, a memory threshold above the capacity is skipped
+     * @param memoryThresholds memory thresholds, empty for half of every capacity
+     */
+    public static List<SimulationConfig> grid(List<EvictionPolicyType> policies, boolean admissionFilterEnabled,
+                                              List<Long> capacities, List<Long> memoryThresholds, boolean weighted) {
+        return grid(policies, admissionFilterEnabled, capacities, memoryThresholds, weighted,
+                capacity -> weighted ? Math.min(capacity, CommonConfig.MAX_WEIGHTED_ENTRY_COUNT) : capacity);
+    }
+
+    /**
+     * Settings of every policy, capacity and memory threshold, a memory threshold above the capacity is skipped
+     * @param memoryThresholds memory thresholds, empty for half of every capacity
+     * @param sketchSizes number of keys expected of every capacity
+     */
+    public static List<SimulationConfig> grid(List<EvictionPolicyType> policies, boolean admissionFilterEnabled,
+                                              List<Long> capacities, List<Long> memoryThresholds, boolean weighted,
+                                              LongUnaryOperator sketchSizes) {
+        List<SimulationConfig> configs = new ArrayList<>();
+        for (EvictionPolicyType policy : policies) {
+            for (long capacity : capacities) {
+                List<Long> thresholds = memoryThresholds.isEmpty() ? Collections.singletonList(capacity / 2) : memoryThresholds;
+                for (long memoryThreshold : thresholds) {
+                    if(memoryThreshold > capacity) continue;
+                    configs.add(new SimulationConfig(policy, admissionFilterEnabled, capacity, memoryThreshold, weighted,
+                            CommonConfig.DEFAULT_DISK_PROMOTION_THRESHOLD, sketchSizes.applyAsLong(capacity)));
+                }
+            }
+        }
+        return configs;
+    }
+
+    /**
+     * Mean size of the values read by the trace
+     * @return 1 if the trace is empty or all its values are empty
+     */
+    public static double meanSize(Path trace, TraceFormat format) throws IOException {
+        long accesses = 0;
+        long bytes = 0;
+        try (TraceReader reader = format.open(trace)) {
+            while (reader.next()) {
+                accesses++;
+                bytes += reader.size();
+            }
+        }
+        return accesses == 0 || bytes == 0 ? 1 : (double) bytes / accesses;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if(args.length == 0){
+            System.err.println("Usage: Simulator <trace> --capacities c1,c2 [--memory-thresholds m1,m2] [--format TEXT|BINARY]"
+                    + " [--policies LRU,LFU,FIFO,CLOCK,ARC] [--admission] [--weighted] [--sketch-size n] [--threads n]");
+            System.exit(1);
+        }
+        Path trace = Paths.get(args[0]);
+        TraceFormat format = TraceFormat.TEXT;
+        List<EvictionPolicyType> policies = Collections.singletonList(EvictionPolicyType.LRU);
+        List<Long> capacities = new ArrayList<>();
+        List<Long> memoryThresholds = new ArrayList<>();
+        boolean admissionFilterEnabled = false;
+        boolean weighted = false;
+        Long sketchSize = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--format":
+                    format = TraceFormat.valueOf(args[++i].toUpperCase());
+                    break;
+                case "--policies":
+                    policies = new ArrayList<>();
+                    for (String policy : args[++i].split(",")) {
+                        policies.add(EvictionPolicyType.valueOf(policy.trim().toUpperCase()));
+                    }
+                    break;
+                case "--capacities":
+                    capacities = parseLongs(args[++i]);
+                    break;
+                case "--memory-thresholds":
+                    memoryThresholds = parseLongs(args[++i]);
+                    break;
+                case "--admission":
+                    admissionFilterEnabled = true;
+                    break;
+                case "--weighted":
+                    weighted = true;
+                    break;
+                case "--sketch-size":
+                    sketchSize = Long.parseLong(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if(capacities.isEmpty()) throw new IllegalArgumentException("No capacity to simulate, use --capacities");
+        LongUnaryOperator sketchSizes;
+        if(sketchSize != null){
+            long size = sketchSize;
+            sketchSizes = capacity -> size;
+        }else if(weighted){
+            double meanSize = meanSize(trace, format);
+            sketchSizes = capacity -> Math.max(1L, (long) (capacity / meanSize));
+        }else{
+            sketchSizes = capacity -> capacity;
+        }
+        List<SimulationConfig> configs = grid(policies, admissionFilterEnabled, capacities, memoryThresholds, weighted, sketchSizes);
+        print(sweep(trace, format, configs, threads), System.out);
+    }
+
+    /**
+     * Print the outcomes as a table
+     */
+    public static void print(List<SimulationResult> results, PrintStream out) {
+        out.printf("%-6s %-9s %12s %12s %10s %10s %12s %16s %12s %16s%n", "policy", "admission", "capacity", "memory",
+                "hitRatio", "byteRatio", "diskReads", "diskReadBytes", "diskWrites", "diskWriteBytes");
+        for (SimulationResult result : results) {
+            SimulationConfig config = result.getConfig();
+            out.printf("%-6s %-9s %12d %12d %10.4f %10.4f %12d %16d %12d %16d%n", config.getEvictionPolicyType(),
+                    config.isAdmissionFilterEnabled(), config.getCapacity(), config.getMemoryThresholdSize(),
+                    result.getHitRatio(), result.getByteHitRatio(), result.getDiskReads(), result.getDiskReadBytes(),
+                    result.getDiskWrites(), result.getDiskWriteBytes());
+        }
+    }
+
+    private static List<Long> parseLongs(String values) {
+        List<Long> parsed = new ArrayList<>();
+        for (String value : values.split(",")) {
+            parsed.add(Long.parseLong(value.trim()));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,150 @@
+package org.cache.simulator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Formats of the access traces
+ */
+public enum TraceFormat {
+
+    /**
+     * One access per line, the key and optionally the size of the value separated by white space.
+     * A key which is not a number is hashed to 64 bits, the blank lines and the lines starting with # are skipped
+     */
+    TEXT {
+        @Override
+        public TraceReader open(InputStream input) {
+            return new TextTraceReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), BUFFER_SIZE));
+        }
+    },
+
+    /**
+     * Fixed size records of a big endian 8 bytes key followed by the 4 bytes size of the value
+     */
+    BINARY {
+        @Override
+        public TraceReader open(InputStream input) {
+            return new BinaryTraceReader(new DataInputStream(new BufferedInputStream(input, BUFFER_SIZE)));
+        }
+    };
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Stream the accesses of a trace
+     * @param input trace, closed by the reader
+     * @return reader of the accesses
+     */
+    public abstract TraceReader open(InputStream input);
+
+    public TraceReader open(Path trace) throws IOException {
+        return open(Files.newInputStream(trace));
+    }
+
+    private static final class TextTraceReader implements TraceReader {
+
+        private final BufferedReader reader;
+
+        private long key;
+
+        private int size;
+
+        private TextTraceReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if(line.isEmpty() || line.charAt(0) == '#') continue;
+                int separator = 0;
+                while (separator < line.length() && !Character.isWhitespace(line.charAt(separator))) separator++;
+                key = parseKey(line.substring(0, separator));
+                size = separator < line.length() ? Integer.parseInt(line.substring(separator).trim()) : 1;
+                if(size < 0) throw new IOException(String.format("Negative value size %s in the line: %s", size, line));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long key() {
+            return key;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        private static long parseKey(String key) {
+            try {
+                return Long.parseLong(key);
+            } catch (NumberFormatException e) {
+                //FNV-1a hash of the characters
+                long hash = 0xCBF29CE484222325L;
+                for (int i = 0; i < key.length(); i++) {
+                    hash ^= key.charAt(i);
+                    hash *= 0x100000001B3L;
+                }
+                return hash;
+            }
+        }
+    }
+
+    private static final class BinaryTraceReader implements TraceReader {
+
+        private final DataInputStream input;
+
+        private long key;
+
+        private int size;
+
+        private BinaryTraceReader(DataInputStream input) {
+            this.input = input;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            try {
+                key = input.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            size = input.readInt();
+            if(size < 0) throw new IOException(String.format("Negative value size %s of the key %s", size, key));
+            return true;
+        }
+
+        @Override
+        public long key() {
+            return key;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
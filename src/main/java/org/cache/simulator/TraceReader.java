@@ -0,0 +1,27 @@
+package org.cache.simulator;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Streamed reader of a key access trace, one access is kept at a time so a trace of any length
+ * is replayed without being loaded in memory
+ */
+public interface TraceReader extends Closeable {
+
+    /**
+     * Move to the next access
+     * @return false at the end of the trace
+     */
+    boolean next() throws IOException;
+
+    /**
+     * Key of the current access
+     */
+    long key();
+
+    /**
+     * Size in bytes of the value of the current access, 1 if the trace has no sizes
+     */
+    int size();
+}
@@ -0,0 +1,52 @@
+package org.cache.weigher;
+
+import org.cache.interfaces.ValueSerializer;
+import org.cache.interfaces.Weigher;
+import org.cache.serializer.JavaValueSerializer;
+
+import java.io.Serializable;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Weighs a value by its serialized size in bytes, the size it takes off heap or on disk.
+ * The value is serialized on every write, use the serializer of the cache to get the exact size
+ * @param <K>
+ * @param <V>
+ */
+public class SerializedSizeWeigher<K,V extends Serializable> implements Weigher<K,V> {
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    //Serialization buffer of the calling thread, only its position is used
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_BUFFER_SIZE));
+
+    private final ValueSerializer<V> serializer;
+
+    public SerializedSizeWeigher() {
+        this(new JavaValueSerializer<>());
+    }
+
+    /**
+     * @param serializer serializer of the values
+     */
+    public SerializedSizeWeigher(ValueSerializer<V> serializer) {
+        this.serializer = serializer;
+    }
+
+    @Override
+    public int weigh(K key, V value) {
+        ByteBuffer buffer = BUFFER.get();
+        while (true) {
+            ((Buffer) buffer).clear();
+            try {
+                serializer.serialize(value, buffer);
+                return buffer.position();
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                BUFFER.set(buffer);
+            }
+        }
+    }
+}
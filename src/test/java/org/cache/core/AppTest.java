@@ -3,14 +3,56 @@ package org.cache.core;
 
 import org.cache.config.CommonConfig;
 import org.cache.config.CommonMessage;
+import org.cache.config.CommonUtils;
+import org.cache.disk.DiskEntry;
+import org.cache.disk.DiskStore;
+import org.cache.expiry.ExpireAfterAccess;
 import org.cache.factory.CacheFactory;
+import org.cache.interfaces.AsyncCleanCache;
 import org.cache.interfaces.ICleanCache;
+import org.cache.interfaces.ValueSerializer;
+import org.cache.metrics.PrometheusExporter;
+import org.cache.model.CacheNode;
+import org.cache.serializer.BinaryValueSerializer;
+import org.cache.weigher.SerializedSizeWeigher;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.SoftReference;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 
 
@@ -92,10 +134,60 @@ public class AppTest {
         ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(1L).setCapacity(1L).build();
         fillCache(cleanCache,10000);
         Thread.sleep(100);
-        Assert.assertEquals(1,cleanCache.size());
+        //Every key outlived its timeout
+        Assert.assertEquals(0,cleanCache.size());
         LOGGER.severe(String.format("Cache Statistics : %s",cleanCache.getCacheStatistics()));
     }
 
+    /**
+     * Cache Expiry Test, an overwrite restarts the timeout of the key
+     */
+    @Test
+    public void cacheTimeOutTest3() throws InterruptedException {
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(500L).setCapacity(20L).build();
+        cleanCache.put("key", "value");
+        Thread.sleep(300);
+        cleanCache.put("key", "value");
+        Thread.sleep(300);
+        Assert.assertTrue(cleanCache.containsKey("key"));
+        Thread.sleep(300);
+        Assert.assertFalse(cleanCache.containsKey("key"));
+    }
+
+    /**
+     * Per key time to live Test, an expired key is never returned by a read
+     */
+    @Test
+    public void perKeyTimeOutTest() throws InterruptedException {
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L).setCapacity(20L).build();
+        cleanCache.put("short", "value", 1L);
+        cleanCache.put("long", "value");
+        Thread.sleep(2);
+        Assert.assertFalse(cleanCache.get("short").isPresent());
+        Assert.assertFalse(cleanCache.containsKey("short"));
+        Assert.assertTrue(cleanCache.get("long").isPresent());
+    }
+
+    /**
+     * Expire After Access Test, every read restarts the timeout of the key
+     */
+    @Test
+    public void expireAfterAccessTest() throws InterruptedException {
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCapacity(20L)
+                .setExpiry(new ExpireAfterAccess<>(300L)).build();
+        cleanCache.put("key", "value");
+        for (int i = 0; i < 6; i++) {
+            Thread.sleep(100);
+            Assert.assertTrue(cleanCache.get("key").isPresent());
+        }
+        Thread.sleep(400);
+        Assert.assertFalse(cleanCache.containsKey("key"));
+        Assert.assertEquals(0, cleanCache.size());
+    }
+
     /**
      * LRU Test 1 :-)
      */
@@ -146,6 +238,962 @@ public class AppTest {
         LOGGER.severe(cleanCache.getCacheStatistics().toString());
     }
 
+    /**
+     * Disk Test, keys with the same hash code do not overwrite each other on disk
+     */
+    @Test
+    public void diskHashCollisionTest() {
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L).setMemoryThresholdSize(0L).setCapacity(10L).build();
+        Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+        cleanCache.put("Aa", "first");
+        cleanCache.put("BB", "second");
+        Assert.assertEquals(2L, cleanCache.getCacheStatistics().getCurrentDiskSize());
+        Assert.assertEquals(Optional.of("first"), cleanCache.get("Aa"));
+        Assert.assertEquals(Optional.of("second"), cleanCache.get("BB"));
+        Assert.assertEquals(2L, cleanCache.getCacheStatistics().getCurrentDiskSize());
+    }
+
+    /**
+     * Binary serializer disk round trip Test :-)
+     */
+    @Test
+    public void binarySerializerTest() {
+        BinaryValueSerializer<Serializable> serializer = new BinaryValueSerializer<>()
+                .register(1, Point.class, new ValueSerializer<Point>() {
+                    @Override
+                    public void serialize(Point value, ByteBuffer buffer) {
+                        buffer.putInt(value.x).putInt(value.y);
+                    }
+
+                    @Override
+                    public Point deserialize(ByteBuffer buffer) {
+                        return new Point(buffer.getInt(), buffer.getInt());
+                    }
+                });
+        CacheFactory<String,Serializable> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,Serializable> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setMemoryThresholdSize(0L).setCapacity(10L).setValueSerializer(serializer).build();
+        char[] large = new char[10000];
+        Arrays.fill(large, '\u00e9');
+        Serializable[] values = {"clean", new String(large), 42, 42L, 4.2d, true, new byte[]{1, 2, 3},
+                new Point(3, 4), new ArrayList<>(Arrays.asList("a", "b"))};
+        for (int i = 0; i < values.length; i++) {
+            cleanCache.put(String.valueOf(i), values[i]);
+        }
+        Assert.assertEquals(values.length, cleanCache.getCacheStatistics().getCurrentDiskSize());
+        for (int i = 0; i < values.length; i++) {
+            Serializable value = cleanCache.get(String.valueOf(i)).orElse(null);
+            if(values[i] instanceof byte[]) {
+                Assert.assertArrayEquals((byte[]) values[i], (byte[]) value);
+            } else {
+                Assert.assertEquals(values[i], value);
+            }
+        }
+    }
+
+    /**
+     * Background spill writer Test :-)
+     */
+    @Test
+    public void spillWriterTest() {
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setMemoryThresholdSize(0L).setCapacity(500L).build();
+        for (int i = 0; i < 500; i++) {
+            cleanCache.put(String.valueOf(i), String.valueOf(i));
+        }
+        //The queued nodes are readable and can be updated before their write is acknowledged
+        for (int i = 0; i < 500; i += 2) {
+            Assert.assertEquals(Optional.of(String.valueOf(i)), cleanCache.get(String.valueOf(i)));
+            cleanCache.put(String.valueOf(i), "updated" + i);
+        }
+        Assert.assertEquals(500L, cleanCache.getCacheStatistics().getCurrentDiskSize());
+        awaitSpills(cleanCache);
+        CacheStatistics cacheStatistics = cleanCache.getCacheStatistics();
+        Assert.assertEquals(0L, cacheStatistics.getSpillQueueDepth());
+        Assert.assertTrue(cacheStatistics.getSpilledNodes() >= 500L);
+        Assert.assertTrue(cacheStatistics.getSpillBatches() < cacheStatistics.getSpilledNodes());
+        Assert.assertTrue(cacheStatistics.getSpillThroughput().signum() > 0);
+        for (int i = 0; i < 500; i++) {
+            Assert.assertEquals(Optional.of(i % 2 == 0 ? "updated" + i : String.valueOf(i)), cleanCache.get(String.valueOf(i)));
+        }
+    }
+
+    /**
+     * Disk promotion Test :-)
+     */
+    @Test
+    public void diskPromotionTest() {
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setMemoryThresholdSize(1L).setCapacity(10L).setDiskPromotionThreshold(2).build();
+        fill(cleanCache, "a", "b", "c");
+        awaitSpills(cleanCache);
+        //The first read is served from disk, the value stays there
+        Assert.assertEquals(Optional.of("a"), cleanCache.get("a"));
+        CacheStatistics cacheStatistics = cleanCache.getCacheStatistics();
+        Assert.assertEquals(2L, cacheStatistics.getCurrentDiskSize());
+        Assert.assertEquals(1L, cacheStatistics.getDiskHits());
+        Assert.assertEquals(0L, cacheStatistics.getDiskPromotions());
+        //The second one promotes it, c makes room for it
+        Assert.assertEquals(Optional.of("a"), cleanCache.get("a"));
+        cacheStatistics = cleanCache.getCacheStatistics();
+        Assert.assertEquals(2L, cacheStatistics.getCurrentDiskSize());
+        Assert.assertEquals(1L, cacheStatistics.getMemorySize());
+        Assert.assertEquals(1L, cacheStatistics.getDiskPromotions());
+        //Removing the in memory key refills memory from disk
+        Assert.assertEquals(Optional.of("a"), cleanCache.remove("a"));
+        cacheStatistics = cleanCache.getCacheStatistics();
+        Assert.assertEquals(1L, cacheStatistics.getCurrentDiskSize());
+        Assert.assertEquals(1L, cacheStatistics.getMemorySize());
+        Assert.assertEquals(Optional.of("b"), cleanCache.get("b"));
+        Assert.assertEquals(Optional.of("c"), cleanCache.get("c"));
+    }
+
+    /**
+     * Off heap tier Test :-)
+     */
+    @Test
+    public void offHeapTest() {
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setMemoryThresholdSize(10L).setCapacity(1000L).setOffHeapCapacityBytes(16L * 1024L)
+                .setValueSerializer(new BinaryValueSerializer<>()).build();
+        for (int i = 0; i < 1000; i++) {
+            cleanCache.put(String.valueOf(i), String.valueOf(i));
+        }
+        //The least recent keys are on disk, the off heap tier holds the next ones
+        CacheStatistics cacheStatistics = cleanCache.getCacheStatistics();
+        Assert.assertEquals(10L, cacheStatistics.getMemorySize());
+        Assert.assertTrue(cacheStatistics.getOffHeapSize() > 0);
+        Assert.assertTrue(cacheStatistics.getCurrentDiskSize() > 0);
+        Assert.assertEquals(1000L, cacheStatistics.getMemorySize() + cacheStatistics.getOffHeapSize() + cacheStatistics.getCurrentDiskSize());
+        Assert.assertTrue(cacheStatistics.getOffHeapUsedBytes() <= cacheStatistics.getOffHeapCapacityBytes());
+        Assert.assertTrue(cacheStatistics.getOffHeapFragmentation().signum() > 0);
+        Assert.assertEquals(Optional.of("985"), cleanCache.get("985"));
+        Assert.assertEquals(1L, cleanCache.getCacheStatistics().getOffHeapHits());
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(Optional.of(String.valueOf(i)), cleanCache.get(String.valueOf(i)));
+        }
+        cleanCache.removeAll(new ArrayList<>(Arrays.asList("0", "1", "2")));
+        Assert.assertEquals(10L, cleanCache.getCacheStatistics().getMemorySize());
+    }
+
+    /**
+     * Weight based capacity Test :-)
+     */
+    @Test
+    public void weigherTest() {
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setMemoryThresholdSize(40L).setCapacity(100L).setWeigher((key, value) -> value.length()).build();
+        for (int i = 0; i < 20; i++) {
+            cleanCache.put(String.valueOf(i), "0123456789");
+        }
+        //Ten values of weight 10 fill the capacity, four of them stay in memory
+        CacheStatistics cacheStatistics = cleanCache.getCacheStatistics();
+        Assert.assertEquals(10L, cleanCache.size());
+        Assert.assertEquals(100L, cacheStatistics.getTotalWeight());
+        Assert.assertEquals(40L, cacheStatistics.getMemoryWeight());
+        Assert.assertEquals(60L, cacheStatistics.getDiskWeight());
+        Assert.assertFalse(cleanCache.get("9").isPresent());
+        //A heavier value evicts as many keys as its weight needs
+        cleanCache.put("heavy", "01234567890123456789012345678901234567890123456789");
+        cacheStatistics = cleanCache.getCacheStatistics();
+        Assert.assertEquals(6L, cleanCache.size());
+        Assert.assertEquals(100L, cacheStatistics.getTotalWeight());
+        Assert.assertTrue(cacheStatistics.getMemoryWeight() <= 40L);
+        Assert.assertEquals(Optional.of("0123456789"), cleanCache.get("19"));
+        cleanCache.put("19", "0");
+        Assert.assertEquals(91L, cleanCache.getCacheStatistics().getTotalWeight());
+        Assert.assertEquals(8, new SerializedSizeWeigher<String,String>(new BinaryValueSerializer<>()).weigh("key", "abc"));
+    }
+
+    /**
+     * Warm restart Test, a new cache of the same name serves the keys of the closed one :-)
+     */
+    @Test
+    public void warmRestartTest() throws IOException, InterruptedException {
+        String cacheName = "warm-restart-test";
+        CommonUtils.deleteDirectory(new File(CommonConfig.DISK_CACHE_PATH, cacheName).getPath());
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setMemoryThresholdSize(10L).setCapacity(100L).setCacheName(cacheName).build();
+        for (int i = 0; i < 50; i++) {
+            cleanCache.put(String.valueOf(i), String.valueOf(i));
+        }
+        cleanCache.put("short", "value", 200L);
+        cleanCache.close();
+        Thread.sleep(300);
+        //The expired key is not recovered, the others are served from disk before any put
+        cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setMemoryThresholdSize(10L).setCapacity(100L).setCacheName(cacheName).build();
+        Assert.assertEquals(50L, cleanCache.size());
+        Assert.assertFalse(cleanCache.containsKey("short"));
+        Assert.assertEquals(50L, cleanCache.getCacheStatistics().getCurrentDiskSize());
+        for (int i = 0; i < 50; i++) {
+            Assert.assertEquals(Optional.of(String.valueOf(i)), cleanCache.get(String.valueOf(i)));
+        }
+        cleanCache.close();
+        CommonUtils.deleteDirectory(new File(CommonConfig.DISK_CACHE_PATH, cacheName).getPath());
+    }
+
+    /**
+     * Disk compaction Test, the segments under the live ratio are rewritten and their files deleted :-)
+     */
+    @Test
+    public void diskCompactionTest() throws IOException {
+        CacheStats cacheStats = new CacheStats(100L, 0L);
+        DiskStore<String,String> diskStore = new DiskStore<>(new File(CommonConfig.DISK_CACHE_PATH, UUID.randomUUID().toString()),
+                1024, false, cacheStats, new BinaryValueSerializer<>());
+        Map<String, CacheNode<String,String>> nodes = new HashMap<>();
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            CacheNode<String,String> cacheNode = new CacheNode<>(String.valueOf(i), new SoftReference<>("value-" + i));
+            nodes.put(cacheNode.getKey(), cacheNode);
+            values.add(cacheNode.startSpill(diskStore));
+        }
+        List<DiskEntry> entries = diskStore.writeBatch(values);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(nodes.get(String.valueOf(i)).completeSpill(values.get(i), entries.get(i), diskStore));
+        }
+        long liveBytes = diskStore.getLiveBytes();
+        //Three values out of four are removed, every full segment falls under the live ratio
+        for (int i = 0; i < 100; i++) {
+            if(i % 4 != 0) nodes.remove(String.valueOf(i)).clearValue(diskStore);
+        }
+        Assert.assertTrue(diskStore.getDeadBytes() > diskStore.getLiveBytes());
+        long moved = 0;
+        long batchMoved;
+        while ((batchMoved = diskStore.compact(0.5, nodes::get, copied -> true)) > 0) {
+            moved += batchMoved;
+        }
+        Assert.assertTrue(moved > 0);
+        Assert.assertTrue(diskStore.getLiveBytes() < liveBytes);
+        Assert.assertTrue(diskStore.getDeadBytes() < diskStore.getLiveBytes());
+        for (CacheNode<String,String> cacheNode : nodes.values()) {
+            Assert.assertEquals("value-" + cacheNode.getKey(), cacheNode.getValue(diskStore).get());
+        }
+        diskStore.close(nodes.values());
+    }
+
+    /**
+     * Crash restart Test, a copy of the directory of an open cache recovers the keys on disk at the last index checkpoint :-)
+     */
+    @Test
+    public void crashRestartTest() throws IOException, InterruptedException {
+        String cacheName = "crash-restart-test";
+        String copyName = "crash-restart-test-copy";
+        CommonUtils.deleteDirectory(new File(CommonConfig.DISK_CACHE_PATH, cacheName).getPath());
+        CommonUtils.deleteDirectory(new File(CommonConfig.DISK_CACHE_PATH, copyName).getPath());
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setMemoryThresholdSize(10L).setCapacity(100L).setCacheName(cacheName).setDiskIndexInterval(100L).build();
+        for (int i = 0; i < 50; i++) {
+            cleanCache.put(String.valueOf(i), String.valueOf(i));
+        }
+        Thread.sleep(1000);
+        Assert.assertEquals(40L, cleanCache.getCacheStatistics().getCurrentDiskSize());
+        //The files of the open cache are what a crash leaves behind, without a held lock
+        File copy = new File(CommonConfig.DISK_CACHE_PATH, copyName);
+        CommonUtils.createNewDirectory(copy.getPath());
+        File[] files = new File(CommonConfig.DISK_CACHE_PATH, cacheName).listFiles((dir, name) -> name.endsWith(".data"));
+        Assert.assertNotNull(files);
+        for (File file : files) {
+            Files.copy(file.toPath(), new File(copy, file.getName()).toPath());
+        }
+        ICleanCache<String,String> restarted = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setMemoryThresholdSize(10L).setCapacity(100L).setCacheName(copyName).build();
+        Assert.assertEquals(40L, restarted.size());
+        Assert.assertTrue(new File(copy, "index.data").exists());
+        int recovered = 0;
+        for (int i = 0; i < 50; i++) {
+            if(restarted.get(String.valueOf(i)).equals(Optional.of(String.valueOf(i)))) recovered++;
+        }
+        Assert.assertEquals(40, recovered);
+        restarted.close();
+        cleanCache.close();
+        CommonUtils.deleteDirectory(new File(CommonConfig.DISK_CACHE_PATH, cacheName).getPath());
+        CommonUtils.deleteDirectory(copy.getPath());
+    }
+
+    /**
+     * Cache name lock Test, a second cache of an open name is rejected and the files of the first one are kept :-)
+     */
+    @Test
+    public void cacheNameLockTest() throws IOException {
+        String cacheName = "name-lock-test";
+        CommonUtils.deleteDirectory(new File(CommonConfig.DISK_CACHE_PATH, cacheName).getPath());
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setMemoryThresholdSize(10L).setCapacity(100L).setCacheName(cacheName).build();
+        for (int i = 0; i < 100; i++) {
+            cleanCache.put(String.valueOf(i), String.valueOf(i));
+        }
+        try {
+            cacheFactory.basicCleanCache().setCacheTimeout(100000L).setMemoryThresholdSize(10L).setCapacity(100L)
+                    .setCacheName(cacheName).build();
+            Assert.fail("The cache name is already open");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(CommonMessage.CACHE_NAME_IS_IN_USE, e.getMessage());
+        }
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(Optional.of(String.valueOf(i)), cleanCache.get(String.valueOf(i)));
+        }
+        cleanCache.close();
+        //The name is free again once the cache is closed, the next cache serves its keys
+        cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setMemoryThresholdSize(10L).setCapacity(100L).setCacheName(cacheName).build();
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(Optional.of(String.valueOf(i)), cleanCache.get(String.valueOf(i)));
+        }
+        cleanCache.close();
+        CommonUtils.deleteDirectory(new File(CommonConfig.DISK_CACHE_PATH, cacheName).getPath());
+    }
+
+    /**
+     * Disk sweep Test, the directories left by a crashed cache are deleted and the live ones are kept :-)
+     */
+    @Test
+    public void diskSweepTest() throws IOException {
+        long staleTime = System.currentTimeMillis() - CommonConfig.STALE_DISK_DIRECTORY_AGE * 2;
+        File stale = new File(CommonConfig.DISK_CACHE_PATH, UUID.randomUUID().toString());
+        CommonUtils.createNewDirectory(stale.getPath());
+        Assert.assertTrue(new File(stale, "store.lock").createNewFile());
+        Assert.assertTrue(new File(stale, "segment-0.dat").createNewFile());
+        Assert.assertTrue(stale.setLastModified(staleTime));
+        File fresh = new File(CommonConfig.DISK_CACHE_PATH, UUID.randomUUID().toString());
+        CommonUtils.createNewDirectory(fresh.getPath());
+        CacheStats cacheStats = new CacheStats(100L, 0L);
+        File live = new File(CommonConfig.DISK_CACHE_PATH, UUID.randomUUID().toString());
+        DiskStore<String,String> diskStore = new DiskStore<>(live, 1024, false, cacheStats, new BinaryValueSerializer<>());
+        diskStore.writeBatch(Collections.singletonList("value"));
+        Assert.assertTrue(live.setLastModified(staleTime));
+        DiskStore.sweep(new File(CommonConfig.DISK_CACHE_PATH));
+        Assert.assertFalse(stale.exists());
+        Assert.assertTrue(fresh.exists());
+        Assert.assertTrue(live.exists());
+        diskStore.close(Collections.emptyList());
+        Assert.assertFalse(live.exists());
+        CommonUtils.deleteDirectory(fresh.getPath());
+    }
+
+    /**
+     * Negative cache Test, a key the replenish callback found no value for is not loaded again until it expires :-)
+     */
+    @Test
+    public void negativeCacheTest() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        List<String> removals = Collections.synchronizedList(new ArrayList<>());
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L).setCapacity(100L)
+                .setRemovalListenerExecutor(Runnable::run)
+                .setRemovalListener((key, value, cause) -> removals.add(key + "=" + value + ":" + cause))
+                .setNegativeCacheTimeout(200L).setReplenishCallback(key -> {
+                    calls.incrementAndGet();
+                    return key.startsWith("missing") ? Optional.empty() : Optional.of(key);
+                }).build();
+        cleanCache.put("key", "value");
+        for (int i = 0; i < 5; i++) {
+            Assert.assertFalse(cleanCache.get("missing").isPresent());
+        }
+        Assert.assertEquals(1, calls.get());
+        Assert.assertEquals(4L, cleanCache.getCacheStatistics().getNegativeHits());
+        Assert.assertEquals(1L, cleanCache.getCacheStatistics().getNegativeSize());
+        Assert.assertEquals(1L, cleanCache.size());
+        Assert.assertFalse(cleanCache.containsKey("missing"));
+        //A write replaces the negative entry
+        cleanCache.put("missing", "value");
+        Assert.assertEquals(Optional.of("value"), cleanCache.get("missing"));
+        Assert.assertEquals(0L, cleanCache.getCacheStatistics().getNegativeSize());
+        Assert.assertEquals(2L, cleanCache.size());
+        //The negative entry expires with its own timeout
+        Assert.assertFalse(cleanCache.get("missing-2").isPresent());
+        Thread.sleep(300);
+        Assert.assertFalse(cleanCache.get("missing-2").isPresent());
+        Assert.assertEquals(3, calls.get());
+        //The removals of the negative entries are notified without a value
+        Assert.assertTrue(removals.contains("missing=null:REPLACED"));
+        Assert.assertTrue(removals.contains("missing-2=null:EXPIRED"));
+    }
+
+    /**
+     * Hit and miss ratios and latency percentiles Test :-)
+     */
+    @Test
+    public void latencyStatisticsTest() {
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L).setCapacity(100L)
+                .setReplenishCallback(key -> Optional.of(key)).build();
+        cleanCache.put("key", "value");
+        Assert.assertEquals(Optional.of("value"), cleanCache.get("key"));
+        Assert.assertEquals(Optional.of("other"), cleanCache.get("other"));
+        CacheStatistics cacheStatistics = cleanCache.getCacheStatistics();
+        Assert.assertEquals(2L, cacheStatistics.getTotalAccessCount());
+        Assert.assertEquals(0, new BigDecimal("0.5").compareTo(cacheStatistics.getMissRatio()));
+        Assert.assertEquals(0, new BigDecimal("0.5").compareTo(cacheStatistics.getHitRatio()));
+        Assert.assertEquals(1L, cacheStatistics.getGetHitLatency().getCount());
+        Assert.assertEquals(1L, cacheStatistics.getGetMissLatency().getCount());
+        Assert.assertEquals(1L, cacheStatistics.getReplenishLatency().getCount());
+        //The loaded value is put like any other
+        Assert.assertEquals(2L, cacheStatistics.getPutLatency().getCount());
+        LatencyPercentiles missLatency = cacheStatistics.getGetMissLatency();
+        Assert.assertTrue(missLatency.getP50() > 0);
+        Assert.assertTrue(missLatency.getP50() <= missLatency.getP99() && missLatency.getP99() <= missLatency.getP999());
+        Assert.assertEquals(0L, cacheStatistics.getSpillLatency().getCount());
+    }
+
+    /**
+     * Platform MBean and Prometheus endpoint Test, the metrics of a cache are exported until it is closed :-)
+     */
+    @Test
+    public void metricsExportTest() throws Exception {
+        String cacheName = "metrics-test";
+        CommonUtils.deleteDirectory(new File(CommonConfig.DISK_CACHE_PATH, cacheName).getPath());
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L).setCapacity(100L)
+                .setCacheName(cacheName).build();
+        cleanCache.put("key", "value");
+        cleanCache.get("key");
+        cleanCache.get("missing");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(CommonConfig.JMX_DOMAIN + ":type=CleanCache,name=" + cacheName);
+        Assert.assertEquals(1L, server.getAttribute(objectName, "Size"));
+        Assert.assertEquals(2L, server.getAttribute(objectName, "AccessCount"));
+        Assert.assertEquals(0.5, (Double) server.getAttribute(objectName, "MissRatio"), 0);
+        CompositeData hitLatency = (CompositeData) server.getAttribute(objectName, "GetHitLatency");
+        Assert.assertEquals(1L, hitLatency.get("count"));
+        try (PrometheusExporter exporter = new PrometheusExporter(0).start()) {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + exporter.getPort()
+                    + CommonConfig.METRICS_PATH).openConnection();
+            Assert.assertEquals(200, connection.getResponseCode());
+            Assert.assertEquals(PrometheusExporter.CONTENT_TYPE, connection.getContentType());
+            String text;
+            try (InputStream input = connection.getInputStream()) {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                for (int read; (read = input.read(buffer)) > 0; ) body.write(buffer, 0, read);
+                text = new String(body.toByteArray(), StandardCharsets.UTF_8);
+            }
+            Assert.assertTrue(text.contains("# TYPE cleancache_gets_total counter\n"));
+            Assert.assertTrue(text.contains("cleancache_gets_total{cache=\"metrics-test\"} 2\n"));
+            Assert.assertTrue(text.contains("cleancache_misses_total{cache=\"metrics-test\"} 1\n"));
+            Assert.assertTrue(text.contains("cleancache_get_hit_latency_seconds_count{cache=\"metrics-test\"} 1\n"));
+            Assert.assertTrue(text.contains("cleancache_get_hit_latency_seconds{cache=\"metrics-test\",quantile=\"0.99\"} "));
+        }
+        cleanCache.close();
+        Assert.assertFalse(server.isRegistered(objectName));
+        Assert.assertFalse(PrometheusExporter.scrape(CacheMetrics.registered()).contains("cache=\"metrics-test\""));
+        CommonUtils.deleteDirectory(new File(CommonConfig.DISK_CACHE_PATH, cacheName).getPath());
+    }
+
+    /**
+     * Log linear buckets of the latency histogram Test :-)
+     */
+    @Test
+    public void latencyHistogramTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0L, histogram.snapshot().getP99());
+        for (long nanos = 1; nanos <= 1000; nanos++) {
+            histogram.record(nanos);
+        }
+        LatencyPercentiles percentiles = histogram.snapshot();
+        Assert.assertEquals(1000L, percentiles.getCount());
+        //A percentile is the upper bound of its bucket, at most 1/8 above the exact value
+        Assert.assertTrue(percentiles.getP50() >= 500 && percentiles.getP50() <= 500 * 9 / 8);
+        Assert.assertTrue(percentiles.getP99() >= 990 && percentiles.getP99() <= 990 * 9 / 8);
+        Assert.assertTrue(percentiles.getP999() >= 999 && percentiles.getP999() <= 999 * 9 / 8);
+        for (long nanos : new long[]{0, 7, 8, 15, 16, 1000, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucket(nanos);
+            Assert.assertTrue(LatencyHistogram.upperBound(bucket) >= nanos);
+            Assert.assertTrue(bucket == 0 || LatencyHistogram.upperBound(bucket - 1) < nanos);
+        }
+    }
+
+    /**
+     * Segmented cache concurrent access Test :-)
+     */
+    @Test
+    public void concurrentSegmentTest() throws InterruptedException {
+        concurrentAccess(false);
+    }
+
+    /**
+     * Buffered LRU reordering concurrent access Test :-)
+     */
+    @Test
+    public void concurrentReadBufferTest() throws InterruptedException {
+        concurrentAccess(true);
+    }
+
+    /**
+     * Buffered LRU Test :-)
+     */
+    @Test
+    public void readBufferLruTest() throws InterruptedException {
+        count = 0;
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(10000000L)
+                .setMemoryThresholdSize(10L).setCapacity(10L).setReadBufferEnabled(true).build();
+        fillCache(cleanCache,10L);
+        Assert.assertTrue(cleanCache.get("0").isPresent());
+        Thread.sleep(CommonConfig.MAINTENANCE_INTERVAL * 3);
+        fillCache(cleanCache,1);
+        Assert.assertTrue(cleanCache.get("0").isPresent());
+        Assert.assertFalse(cleanCache.containsKey("1"));
+        Assert.assertEquals(10L, cleanCache.size());
+    }
+
+    /**
+     * Concurrent misses of a key share one replenish call
+     */
+    @Test
+    public void replenishCoalescingTest() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L).setCapacity(10L)
+                .setReplenishCallback(key -> {
+                    calls.incrementAndGet();
+                    sleep(300);
+                    return Optional.of("loaded");
+                }).build();
+        cleanCache.put("seed","seed");
+        List<Object> results = concurrentMisses(cleanCache, 8);
+        Assert.assertEquals(1, calls.get());
+        for (Object result : results) {
+            Assert.assertEquals(Optional.of("loaded"), result);
+        }
+        Assert.assertEquals(7L, cleanCache.getCacheStatistics().getReplenishCoalesced());
+    }
+
+    /**
+     * The exception of a replenish call reaches every waiting thread
+     */
+    @Test
+    public void replenishCoalescingFailureTest() throws InterruptedException {
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L).setCapacity(10L)
+                .setReplenishCallback(key -> {
+                    sleep(300);
+                    throw new IllegalStateException("backend down");
+                }).build();
+        cleanCache.put("seed","seed");
+        for (Object result : concurrentMisses(cleanCache, 8)) {
+            Assert.assertTrue(String.valueOf(result), result instanceof IllegalStateException);
+        }
+        Assert.assertFalse(cleanCache.containsKey("key"));
+    }
+
+    /**
+     * Asynchronous reads of a missing key share the in flight load
+     */
+    @Test
+    public void asyncGetTest() {
+        AtomicInteger calls = new AtomicInteger();
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        AsyncCleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L).setCapacity(10L)
+                .setAsyncReplenishCallback((key, executor) -> CompletableFuture.supplyAsync(() -> {
+                    calls.incrementAndGet();
+                    sleep(200);
+                    return Optional.of("loaded");
+                }, executor)).buildAsync();
+        CompletableFuture<Optional<String>> first = cleanCache.getAsync("key");
+        CompletableFuture<Optional<String>> second = cleanCache.getAsync("key");
+        Assert.assertSame(first, second);
+        Assert.assertFalse(first.isDone());
+        Assert.assertEquals(Optional.of("loaded"), first.join());
+        Assert.assertTrue(cleanCache.getAsync("key").isDone());
+        Assert.assertEquals(Optional.of("loaded"), cleanCache.get("key"));
+        Assert.assertEquals(1, calls.get());
+    }
+
+    /**
+     * A failed asynchronous load is not cached, the next read loads the key again
+     */
+    @Test
+    public void asyncGetFailureTest() {
+        AtomicInteger calls = new AtomicInteger();
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        AsyncCleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L).setCapacity(10L)
+                .setReplenishCallback(key -> {
+                    if(calls.incrementAndGet() == 1) throw new IllegalStateException("backend down");
+                    return Optional.of("loaded");
+                }).buildAsync();
+        CompletableFuture<Optional<String>> failed = cleanCache.getAsync("key");
+        try {
+            failed.join();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertEquals(Optional.of("loaded"), cleanCache.getAsync("key").join());
+        Assert.assertEquals(2, calls.get());
+    }
+
+    /**
+     * A read after the refresh time reloads the key in the background and still gets the current value
+     */
+    @Test
+    public void refreshAfterWriteTest() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L).setCapacity(10L)
+                .setRefreshAfterWrite(200L).setReplenishCallback(key -> {
+                    sleep(100);
+                    return Optional.of("value" + calls.incrementAndGet());
+                }).build();
+        cleanCache.put("key", "value0");
+        Assert.assertEquals(Optional.of("value0"), cleanCache.get("key"));
+        Thread.sleep(300);
+        Assert.assertEquals(Optional.of("value0"), cleanCache.get("key"));
+        Assert.assertEquals(Optional.of("value0"), cleanCache.get("key"));
+        Thread.sleep(300);
+        Assert.assertEquals(Optional.of("value1"), cleanCache.get("key"));
+        Assert.assertEquals(1, calls.get());
+        CacheStatistics cacheStatistics = cleanCache.getCacheStatistics();
+        Assert.assertEquals(1L, cacheStatistics.getRefreshCount());
+        Assert.assertEquals(0L, cacheStatistics.getRefreshFailures());
+        Assert.assertTrue(cacheStatistics.getAvgRefreshTimeSpent().signum() > 0);
+    }
+
+    /**
+     * Bulk read, write and remove, the missing keys are loaded with one call
+     */
+    @Test
+    public void bulkTest() {
+        List<Collection<String>> calls = new ArrayList<>();
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setCapacity(100L).setMemoryThresholdSize(50L).setConcurrencyLevel(4)
+                .setBulkReplenishCallback(keys -> {
+                    calls.add(new ArrayList<>(keys));
+                    Map<String,String> loaded = new HashMap<>();
+                    keys.stream().filter(key -> !key.equals("unknown")).forEach(key -> loaded.put(key, "loaded" + key));
+                    return loaded;
+                }).build();
+        Map<String,String> values = new HashMap<>();
+        for (int i = 0; i < 80; i++) {
+            values.put(String.valueOf(i), String.valueOf(i));
+        }
+        cleanCache.putAll(values);
+        Assert.assertEquals(80L, cleanCache.size());
+        Assert.assertEquals(80L, cleanCache.getCacheStatistics().getMemorySize() + cleanCache.getCacheStatistics().getCurrentDiskSize());
+        Assert.assertTrue(cleanCache.getCacheStatistics().getMemorySize() <= 50L);
+
+        Map<String,String> found = cleanCache.getAll(Arrays.asList("0", "79", "100", "101", "unknown"));
+        Assert.assertEquals("0", found.get("0"));
+        Assert.assertEquals("79", found.get("79"));
+        Assert.assertEquals("loaded100", found.get("100"));
+        Assert.assertEquals("loaded101", found.get("101"));
+        Assert.assertFalse(found.containsKey("unknown"));
+        Assert.assertEquals(1, calls.size());
+        Assert.assertEquals(Arrays.asList("100", "101", "unknown"), calls.get(0));
+        Assert.assertTrue(cleanCache.containsKey("100"));
+
+        cleanCache.removeAll(Arrays.asList("0", "1", "100", "unknown"));
+        Assert.assertEquals(79L, cleanCache.size());
+        Assert.assertFalse(cleanCache.containsKey("0"));
+        Assert.assertEquals(79L, cleanCache.getCacheStatistics().getMemorySize() + cleanCache.getCacheStatistics().getCurrentDiskSize());
+    }
+
+    /**
+     * Removal listener Test, every removal is notified with its cause off the calling thread
+     */
+    @Test
+    public void removalListenerTest() throws InterruptedException {
+        List<String> removals = Collections.synchronizedList(new ArrayList<>());
+        List<String> evictions = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setCapacity(3L).setMemoryThresholdSize(1L).setRemovalListenerExecutor(executor)
+                .setEvictionCallback((key, value) -> evictions.add(key))
+                .setRemovalListener((key, value, cause) -> removals.add(key + "=" + value + ":" + cause)).build();
+        fill(cleanCache, "a", "b", "c");
+        awaitSpills(cleanCache);
+        cleanCache.put("a", "a2");
+        cleanCache.remove("b");
+        fill(cleanCache, "d", "e");
+        cleanCache.put("x", "x", 50L);
+        for (int i = 0; i < 200 && !removals.contains("x=x:EXPIRED"); i++) {
+            sleep(10L);
+        }
+        Assert.assertTrue(removals.contains("a=a:REPLACED"));
+        Assert.assertTrue(removals.contains("b=b:EXPLICIT"));
+        Assert.assertTrue(removals.contains("x=x:EXPIRED"));
+        Assert.assertTrue(removals.stream().anyMatch(removal -> removal.endsWith(":SPILLED")));
+        Assert.assertTrue(removals.stream().anyMatch(removal -> removal.endsWith(":SIZE")));
+        //The evicted values left on disk are read by the listener task
+        Assert.assertTrue(removals.stream().filter(removal -> removal.endsWith(":SIZE"))
+                .noneMatch(removal -> removal.contains("=null:")));
+        //The eviction callback only hears of the evicted and expired keys
+        Assert.assertTrue(evictions.contains("x"));
+        Assert.assertFalse(evictions.contains("b"));
+
+        //A slow listener does not hold the writers back
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger notified = new AtomicInteger();
+        ICleanCache<String,String> slowCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setCapacity(10L).setMemoryThresholdSize(10L).setRemovalListenerExecutor(executor)
+                .setRemovalListener((key, value, cause) -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    notified.incrementAndGet();
+                }).build();
+        for (int i = 0; i < 100; i++) {
+            slowCache.put(String.valueOf(i), String.valueOf(i));
+        }
+        Assert.assertEquals(10L, slowCache.size());
+        Assert.assertEquals(0, notified.get());
+        release.countDown();
+        for (int i = 0; i < 200 && notified.get() < 90; i++) {
+            sleep(10L);
+        }
+        Assert.assertEquals(90, notified.get());
+        executor.shutdown();
+    }
+
+    /**
+     * Concurrent misses of a long key share one replenish call
+     */
+    @Test
+    public void longReplenishCoalescingTest() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        LongCleanCache<String> cleanCache = new CacheFactory<Long,String>().longCleanCache().setCacheTimeout(100000L)
+                .setCapacity(10L).setReplenishCallback(key -> {
+                    calls.incrementAndGet();
+                    sleep(300);
+                    return Optional.of("loaded" + key);
+                }).build();
+        CountDownLatch start = new CountDownLatch(1);
+        List<String> results = Collections.synchronizedList(new ArrayList<>());
+        Thread[] workers = new Thread[8];
+        for (int t = 0; t < workers.length; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    results.add(cleanCache.get(7L));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        Assert.assertEquals(1, calls.get());
+        Assert.assertEquals(Collections.nCopies(8, "loaded7"), results);
+        Assert.assertEquals(7L, cleanCache.getCacheStatistics().getReplenishCoalesced());
+        cleanCache.close();
+    }
+
+    /**
+     * Long key cache Test, the hits of the primitive keys allocate nothing
+     */
+    @Test
+    public void longCleanCacheTest() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        LongCleanCache<String> cleanCache = new CacheFactory<Long,String>().longCleanCache().setCacheTimeout(100000L)
+                .setCapacity(2000L).setMemoryThresholdSize(100L).setConcurrencyLevel(4).setDiskPromotionThreshold(2)
+                .setReplenishCallback(key -> {
+                    loads.incrementAndGet();
+                    return key < 0 ? Optional.empty() : Optional.of("loaded" + key);
+                }).build();
+        //Random writes and removes checked against a map, the keys collide in the table and are shifted back on removal
+        Map<Long,String> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            long key = random.nextInt(1000) * 1024L;
+            if(random.nextInt(3) == 0){
+                Assert.assertEquals(expected.remove(key), cleanCache.remove(key));
+            }else{
+                cleanCache.put(key, "value" + i);
+                expected.put(key, "value" + i);
+            }
+        }
+        Assert.assertEquals(expected.size(), cleanCache.size());
+        //The second read of a key on disk moves it back to memory
+        for (int read = 0; read < 2; read++) {
+            for (Map.Entry<Long,String> entry : expected.entrySet()) {
+                Assert.assertEquals(entry.getValue(), cleanCache.get(entry.getKey()));
+            }
+        }
+        CacheStatistics cacheStatistics = cleanCache.getCacheStatistics();
+        Assert.assertTrue(cacheStatistics.getMemorySize() <= 100L);
+        Assert.assertEquals(expected.size(), cacheStatistics.getMemorySize() + cacheStatistics.getCurrentDiskSize());
+        Assert.assertTrue(cacheStatistics.getSpilledNodes() > 0);
+        Assert.assertTrue(cacheStatistics.getDiskHits() > 0);
+        Assert.assertTrue(cacheStatistics.getDiskPromotions() > 0);
+
+        //The values on disk are read without the segment lock, a read racing with an update returns the old or the new value
+        Thread writer = new Thread(() -> {
+            for (Long key : expected.keySet()) {
+                cleanCache.put(key, "updated" + key);
+            }
+        });
+        writer.start();
+        for (Map.Entry<Long,String> entry : expected.entrySet()) {
+            String value = cleanCache.get(entry.getKey());
+            Assert.assertTrue(value, entry.getValue().equals(value) || ("updated" + entry.getKey()).equals(value));
+        }
+        writer.join();
+
+        //Eviction of the least recent keys, the misses are loaded
+        cleanCache.clear();
+        for (long key = 0; key < 2100; key++) {
+            cleanCache.put(key, String.valueOf(key));
+        }
+        Assert.assertTrue(cleanCache.size() <= 2000L);
+        Assert.assertTrue(cleanCache.containsKey(2099L));
+        Assert.assertEquals("loaded5000", cleanCache.get(5000L));
+        Assert.assertTrue(cleanCache.containsKey(5000L));
+        Assert.assertNull(cleanCache.get(-1L));
+        Assert.assertEquals(2, loads.get());
+
+        //Time to live of a key
+        cleanCache.put(7L, "short", 50L);
+        Assert.assertEquals("short", cleanCache.get(7L));
+        sleep(100L);
+        Assert.assertFalse(cleanCache.containsKey(7L));
+
+        //A hit served from memory does not allocate
+        cleanCache.put(42L, "hit");
+        for (int i = 0; i < 20000; i++) {
+            cleanCache.get(42L);
+        }
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100000; i++) {
+            cleanCache.get(42L);
+        }
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        Assert.assertTrue("Allocated " + allocated + " bytes", allocated < 100000L);
+
+        //The metrics are exported like the ones of the other caches until the close
+        CacheMetrics metrics = cleanCache.getMetrics();
+        Assert.assertTrue(CacheMetrics.registered().contains(metrics));
+        Assert.assertEquals(cleanCache.size(), metrics.getSize());
+        Assert.assertEquals(2000L, metrics.getCapacity());
+        Assert.assertTrue(metrics.getDiskHits() > 0);
+        cleanCache.close();
+        Assert.assertFalse(CacheMetrics.registered().contains(metrics));
+        Assert.assertNull(metrics.getObjectName());
+    }
+
+    //Result or exception of every thread reading the same missing key
+    private List<Object> concurrentMisses(ICleanCache<String,String> cleanCache, int threads) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Object> results = Collections.synchronizedList(new ArrayList<>());
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    results.add(cleanCache.get("key"));
+                } catch (Throwable e) {
+                    results.add(e);
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        Assert.assertEquals(threads, results.size());
+        return results;
+    }
+
+    private static void fill(ICleanCache<String,String> cleanCache, String... keys) {
+        for (String key : keys) {
+            cleanCache.put(key, key);
+        }
+    }
+
+    //Wait for the background writer to acknowledge the queued nodes
+    private static void awaitSpills(ICleanCache<String,?> cleanCache) {
+        for (int i = 0; i < 200 && cleanCache.getCacheStatistics().getSpillQueueDepth() > 0; i++) {
+            sleep(10L);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void concurrentAccess(boolean readBufferEnabled) throws InterruptedException {
+        long capacity = 200L;
+        long memoryThresholdSize = 100L;
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setMemoryThresholdSize(memoryThresholdSize).setCapacity(capacity).setConcurrencyLevel(8)
+                .setReadBufferEnabled(readBufferEnabled).setEvictionCallback((key, value) -> { }).build();
+        cleanCache.put("seed","seed");
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] workers = new Thread[8];
+        for (int t = 0; t < workers.length; t++) {
+            final int seed = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 2000; i++) {
+                        String key = String.valueOf(random.nextInt(1000));
+                        if(random.nextInt(4) == 0) {
+                            cleanCache.put(key, key);
+                        } else {
+                            cleanCache.get(key).ifPresent(value -> Assert.assertEquals(key, value));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        //Let the maintenance replay the pending buffers
+        if(readBufferEnabled) Thread.sleep(CommonConfig.MAINTENANCE_INTERVAL * 3);
+        Assert.assertNull(failure.get());
+        CacheStatistics cacheStatistics = cleanCache.getCacheStatistics();
+        Assert.assertEquals(capacity, cleanCache.size());
+        Assert.assertTrue(cacheStatistics.getMemorySize() <= memoryThresholdSize);
+        Assert.assertEquals(capacity, cacheStatistics.getMemorySize() + cacheStatistics.getCurrentDiskSize());
+        LOGGER.severe(cacheStatistics.toString());
+    }
+
+    private static final class Point implements Serializable {
+        private final int x;
+        private final int y;
+
+        private Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Point && ((Point) o).x == x && ((Point) o).y == y;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * x + y;
+        }
+    }
+
     private void fillCache(ICleanCache<String, String> cacheCache,long size) {
         String key;
         String value;
@@ -0,0 +1,359 @@
+package org.cache.core;
+
+import org.cache.config.CommonMessage;
+import org.cache.eviction.EvictionPolicyType;
+import org.cache.eviction.TinyLfuAdmissionFilter;
+import org.cache.factory.CacheFactory;
+import org.cache.interfaces.EvictionPolicy;
+import org.cache.interfaces.ICleanCache;
+import org.cache.model.CacheNode;
+import org.cache.simulator.SimulationConfig;
+import org.cache.simulator.SimulationResult;
+import org.cache.simulator.Simulator;
+import org.cache.simulator.TraceFormat;
+import org.cache.simulator.TraceReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Unit test for the eviction policies.
+ */
+public class EvictionPolicyTest {
+
+    /**
+     * LRU evicts the least recent key
+     */
+    @Test
+    public void lruPolicyTest() {
+        ICleanCache<String,String> cleanCache = evictionCache(EvictionPolicyType.LRU, 3L, 3L);
+        fill(cleanCache, "a", "b", "c");
+        cleanCache.get("a");
+        cleanCache.put("d", "d");
+        assertKeys(cleanCache, "b", "a", "c", "d");
+    }
+
+    /**
+     * FIFO ignores the reads
+     */
+    @Test
+    public void fifoPolicyTest() {
+        ICleanCache<String,String> cleanCache = evictionCache(EvictionPolicyType.FIFO, 3L, 3L);
+        fill(cleanCache, "a", "b", "c");
+        cleanCache.get("a");
+        cleanCache.put("d", "d");
+        assertKeys(cleanCache, "a", "b", "c", "d");
+    }
+
+    /**
+     * LFU evicts the least frequent key, the least recent one first for the same frequency
+     */
+    @Test
+    public void lfuPolicyTest() {
+        ICleanCache<String,String> cleanCache = evictionCache(EvictionPolicyType.LFU, 3L, 3L);
+        fill(cleanCache, "a", "b", "c");
+        cleanCache.get("a");
+        cleanCache.get("a");
+        cleanCache.get("c");
+        cleanCache.put("d", "d");
+        assertKeys(cleanCache, "b", "a", "c", "d");
+        cleanCache.put("e", "e");
+        assertKeys(cleanCache, "d", "a", "c", "e");
+    }
+
+    /**
+     * CLOCK gives a second chance to the referenced keys
+     */
+    @Test
+    public void clockPolicyTest() {
+        ICleanCache<String,String> cleanCache = evictionCache(EvictionPolicyType.CLOCK, 3L, 3L);
+        fill(cleanCache, "a", "b", "c");
+        cleanCache.get("a");
+        cleanCache.put("d", "d");
+        assertKeys(cleanCache, "b", "a", "c", "d");
+    }
+
+    /**
+     * ARC evicts from the keys seen once before the keys seen twice
+     */
+    @Test
+    public void arcPolicyTest() {
+        ICleanCache<String,String> cleanCache = evictionCache(EvictionPolicyType.ARC, 3L, 3L);
+        fill(cleanCache, "a", "b", "c");
+        cleanCache.get("c");
+        cleanCache.put("d", "d");
+        assertKeys(cleanCache, "a", "b", "c", "d");
+        //b was evicted from the recent list, seeing it again makes it frequent
+        cleanCache.put("a", "a");
+        assertKeys(cleanCache, "b", "a", "c", "d");
+    }
+
+    /**
+     * The least recent in memory keys are pushed to disk whatever the eviction policy is
+     */
+    @Test
+    public void policySpillTest() {
+        for (EvictionPolicyType type : EvictionPolicyType.values()) {
+            ICleanCache<String,String> cleanCache = evictionCache(type, 10L, 2L);
+            for (int i = 0; i < 10; i++) {
+                cleanCache.put(String.valueOf(i), String.valueOf(i));
+            }
+            cleanCache.get("0");
+            CacheStatistics cacheStatistics = cleanCache.getCacheStatistics();
+            Assert.assertEquals(type.name(), 8L, cacheStatistics.getCurrentDiskSize());
+            Assert.assertEquals(type.name(), 2L, cacheStatistics.getMemorySize());
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals(type.name(), String.valueOf(i), cleanCache.get(String.valueOf(i)).orElse(null));
+            }
+        }
+    }
+
+    /**
+     * A scan of new keys does not flush the hot keys when the admission filter is enabled
+     */
+    @Test
+    public void admissionFilterTest() {
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setCapacity(100L).setAdmissionFilterEnabled(true).setAdmissionWindowPercentage(5)
+                .setEvictionCallback((key, value) -> { }).build();
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                String key = "hot" + i;
+                if(!cleanCache.get(key).isPresent()) cleanCache.put(key, key);
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            cleanCache.put("scan" + i, "scan" + i);
+        }
+        int hotKeys = 0;
+        for (int i = 0; i < 50; i++) {
+            if(cleanCache.containsKey("hot" + i)) hotKeys++;
+        }
+        //The sketch is approximate, a scan key may collide with a hot key, a plain LRU keeps none of them
+        Assert.assertTrue(String.valueOf(hotKeys), hotKeys >= 45);
+        Assert.assertEquals(100L, cleanCache.size());
+        Assert.assertTrue(cleanCache.getCacheStatistics().getAdmissionRejections() > 0);
+    }
+
+    /**
+     * With a weigher the sketch, the admission window and the ARC ghost lists are sized by the sketch size, not by the weight
+     */
+    @Test
+    public void weightedAdmissionFilterTest() {
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        //A capacity of a terabyte would be a sketch and ghost lists of a trillion keys
+        ICleanCache<String,String> hugeCache = cacheFactory.basicCleanCache().setCapacity(1L << 40)
+                .setWeigher((key, value) -> value.length()).setEvictionPolicy(EvictionPolicyType.ARC)
+                .setAdmissionFilterEnabled(true).setSketchSize(1000L).build();
+        hugeCache.put("key", "value");
+        Assert.assertEquals(Optional.of("value"), hugeCache.get("key"));
+
+        ICleanCache<String,String> cleanCache = cacheFactory.basicCleanCache().setCacheTimeout(100000L)
+                .setCapacity(1000L).setWeigher((key, value) -> 10).setEvictionPolicy(EvictionPolicyType.ARC)
+                .setAdmissionFilterEnabled(true).setAdmissionWindowPercentage(5).setSketchSize(100L)
+                .setEvictionCallback((key, value) -> { }).build();
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                String key = "hot" + i;
+                if(!cleanCache.get(key).isPresent()) cleanCache.put(key, key);
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            cleanCache.put("scan" + i, "scan" + i);
+        }
+        int hotKeys = 0;
+        for (int i = 0; i < 50; i++) {
+            if(cleanCache.containsKey("hot" + i)) hotKeys++;
+        }
+        Assert.assertTrue(String.valueOf(hotKeys), hotKeys >= 45);
+        Assert.assertEquals(100L, cleanCache.size());
+        Assert.assertEquals(1000L, cleanCache.getCacheStatistics().getTotalWeight());
+        Assert.assertTrue(cleanCache.getCacheStatistics().getAdmissionRejections() > 0);
+        try {
+            cacheFactory.basicCleanCache().setCapacity(1000L).setWeigher((key, value) -> 10)
+                    .setAdmissionFilterEnabled(true).build();
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertEquals(CommonMessage.SKETCH_SIZE_IS_REQUIRED_WITH_A_WEIGHER, e.getMessage());
+        }
+    }
+
+    /**
+     * Asking for a victim changes nothing until it is evicted, a segment may ask and keep its last node
+     */
+    @Test
+    public void victimTest() {
+        CacheStats cacheStats = new CacheStats(10L, 10L);
+        List<EvictionPolicy<String,String>> policies = new ArrayList<>();
+        for (EvictionPolicyType type : EvictionPolicyType.values()) {
+            policies.add(type.create(10L));
+        }
+        policies.add(new TinyLfuAdmissionFilter<>(EvictionPolicyType.LRU.create(9L), 10L, 10, 10L, cacheStats));
+        for (EvictionPolicy<String,String> policy : policies) {
+            String name = policy.getClass().getSimpleName();
+            List<CacheNode<String,String>> nodes = new ArrayList<>();
+            for (int i = 0; i < 11; i++) {
+                CacheNode<String,String> cacheNode = new CacheNode<>(String.valueOf(i), new SoftReference<>(String.valueOf(i)));
+                nodes.add(cacheNode);
+                policy.onAdd(cacheNode);
+            }
+            policy.onAccess(nodes.get(1));
+            CacheNode<String,String> victim = policy.victim();
+            Assert.assertSame(name, victim, policy.victim());
+            Assert.assertEquals(name, 0L, cacheStats.admissionRejections.sum());
+            policy.onEvict(victim);
+            Assert.assertNotSame(name, victim, policy.victim());
+        }
+        //The new node of the filter was rejected once it was evicted
+        Assert.assertEquals(1L, cacheStats.admissionRejections.sum());
+        //The hand of the clock clears the bit of the referenced node it passes and stops on the victim
+        EvictionPolicy<String,String> clock = EvictionPolicyType.CLOCK.create(3L);
+        CacheNode<String,String> a = new CacheNode<>("a", new SoftReference<>("a"));
+        CacheNode<String,String> b = new CacheNode<>("b", new SoftReference<>("b"));
+        clock.onAdd(a);
+        clock.onAdd(b);
+        clock.onAccess(a);
+        Assert.assertSame(b, clock.victim());
+        Assert.assertSame(b, clock.victim());
+        clock.onRemove(b);
+        Assert.assertSame(a, clock.victim());
+    }
+
+    /**
+     * Behind the admission filter a rejected candidate leaves the victim of the clock in place,
+     * the hand does not scan the hot nodes it already cleared again
+     */
+    @Test
+    public void clockAdmissionTest() {
+        CacheStats cacheStats = new CacheStats(10L, 10L);
+        EvictionPolicy<String,String> clock = EvictionPolicyType.CLOCK.create(9L);
+        EvictionPolicy<String,String> policy = new TinyLfuAdmissionFilter<>(clock, 10L, 10, 10L, cacheStats);
+        List<CacheNode<String,String>> nodes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            CacheNode<String,String> cacheNode = new CacheNode<>(String.valueOf(i), new SoftReference<>(String.valueOf(i)));
+            nodes.add(cacheNode);
+            policy.onAdd(cacheNode);
+        }
+        //The nine admitted nodes are hot, the last one waits in the window
+        for (int i = 0; i < 9; i++) {
+            policy.onAccess(nodes.get(i));
+            policy.onAccess(nodes.get(i));
+        }
+        CacheNode<String,String> clockVictim = null;
+        for (int round = 1; round <= 5; round++) {
+            CacheNode<String,String> cold = new CacheNode<>("cold" + round, new SoftReference<>("cold"));
+            policy.onAdd(cold);
+            CacheNode<String,String> victim = policy.victim();
+            Assert.assertFalse(nodes.subList(0, 9).contains(victim));
+            policy.onEvict(victim);
+            Assert.assertEquals(round, cacheStats.admissionRejections.sum());
+            for (int i = 0; i < 9; i++) {
+                Assert.assertEquals(0, nodes.get(i).getPolicyState());
+            }
+            if(clockVictim == null) clockVictim = clock.victim();
+            Assert.assertSame(clockVictim, clock.victim());
+        }
+    }
+
+    /**
+     * The simulator replays a streamed trace, a loop over more keys than the capacity never hits with LRU,
+     * the keys spilled over the memory threshold are read from disk and the binary trace gives the same results
+     */
+    @Test
+    public void simulatorTest() throws IOException, InterruptedException {
+        Path textTrace = Files.createTempFile("trace", ".txt");
+        Path binaryTrace = Files.createTempFile("trace", ".bin");
+        try {
+            try (PrintWriter text = new PrintWriter(Files.newBufferedWriter(textTrace));
+                 DataOutputStream binary = new DataOutputStream(Files.newOutputStream(binaryTrace))) {
+                text.println("# key size");
+                for (int round = 0; round < 10; round++) {
+                    for (int key = 0; key < 10; key++) {
+                        text.println(key + " 100");
+                        binary.writeLong(key);
+                        binary.writeInt(100);
+                    }
+                }
+            }
+            List<SimulationConfig> configs = Arrays.asList(
+                    new SimulationConfig(EvictionPolicyType.LRU, false, 10, 10, false),
+                    new SimulationConfig(EvictionPolicyType.LRU, false, 5, 5, false),
+                    new SimulationConfig(EvictionPolicyType.LRU, false, 10, 5, false),
+                    new SimulationConfig(EvictionPolicyType.LRU, false, 500, 500, true));
+            List<SimulationResult> results = Simulator.sweep(textTrace, TraceFormat.TEXT, configs, 4);
+            Assert.assertEquals(100L, results.get(0).getAccesses());
+            Assert.assertEquals(0.9, results.get(0).getHitRatio(), 0);
+            Assert.assertEquals(0.9, results.get(0).getByteHitRatio(), 0);
+            Assert.assertEquals(0L, results.get(0).getDiskWrites());
+            Assert.assertEquals(0L, results.get(1).getHits());
+            Assert.assertEquals(90L, results.get(2).getHits());
+            Assert.assertTrue(results.get(2).getDiskReads() > 0);
+            Assert.assertEquals(results.get(2).getDiskReads() * 100, results.get(2).getDiskReadBytes());
+            Assert.assertTrue(results.get(2).getDiskWriteBytes() > 0);
+            //Weighted by the sizes, 500 bytes hold 5 keys
+            Assert.assertEquals(0L, results.get(3).getHits());
+            List<SimulationResult> binaryResults = Simulator.sweep(binaryTrace, TraceFormat.BINARY, configs, 4);
+            for (int i = 0; i < configs.size(); i++) {
+                Assert.assertEquals(results.get(i).toString(), binaryResults.get(i).toString());
+            }
+            //Weighted, the policies are sized by the keys the capacity holds, a capacity of a terabyte is 10 billion values of 100 bytes
+            Assert.assertEquals(100.0, Simulator.meanSize(textTrace, TraceFormat.TEXT), 0);
+            List<SimulationConfig> weightedConfigs = Simulator.grid(Arrays.asList(EvictionPolicyType.ARC), true,
+                    Arrays.asList(1000L, 1L << 40), Collections.emptyList(), true, capacity -> Math.min(capacity / 100, 1000L));
+            Assert.assertEquals(10L, weightedConfigs.get(0).getSketchSize());
+            List<SimulationResult> weightedResults = Simulator.sweep(textTrace, TraceFormat.TEXT, weightedConfigs, 2);
+            Assert.assertEquals(90L, weightedResults.get(1).getHits());
+
+            //A negative size is rejected
+            try (PrintWriter text = new PrintWriter(Files.newBufferedWriter(textTrace));
+                 DataOutputStream binary = new DataOutputStream(Files.newOutputStream(binaryTrace))) {
+                text.println("1 -5");
+                binary.writeLong(1);
+                binary.writeInt(-5);
+            }
+            for (TraceFormat format : TraceFormat.values()) {
+                try (TraceReader reader = format.open(format == TraceFormat.TEXT ? textTrace : binaryTrace)) {
+                    reader.next();
+                    Assert.fail(format.name());
+                } catch (IOException e) {
+                    Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Negative value size -5"));
+                }
+            }
+        } finally {
+            Files.delete(textTrace);
+            Files.delete(binaryTrace);
+        }
+    }
+
+    private ICleanCache<String,String> evictionCache(EvictionPolicyType type, Long capacity, Long memoryThresholdSize) {
+        CacheFactory<String,String> cacheFactory = new CacheFactory<>();
+        return cacheFactory.basicCleanCache().setCacheTimeout(100000L).setCapacity(capacity)
+                .setMemoryThresholdSize(memoryThresholdSize).setEvictionPolicy(type)
+                .setEvictionCallback((key, value) -> { }).build();
+    }
+
+    private void fill(ICleanCache<String,String> cleanCache, String... keys) {
+        for (String key : keys) {
+            cleanCache.put(key, key);
+        }
+    }
+
+    private void assertKeys(ICleanCache<String,String> cleanCache, String evicted, String... present) {
+        Assert.assertFalse(cleanCache.containsKey(evicted));
+        for (String key : present) {
+            Assert.assertTrue(key, cleanCache.containsKey(key));
+        }
+    }
+}